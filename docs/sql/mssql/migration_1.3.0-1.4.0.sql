@@ -0,0 +1,139 @@
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::1::Lubos Racansky
+-- Add photo_data_binary column to uds_photo table
+ALTER TABLE uds_photo ADD photo_data_binary varbinary(max);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::2::Lubos Racansky
+-- Make photo_data column in uds_photo table nullable
+ALTER TABLE uds_photo ALTER COLUMN photo_data varchar (max) NULL;
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::3::Lubos Racansky
+-- Add attachment_data_binary column to uds_attachment table
+ALTER TABLE uds_attachment ADD attachment_data_binary varbinary(max);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::4::Lubos Racansky
+-- Make attachment_data column in uds_attachment table nullable
+ALTER TABLE uds_attachment ALTER COLUMN attachment_data varchar (max) NULL;
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::1::Lubos Racansky
+-- Create a new index on uds_document(user_id, data_type)
+CREATE NONCLUSTERED INDEX uds_document_user_data_type ON uds_document(user_id, data_type);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::2::Lubos Racansky
+-- Create a new index on uds_document(external_id)
+CREATE NONCLUSTERED INDEX uds_document_external_id ON uds_document(external_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::3::Lubos Racansky
+-- Create a new index on uds_document_history(document_id)
+CREATE NONCLUSTERED INDEX uds_document_history_document ON uds_document_history(document_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::4::Lubos Racansky
+-- Create a new index on uds_document_history(user_id)
+CREATE NONCLUSTERED INDEX uds_document_history_user ON uds_document_history(user_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::5::Lubos Racansky
+-- Create a new index on uds_photo(user_id, document_id)
+CREATE NONCLUSTERED INDEX uds_photo_user_document ON uds_photo(user_id, document_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::6::Lubos Racansky
+-- Create a new index on uds_photo(document_id)
+CREATE NONCLUSTERED INDEX uds_photo_document ON uds_photo(document_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::7::Lubos Racansky
+-- Create a new index on uds_attachment(user_id, document_id)
+CREATE NONCLUSTERED INDEX uds_attachment_user_document ON uds_attachment(user_id, document_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::8::Lubos Racansky
+-- Create a new index on uds_attachment(document_id)
+CREATE NONCLUSTERED INDEX uds_attachment_document ON uds_attachment(document_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::9::Lubos Racansky
+-- Check that no user has more than one document with claims before creating the unique index on uds_document(user_id)
+-- The following query must return no rows, remove the duplicates otherwise, see User-Data-Store-1.4.0.md
+-- SELECT user_id, COUNT(*) FROM uds_document WHERE data_type = 'claims' GROUP BY user_id HAVING COUNT(*) > 1;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::12::Lubos Racansky
+-- Create a new unique index on uds_document(user_id) for documents with claims
+CREATE UNIQUE NONCLUSTERED INDEX uds_document_claims_user ON uds_document(user_id) WHERE data_type = 'claims';
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241017-import-result.xml::1::Lubos Racansky
+-- Make document_id column in uds_import_result table nullable to record failed imports
+ALTER TABLE uds_import_result ALTER COLUMN document_id varchar(36) NULL;
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::1::Lubos Racansky
+-- Create a new table uds_import_job
+CREATE TABLE uds_import_job (id varchar(36) NOT NULL, state varchar(32) NOT NULL, import_paths varchar (max) NOT NULL, attributes varchar (max), path_index int NOT NULL, record_position bigint NOT NULL, processed_count bigint NOT NULL, imported_count bigint NOT NULL, failed_count bigint NOT NULL, error varchar(255), version bigint NOT NULL, timestamp_created datetime2 NOT NULL, timestamp_last_updated datetime2 NOT NULL, CONSTRAINT PK_UDS_IMPORT_JOB PRIMARY KEY (id));
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::2::Lubos Racansky
+-- Create a new index on uds_import_job(state, timestamp_last_updated)
+CREATE NONCLUSTERED INDEX uds_import_job_state_updated ON uds_import_job(state, timestamp_last_updated);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::3::Lubos Racansky
+-- Add job_id column to uds_import_result table
+ALTER TABLE uds_import_result ADD job_id varchar(36);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::4::Lubos Racansky
+-- Create a new index on uds_import_result(job_id)
+CREATE NONCLUSTERED INDEX uds_import_result_job ON uds_import_result(job_id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241019-cache-invalidation.xml::1::Lubos Racansky
+-- Create a new table uds_cache_invalidation
+CREATE TABLE uds_cache_invalidation (id varchar(36) NOT NULL, node_id varchar(36) NOT NULL, user_id varchar(255) NOT NULL, timestamp_created datetime2 NOT NULL, CONSTRAINT PK_UDS_CACHE_INVALIDATION PRIMARY KEY (id));
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241019-cache-invalidation.xml::2::Lubos Racansky
+-- Create a new index on uds_cache_invalidation(timestamp_created)
+CREATE NONCLUSTERED INDEX uds_cache_invalidation_created ON uds_cache_invalidation(timestamp_created);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241020-document-version.xml::1::Lubos Racansky
+-- Add version column to uds_document table
+ALTER TABLE uds_document ADD version bigint CONSTRAINT DF_uds_document_version DEFAULT 0 NOT NULL;
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241021-photo-attachment-version.xml::1::Lubos Racansky
+-- Add version column to uds_photo table
+ALTER TABLE uds_photo ADD version bigint CONSTRAINT DF_uds_photo_version DEFAULT 0 NOT NULL;
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241021-photo-attachment-version.xml::2::Lubos Racansky
+-- Add version column to uds_attachment table
+ALTER TABLE uds_attachment ADD version bigint CONSTRAINT DF_uds_attachment_version DEFAULT 0 NOT NULL;
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241022-keyset-indexes.xml::1::Lubos Racansky
+-- Create a new index on uds_document(user_id, timestamp_created, id)
+CREATE NONCLUSTERED INDEX uds_document_user_created ON uds_document(user_id, timestamp_created, id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241022-keyset-indexes.xml::2::Lubos Racansky
+-- Create a new index on uds_photo(user_id, timestamp_created, id)
+CREATE NONCLUSTERED INDEX uds_photo_user_created ON uds_photo(user_id, timestamp_created, id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241022-keyset-indexes.xml::3::Lubos Racansky
+-- Create a new index on uds_attachment(user_id, timestamp_created, id)
+CREATE NONCLUSTERED INDEX uds_attachment_user_created ON uds_attachment(user_id, timestamp_created, id);
+GO
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241023-import-job-resume.xml::1::Lubos Racansky
+-- Add resume_attempts column to uds_import_job table
+ALTER TABLE uds_import_job ADD resume_attempts int CONSTRAINT DF_uds_import_job_resume_attempts DEFAULT 0 NOT NULL;
+GO
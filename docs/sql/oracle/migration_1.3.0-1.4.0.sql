@@ -0,0 +1,112 @@
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::1::Lubos Racansky
+-- Add photo_data_binary column to uds_photo table
+ALTER TABLE uds_photo ADD photo_data_binary BLOB;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::2::Lubos Racansky
+-- Make photo_data column in uds_photo table nullable
+ALTER TABLE uds_photo MODIFY photo_data NULL;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::3::Lubos Racansky
+-- Add attachment_data_binary column to uds_attachment table
+ALTER TABLE uds_attachment ADD attachment_data_binary BLOB;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241015-binary-data.xml::4::Lubos Racansky
+-- Make attachment_data column in uds_attachment table nullable
+ALTER TABLE uds_attachment MODIFY attachment_data NULL;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::1::Lubos Racansky
+-- Create a new index on uds_document(user_id, data_type)
+CREATE INDEX uds_document_user_data_type ON uds_document(user_id, data_type);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::2::Lubos Racansky
+-- Create a new index on uds_document(external_id)
+CREATE INDEX uds_document_external_id ON uds_document(external_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::3::Lubos Racansky
+-- Create a new index on uds_document_history(document_id)
+CREATE INDEX uds_document_history_document ON uds_document_history(document_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::4::Lubos Racansky
+-- Create a new index on uds_document_history(user_id)
+CREATE INDEX uds_document_history_user ON uds_document_history(user_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::5::Lubos Racansky
+-- Create a new index on uds_photo(user_id, document_id)
+CREATE INDEX uds_photo_user_document ON uds_photo(user_id, document_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::6::Lubos Racansky
+-- Create a new index on uds_photo(document_id)
+CREATE INDEX uds_photo_document ON uds_photo(document_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::7::Lubos Racansky
+-- Create a new index on uds_attachment(user_id, document_id)
+CREATE INDEX uds_attachment_user_document ON uds_attachment(user_id, document_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::8::Lubos Racansky
+-- Create a new index on uds_attachment(document_id)
+CREATE INDEX uds_attachment_document ON uds_attachment(document_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::9::Lubos Racansky
+-- Check that no user has more than one document with claims before creating the unique index on uds_document(user_id)
+-- The following query must return no rows, remove the duplicates otherwise, see User-Data-Store-1.4.0.md
+-- SELECT user_id, COUNT(*) FROM uds_document WHERE data_type = 'claims' GROUP BY user_id HAVING COUNT(*) > 1;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241016-indexes.xml::11::Lubos Racansky
+-- Create a new unique index on uds_document(user_id) for documents with claims
+CREATE UNIQUE INDEX uds_document_claims_user ON uds_document(CASE WHEN data_type = 'claims' THEN user_id END);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241017-import-result.xml::1::Lubos Racansky
+-- Make document_id column in uds_import_result table nullable to record failed imports
+ALTER TABLE uds_import_result MODIFY document_id NULL;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::1::Lubos Racansky
+-- Create a new table uds_import_job
+CREATE TABLE uds_import_job (id VARCHAR2(36) NOT NULL, state VARCHAR2(32) NOT NULL, import_paths CLOB NOT NULL, attributes CLOB, path_index INTEGER NOT NULL, record_position NUMBER(19, 0) NOT NULL, processed_count NUMBER(19, 0) NOT NULL, imported_count NUMBER(19, 0) NOT NULL, failed_count NUMBER(19, 0) NOT NULL, error VARCHAR2(255), version NUMBER(19, 0) NOT NULL, timestamp_created TIMESTAMP NOT NULL, timestamp_last_updated TIMESTAMP NOT NULL, CONSTRAINT PK_UDS_IMPORT_JOB PRIMARY KEY (id));
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::2::Lubos Racansky
+-- Create a new index on uds_import_job(state, timestamp_last_updated)
+CREATE INDEX uds_import_job_state_updated ON uds_import_job(state, timestamp_last_updated);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::3::Lubos Racansky
+-- Add job_id column to uds_import_result table
+ALTER TABLE uds_import_result ADD job_id VARCHAR2(36);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241018-import-job.xml::4::Lubos Racansky
+-- Create a new index on uds_import_result(job_id)
+CREATE INDEX uds_import_result_job ON uds_import_result(job_id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241019-cache-invalidation.xml::1::Lubos Racansky
+-- Create a new table uds_cache_invalidation
+CREATE TABLE uds_cache_invalidation (id VARCHAR2(36) NOT NULL, node_id VARCHAR2(36) NOT NULL, user_id VARCHAR2(255) NOT NULL, timestamp_created TIMESTAMP NOT NULL, CONSTRAINT PK_UDS_CACHE_INVALIDATION PRIMARY KEY (id));
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241019-cache-invalidation.xml::2::Lubos Racansky
+-- Create a new index on uds_cache_invalidation(timestamp_created)
+CREATE INDEX uds_cache_invalidation_created ON uds_cache_invalidation(timestamp_created);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241020-document-version.xml::1::Lubos Racansky
+-- Add version column to uds_document table
+ALTER TABLE uds_document ADD version NUMBER(19, 0) DEFAULT 0 NOT NULL;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241021-photo-attachment-version.xml::1::Lubos Racansky
+-- Add version column to uds_photo table
+ALTER TABLE uds_photo ADD version NUMBER(19, 0) DEFAULT 0 NOT NULL;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241021-photo-attachment-version.xml::2::Lubos Racansky
+-- Add version column to uds_attachment table
+ALTER TABLE uds_attachment ADD version NUMBER(19, 0) DEFAULT 0 NOT NULL;
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241022-keyset-indexes.xml::1::Lubos Racansky
+-- Create a new index on uds_document(user_id, timestamp_created, id)
+CREATE INDEX uds_document_user_created ON uds_document(user_id, timestamp_created, id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241022-keyset-indexes.xml::2::Lubos Racansky
+-- Create a new index on uds_photo(user_id, timestamp_created, id)
+CREATE INDEX uds_photo_user_created ON uds_photo(user_id, timestamp_created, id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241022-keyset-indexes.xml::3::Lubos Racansky
+-- Create a new index on uds_attachment(user_id, timestamp_created, id)
+CREATE INDEX uds_attachment_user_created ON uds_attachment(user_id, timestamp_created, id);
+
+-- Changeset docs/db/changelog/changesets/user-data-store/1.4.x/20241023-import-job-resume.xml::1::Lubos Racansky
+-- Add resume_attempts column to uds_import_job table
+ALTER TABLE uds_import_job ADD resume_attempts INTEGER DEFAULT 0 NOT NULL;
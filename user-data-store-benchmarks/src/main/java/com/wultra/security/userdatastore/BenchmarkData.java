@@ -0,0 +1,70 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore;
+
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Generator of benchmark payloads, seeded so that all runs measure the same data.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+public final class BenchmarkData {
+
+    private static final long SEED = 42L;
+
+    private BenchmarkData() {
+        throw new IllegalStateException("Should not be instantiated");
+    }
+
+    /**
+     * Generate claims JSON of approximately the given size.
+     *
+     * @param size size in bytes
+     * @return claims JSON
+     */
+    public static String claims(final int size) {
+        final Random random = new Random(SEED);
+        final StringBuilder builder = new StringBuilder(size + 64).append('{');
+        for (int i = 0; builder.length() < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("\"claim").append(i).append("\":\"");
+            for (int j = 0; j < 32; j++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            builder.append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Generate Base64 encoded random data of approximately the given size after encoding, e.g. a photo.
+     *
+     * @param size size of the encoded data in bytes
+     * @return Base64 encoded data
+     */
+    public static String base64(final int size) {
+        final byte[] data = new byte[size / 4 * 3];
+        new Random(SEED).nextBytes(data);
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+}
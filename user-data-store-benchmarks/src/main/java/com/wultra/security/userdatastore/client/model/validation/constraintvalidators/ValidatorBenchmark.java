@@ -0,0 +1,85 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.client.model.validation.constraintvalidators;
+
+import com.wultra.security.userdatastore.BenchmarkData;
+import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link DocumentRequestValidator} and {@link Base64Validator} validating request data of various sizes.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    /**
+     * Size of the validated data in bytes.
+     */
+    @Param({"1024", "65536", "1048576"})
+    public int dataSize;
+
+    private final DocumentRequestValidator documentRequestValidator = new DocumentRequestValidator();
+    private final Base64Validator base64Validator = new Base64Validator();
+
+    private DocumentCreateRequest claimsRequest;
+    private DocumentCreateRequest binaryRequest;
+    private String base64;
+
+    @Setup
+    public void setUp() {
+        claimsRequest = request("claims", BenchmarkData.claims(dataSize));
+        base64 = BenchmarkData.base64(dataSize);
+        binaryRequest = request("binary_base64", base64);
+    }
+
+    @Benchmark
+    public boolean validateClaimsDocument() {
+        return documentRequestValidator.isValid(claimsRequest, null);
+    }
+
+    @Benchmark
+    public boolean validateBinaryDocument() {
+        return documentRequestValidator.isValid(binaryRequest, null);
+    }
+
+    @Benchmark
+    public boolean validateBase64() {
+        return base64Validator.isValid(base64, null);
+    }
+
+    private static DocumentCreateRequest request(final String dataType, final String documentData) {
+        return DocumentCreateRequest.builder()
+                .userId("benchmark_user")
+                .documentType("profile")
+                .dataType(dataType)
+                .documentData(documentData)
+                .attributes(Collections.emptyMap())
+                .build();
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.converter;
+
+import com.wultra.security.userdatastore.BenchmarkData;
+import com.wultra.security.userdatastore.client.model.dto.DocumentDto;
+import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import com.wultra.security.userdatastore.service.EncryptionService;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Security;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link DocumentConverter#toDocument(DocumentEntity)}, including decryption of the document data
+ * and parsing of the attributes.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentConverterBenchmark {
+
+    private static final String MASTER_KEY = "MTIzNDU2Nzg5MDEyMzQ1Ng==";
+
+    /**
+     * Size of the document data in bytes.
+     */
+    @Param({"1024", "65536"})
+    public int documentDataSize;
+
+    /**
+     * Whether the document data is encrypted.
+     */
+    @Param({"false", "true"})
+    public boolean encrypted;
+
+    private DocumentConverter documentConverter;
+
+    private DocumentEntity entity;
+
+    @Setup
+    public void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+        final EncryptionService encryptionService = new EncryptionService(encrypted ? MASTER_KEY : "");
+        documentConverter = new DocumentConverter(encryptionService);
+
+        entity = new DocumentEntity();
+        entity.setId(UUID.randomUUID().toString());
+        entity.setUserId("benchmark_user");
+        entity.setDocumentType("profile");
+        entity.setDataType("claims");
+        entity.setAttributes("{\"issuer\":\"https://issuer.example.com\",\"validUntil\":\"2030-12-31\",\"tags\":[\"kyc\",\"verified\"]}");
+        encryptionService.encryptDocumentData(entity, BenchmarkData.claims(documentDataSize));
+    }
+
+    @Benchmark
+    public DocumentDto toDocument() {
+        return documentConverter.toDocument(entity);
+    }
+
+}
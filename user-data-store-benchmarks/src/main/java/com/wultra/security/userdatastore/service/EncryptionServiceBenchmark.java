@@ -0,0 +1,119 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.BenchmarkData;
+import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import com.wultra.security.userdatastore.model.entity.PhotoEntity;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Security;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link EncryptionService} encrypting and decrypting document data and photos of various sizes,
+ * from small claims to large photos.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionServiceBenchmark {
+
+    private static final String MASTER_KEY = "MTIzNDU2Nzg5MDEyMzQ1Ng==";
+
+    private static final String USER_ID = "benchmark_user";
+
+    /**
+     * Size of the plaintext payload in bytes.
+     */
+    @Param({"1024", "65536", "1048576", "5242880"})
+    public int payloadSize;
+
+    /**
+     * Whether Base64 encoded photos are stored encrypted in binary columns.
+     */
+    @Param({"false", "true"})
+    public boolean binaryStorageEnabled;
+
+    private EncryptionService encryptionService;
+
+    private String documentData;
+    private String photoData;
+
+    private DocumentEntity encryptedDocument;
+    private PhotoEntity encryptedPhoto;
+
+    @Setup
+    public void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+        encryptionService = new EncryptionService(MASTER_KEY, true, 10_000, Duration.ofMinutes(10), binaryStorageEnabled);
+
+        documentData = BenchmarkData.claims(payloadSize);
+        photoData = BenchmarkData.base64(payloadSize);
+
+        encryptedDocument = document();
+        encryptionService.encryptDocumentData(encryptedDocument, documentData);
+        encryptedPhoto = photo();
+        encryptionService.encryptPhoto(encryptedPhoto, photoData);
+    }
+
+    @Benchmark
+    public DocumentEntity encryptDocumentData() {
+        final DocumentEntity entity = document();
+        encryptionService.encryptDocumentData(entity, documentData);
+        return entity;
+    }
+
+    @Benchmark
+    public String decryptDocumentData() {
+        return encryptionService.decryptDocumentData(encryptedDocument);
+    }
+
+    @Benchmark
+    public PhotoEntity encryptPhoto() {
+        final PhotoEntity entity = photo();
+        encryptionService.encryptPhoto(entity, photoData);
+        return entity;
+    }
+
+    @Benchmark
+    public String decryptPhoto() {
+        return encryptionService.decryptPhoto(encryptedPhoto);
+    }
+
+    private static DocumentEntity document() {
+        final DocumentEntity entity = new DocumentEntity();
+        entity.setUserId(USER_ID);
+        return entity;
+    }
+
+    private static PhotoEntity photo() {
+        final PhotoEntity entity = new PhotoEntity();
+        entity.setUserId(USER_ID);
+        entity.setDocument(document());
+        return entity;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.client.model.dto.PhotoImportDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of parsing CSV files of {@link PhotoImportService} into photos to import.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhotoImportCsvBenchmark {
+
+    /**
+     * Default {@code user-data-store.import.csv.chunk-size}.
+     */
+    private static final int CHUNK_SIZE = 100;
+
+    /**
+     * Number of CSV records.
+     */
+    @Param({"100", "10000"})
+    public int records;
+
+    private final Map<String, Object> attributes = Map.of("source", "benchmark");
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            builder.append("user_").append(i).append(",url,person,https://photos.example.com/user_").append(i).append("/photo.jpg\n");
+        }
+        csv = builder.toString();
+    }
+
+    @Benchmark
+    public List<PhotoImportDto> parseCsv() throws IOException {
+        final List<PhotoImportDto> photos = new ArrayList<>(records);
+        PhotoImportService.parseCsv(new StringReader(csv), attributes, 0, CHUNK_SIZE, (chunk, recordPosition, last) -> photos.addAll(chunk));
+        return photos;
+    }
+
+}
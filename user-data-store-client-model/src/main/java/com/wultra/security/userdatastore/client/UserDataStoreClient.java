@@ -21,6 +21,8 @@ import com.wultra.security.userdatastore.client.model.error.UserDataStoreClientE
 import com.wultra.security.userdatastore.client.model.request.*;
 import com.wultra.security.userdatastore.client.model.response.*;
 
+import java.util.List;
+
 /**
  * User Data Store client interface.
  *
@@ -38,6 +40,29 @@ public interface UserDataStoreClient {
      */
     DocumentResponse fetchDocuments(String userId, String documentId) throws UserDataStoreClientException;
 
+    /**
+     * Fetch documents, optionally without their data.
+     *
+     * @param userId       User identifier.
+     * @param documentId   Optional document identifier.
+     * @param metadataOnly Whether to fetch only metadata without data.
+     * @return Documents.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    DocumentResponse fetchDocuments(String userId, String documentId, boolean metadataOnly) throws UserDataStoreClientException;
+
+    /**
+     * Fetch a page of documents ordered by their creation, optionally without their data.
+     *
+     * @param userId       User identifier.
+     * @param metadataOnly Whether to fetch only metadata without data.
+     * @param limit        Maximal number of returned documents.
+     * @param cursor       Optional cursor of the next page, {@code null} for the first page.
+     * @return Documents with the cursor of the next page, the cursor is {@code null} for the last page.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    DocumentResponse fetchDocuments(String userId, boolean metadataOnly, int limit, String cursor) throws UserDataStoreClientException;
+
     /**
      * Create a document.
      *
@@ -75,6 +100,40 @@ public interface UserDataStoreClient {
      */
     PhotoResponse fetchPhotos(String userId, String documentId) throws UserDataStoreClientException;
 
+    /**
+     * Fetch photos, optionally without their data.
+     *
+     * @param userId       User identifier.
+     * @param documentId   Document identifier.
+     * @param metadataOnly Whether to fetch only metadata without data.
+     * @return Photo response.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    PhotoResponse fetchPhotos(String userId, String documentId, boolean metadataOnly) throws UserDataStoreClientException;
+
+    /**
+     * Fetch a page of photos ordered by their creation, optionally without their data.
+     *
+     * @param userId       User identifier.
+     * @param documentId   Document identifier.
+     * @param metadataOnly Whether to fetch only metadata without data.
+     * @param limit        Maximal number of returned photos.
+     * @param cursor       Optional cursor of the next page, {@code null} for the first page.
+     * @return Photo response with the cursor of the next page, the cursor is {@code null} for the last page.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    PhotoResponse fetchPhotos(String userId, String documentId, boolean metadataOnly, int limit, String cursor) throws UserDataStoreClientException;
+
+    /**
+     * Fetch binary content of a photo.
+     *
+     * @param userId  User identifier.
+     * @param photoId Photo identifier.
+     * @return Decrypted photo content.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    byte[] fetchPhotoContent(String userId, String photoId) throws UserDataStoreClientException;
+
     /**
      * Create a photo.
      *
@@ -115,9 +174,19 @@ public interface UserDataStoreClient {
      * Import photos from CSV files.
      *
      * @param request Photo import from CSV files request.
+     * @return Photo import from CSV files response with the import job identifier.
      * @throws UserDataStoreClientException Thrown in case REST API call fails.
      */
-    void importPhotosCsv(PhotosImportCsvRequest request) throws UserDataStoreClientException;
+    PhotosImportCsvResponse importPhotosCsv(PhotosImportCsvRequest request) throws UserDataStoreClientException;
+
+    /**
+     * Fetch progress of an import job.
+     *
+     * @param jobId Import job identifier.
+     * @return Import job response.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    ImportJobResponse fetchImportJob(String jobId) throws UserDataStoreClientException;
 
     /**
      * Fetch attachments.
@@ -129,6 +198,30 @@ public interface UserDataStoreClient {
      */
     AttachmentResponse fetchAttachments(String userId, String documentId) throws UserDataStoreClientException;
 
+    /**
+     * Fetch attachments, optionally without their data.
+     *
+     * @param userId       User identifier.
+     * @param documentId   Optional document identifier.
+     * @param metadataOnly Whether to fetch only metadata without data.
+     * @return Attachment response.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    AttachmentResponse fetchAttachments(String userId, String documentId, boolean metadataOnly) throws UserDataStoreClientException;
+
+    /**
+     * Fetch a page of attachments ordered by their creation, optionally without their data.
+     *
+     * @param userId       User identifier.
+     * @param documentId   Document identifier.
+     * @param metadataOnly Whether to fetch only metadata without data.
+     * @param limit        Maximal number of returned attachments.
+     * @param cursor       Optional cursor of the next page, {@code null} for the first page.
+     * @return Attachment response with the cursor of the next page, the cursor is {@code null} for the last page.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    AttachmentResponse fetchAttachments(String userId, String documentId, boolean metadataOnly, int limit, String cursor) throws UserDataStoreClientException;
+
     /**
      * Create an attachment.
      *
@@ -207,6 +300,22 @@ public interface UserDataStoreClient {
      */
     void updateClaims(String userId, Object value) throws UserDataStoreClientException;
 
+    /**
+     * Partially update claims by JSON Merge Patch (RFC 7386).
+     * @param userId User identifier.
+     * @param patch Merge patch, claims with null value are removed.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails, e.g. when the claims were modified concurrently.
+     */
+    void mergePatchClaims(String userId, Object patch) throws UserDataStoreClientException;
+
+    /**
+     * Partially update claims by JSON Patch (RFC 6902).
+     * @param userId User identifier.
+     * @param operations List of patch operations, e.g. {@code Map.of("op", "replace", "path", "/claim1", "value", "value2")}.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails, e.g. when the claims were modified concurrently.
+     */
+    void jsonPatchClaims(String userId, List<?> operations) throws UserDataStoreClientException;
+
     /**
      * Delete claim(s).
      * @param userId User identifier.
@@ -214,5 +323,12 @@ public interface UserDataStoreClient {
      * @throws UserDataStoreClientException Thrown in case REST API call fails.
      */
     void deleteClaims(String userId, String claim) throws UserDataStoreClientException;
+
+    /**
+     * Erase all data of the user, i.e. documents, claims, photos, attachments, document history, and import results.
+     * @param userId User identifier.
+     * @throws UserDataStoreClientException Thrown in case REST API call fails.
+     */
+    void eraseUserData(String userId) throws UserDataStoreClientException;
 }
 
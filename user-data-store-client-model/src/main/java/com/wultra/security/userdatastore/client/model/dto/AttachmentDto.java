@@ -38,6 +38,7 @@ public record AttachmentDto(
         String attachmentType,
         String attachmentData,
         LocalDateTime timestampCreated,
-        LocalDateTime timestampLastUpdated
+        LocalDateTime timestampLastUpdated,
+        String etag
 
 ) { }
\ No newline at end of file
@@ -38,6 +38,7 @@ public record PhotoDto(
         String photoType,
         String photoData,
         LocalDateTime timestampCreated,
-        LocalDateTime timestampLastUpdated
+        LocalDateTime timestampLastUpdated,
+        String etag
 
 ) { }
@@ -32,6 +32,19 @@ import java.util.List;
 @Jacksonized
 public record AttachmentResponse(
 
-        List<AttachmentDto> attachments
+        List<AttachmentDto> attachments,
 
-) {}
+        String nextCursor
+
+) {
+
+    /**
+     * Create a response without pagination.
+     *
+     * @param attachments attachments
+     */
+    public AttachmentResponse(final List<AttachmentDto> attachments) {
+        this(attachments, null);
+    }
+
+}
@@ -32,6 +32,19 @@ import java.util.List;
 @Jacksonized
 public record DocumentResponse(
 
-        List<DocumentDto> documents
+        List<DocumentDto> documents,
 
-) {}
+        String nextCursor
+
+) {
+
+    /**
+     * Create a response without pagination.
+     *
+     * @param documents documents
+     */
+    public DocumentResponse(final List<DocumentDto> documents) {
+        this(documents, null);
+    }
+
+}
@@ -32,8 +32,19 @@ import java.util.List;
 @Jacksonized
 public record PhotoResponse(
 
-        List<PhotoDto> photos
+        List<PhotoDto> photos,
+
+        String nextCursor
 
 ) {
-}
 
+    /**
+     * Create a response without pagination.
+     *
+     * @param photos photos
+     */
+    public PhotoResponse(final List<PhotoDto> photos) {
+        this(photos, null);
+    }
+
+}
@@ -32,11 +32,13 @@ import io.getlime.core.rest.model.base.response.ObjectResponse;
 import io.getlime.core.rest.model.base.response.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Class implementing a User Data Store REST client.
@@ -50,6 +52,8 @@ public class UserDataStoreRestClient implements UserDataStoreClient {
     private final RestClient restClient;
     private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     private static final MultiValueMap<String, String> EMPTY_MULTI_MAP = new LinkedMultiValueMap<>();
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    private static final String JSON_PATCH_JSON = "application/json-patch+json";
 
     /**
      * PowerAuth REST client constructor.
@@ -173,13 +177,39 @@ public class UserDataStoreRestClient implements UserDataStoreClient {
         throw new UserDataStoreClientException(ex.getMessage(), ex);
     }
 
+    private static void addPageParams(MultiValueMap<String, String> queryParams, int limit, String cursor) {
+        queryParams.put("limit", Collections.singletonList(String.valueOf(limit)));
+        if (cursor != null) {
+            queryParams.put("cursor", Collections.singletonList(cursor));
+        }
+    }
+
     @Override
     public DocumentResponse fetchDocuments(String userId, String documentId) throws UserDataStoreClientException {
+        return fetchDocuments(userId, documentId, false);
+    }
+
+    @Override
+    public DocumentResponse fetchDocuments(String userId, String documentId, boolean metadataOnly) throws UserDataStoreClientException {
         final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
         queryParams.put("userId", Collections.singletonList(userId));
         if (documentId != null) {
             queryParams.put("documentId", Collections.singletonList(documentId));
         }
+        if (metadataOnly) {
+            queryParams.put("include", Collections.singletonList("metadata"));
+        }
+        return get("/documents", queryParams, EMPTY_MULTI_MAP, DocumentResponse.class);
+    }
+
+    @Override
+    public DocumentResponse fetchDocuments(String userId, boolean metadataOnly, int limit, String cursor) throws UserDataStoreClientException {
+        final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+        queryParams.put("userId", Collections.singletonList(userId));
+        if (metadataOnly) {
+            queryParams.put("include", Collections.singletonList("metadata"));
+        }
+        addPageParams(queryParams, limit, cursor);
         return get("/documents", queryParams, EMPTY_MULTI_MAP, DocumentResponse.class);
     }
 
@@ -205,14 +235,48 @@ public class UserDataStoreRestClient implements UserDataStoreClient {
 
     @Override
     public PhotoResponse fetchPhotos(String userId, String documentId) throws UserDataStoreClientException {
+        return fetchPhotos(userId, documentId, false);
+    }
+
+    @Override
+    public PhotoResponse fetchPhotos(String userId, String documentId, boolean metadataOnly) throws UserDataStoreClientException {
         final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
         queryParams.put("userId", Collections.singletonList(userId));
         if (documentId != null) {
             queryParams.put("documentId", Collections.singletonList(documentId));
         }
+        if (metadataOnly) {
+            queryParams.put("include", Collections.singletonList("metadata"));
+        }
         return get("/photos", queryParams, EMPTY_MULTI_MAP, PhotoResponse.class);
     }
 
+    @Override
+    public PhotoResponse fetchPhotos(String userId, String documentId, boolean metadataOnly, int limit, String cursor) throws UserDataStoreClientException {
+        final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+        queryParams.put("userId", Collections.singletonList(userId));
+        if (documentId != null) {
+            queryParams.put("documentId", Collections.singletonList(documentId));
+        }
+        if (metadataOnly) {
+            queryParams.put("include", Collections.singletonList("metadata"));
+        }
+        addPageParams(queryParams, limit, cursor);
+        return get("/photos", queryParams, EMPTY_MULTI_MAP, PhotoResponse.class);
+    }
+
+    @Override
+    public byte[] fetchPhotoContent(String userId, String photoId) throws UserDataStoreClientException {
+        final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+        queryParams.put("userId", Collections.singletonList(userId));
+        try {
+            return restClient.get("/photos/" + photoId + "/content", queryParams, EMPTY_MULTI_MAP, new ParameterizedTypeReference<byte[]>(){}).getBody();
+        } catch (RestClientException ex) {
+            handleException(ex);
+        }
+        return null;
+    }
+
     @Override
     public PhotoCreateResponse createPhoto(PhotoCreateRequest request) throws UserDataStoreClientException {
         return post("/admin/photos", request, EMPTY_MULTI_MAP, EMPTY_MULTI_MAP, PhotoCreateResponse.class);
@@ -239,17 +303,44 @@ public class UserDataStoreRestClient implements UserDataStoreClient {
     }
 
     @Override
-    public void importPhotosCsv(PhotosImportCsvRequest request) throws UserDataStoreClientException {
-        post("/admin/photos/import/csv", request, EMPTY_MULTI_MAP, EMPTY_MULTI_MAP, Response.class);
+    public PhotosImportCsvResponse importPhotosCsv(PhotosImportCsvRequest request) throws UserDataStoreClientException {
+        return post("/admin/photos/import/csv", request, EMPTY_MULTI_MAP, EMPTY_MULTI_MAP, PhotosImportCsvResponse.class);
+    }
+
+    @Override
+    public ImportJobResponse fetchImportJob(String jobId) throws UserDataStoreClientException {
+        return get("/admin/import-jobs/" + jobId, EMPTY_MULTI_MAP, EMPTY_MULTI_MAP, ImportJobResponse.class);
     }
 
     @Override
     public AttachmentResponse fetchAttachments(String userId, String documentId) throws UserDataStoreClientException {
+        return fetchAttachments(userId, documentId, false);
+    }
+
+    @Override
+    public AttachmentResponse fetchAttachments(String userId, String documentId, boolean metadataOnly) throws UserDataStoreClientException {
         final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
         queryParams.put("userId", Collections.singletonList(userId));
         if (documentId != null) {
             queryParams.put("documentId", Collections.singletonList(documentId));
         }
+        if (metadataOnly) {
+            queryParams.put("include", Collections.singletonList("metadata"));
+        }
+        return get("/attachments", queryParams, EMPTY_MULTI_MAP, AttachmentResponse.class);
+    }
+
+    @Override
+    public AttachmentResponse fetchAttachments(String userId, String documentId, boolean metadataOnly, int limit, String cursor) throws UserDataStoreClientException {
+        final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+        queryParams.put("userId", Collections.singletonList(userId));
+        if (documentId != null) {
+            queryParams.put("documentId", Collections.singletonList(documentId));
+        }
+        if (metadataOnly) {
+            queryParams.put("include", Collections.singletonList("metadata"));
+        }
+        addPageParams(queryParams, limit, cursor);
         return get("/attachments", queryParams, EMPTY_MULTI_MAP, AttachmentResponse.class);
     }
 
@@ -330,6 +421,16 @@ public class UserDataStoreRestClient implements UserDataStoreClient {
         }
     }
 
+    @Override
+    public void mergePatchClaims(String userId, Object patch) throws UserDataStoreClientException {
+        patchClaims(userId, patch, MERGE_PATCH_JSON);
+    }
+
+    @Override
+    public void jsonPatchClaims(String userId, List<?> operations) throws UserDataStoreClientException {
+        patchClaims(userId, operations, JSON_PATCH_JSON);
+    }
+
     @Override
     public void deleteClaims(String userId, String claim) throws UserDataStoreClientException {
         final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
@@ -338,4 +439,23 @@ public class UserDataStoreRestClient implements UserDataStoreClient {
         delete("/admin/claims", queryParams, EMPTY_MULTI_MAP, Response.class);
     }
 
+    @Override
+    public void eraseUserData(String userId) throws UserDataStoreClientException {
+        final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+        queryParams.put("userId", Collections.singletonList(userId));
+        delete("/admin/user-data", queryParams, EMPTY_MULTI_MAP, Response.class);
+    }
+
+    private void patchClaims(String userId, Object patch, String contentType) throws UserDataStoreClientException {
+        final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+        queryParams.put("userId", Collections.singletonList(userId));
+        final MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
+        headers.put(HttpHeaders.CONTENT_TYPE, Collections.singletonList(contentType));
+        try {
+            restClient.patch("/admin/claims", patch, queryParams, headers, new ParameterizedTypeReference<Response>(){});
+        } catch (RestClientException ex) {
+            handleException(ex);
+        }
+    }
+
 }
@@ -17,16 +17,106 @@
  */
 package com.wultra.security.userdatastore.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
 
 /**
- * Enable async.
+ * Enable async and configure executors of individual workloads.
+ * <p>
+ * Each executor has a bounded queue. When the queue is full, the submission is rejected by
+ * {@link org.springframework.core.task.TaskRejectedException}, which is reported to the caller as HTTP 429.
+ * Executors are registered as beans, so their metrics are published by Micrometer with the bean name as the {@code name} tag.
  *
  * @author Roman Strobl, roman.strobl@wultra.com
  */
 @Configuration
 @EnableAsync
-public class AsyncConfiguration {
+@Slf4j
+public class AsyncConfiguration implements AsyncConfigurer {
+
+    /**
+     * Name of the executor running photo import jobs.
+     */
+    public static final String IMPORT_EXECUTOR = "importTaskExecutor";
+
+    /**
+     * Name of the executor running maintenance tasks, the default executor for {@code @Async}.
+     */
+    public static final String MAINTENANCE_EXECUTOR = "maintenanceTaskExecutor";
+
+    private final Executor maintenanceTaskExecutor;
+
+    public AsyncConfiguration(@Qualifier(MAINTENANCE_EXECUTOR) final Executor maintenanceTaskExecutor) {
+        this.maintenanceTaskExecutor = maintenanceTaskExecutor;
+    }
+
+    @Bean(IMPORT_EXECUTOR)
+    public static ThreadPoolTaskExecutor importTaskExecutor(
+            @Value("${user-data-store.async.import.core-pool-size}") final int corePoolSize,
+            @Value("${user-data-store.async.import.max-pool-size}") final int maxPoolSize,
+            @Value("${user-data-store.async.import.queue-capacity}") final int queueCapacity,
+            final Environment environment) {
+        return createExecutor("import-", corePoolSize, maxPoolSize, queueCapacity, environment);
+    }
+
+    @Bean(MAINTENANCE_EXECUTOR)
+    public static ThreadPoolTaskExecutor maintenanceTaskExecutor(
+            @Value("${user-data-store.async.maintenance.core-pool-size}") final int corePoolSize,
+            @Value("${user-data-store.async.maintenance.max-pool-size}") final int maxPoolSize,
+            @Value("${user-data-store.async.maintenance.queue-capacity}") final int queueCapacity,
+            final Environment environment) {
+        return createExecutor("maintenance-", corePoolSize, maxPoolSize, queueCapacity, environment);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return maintenanceTaskExecutor;
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (e, method, params) -> logger.error("Async method: {} failed", method.getName(), e);
+    }
+
+    /**
+     * Create a thread factory of the given workload, producing virtual threads when enabled by {@code spring.threads.virtual.enabled}
+     * and running on Java 21 or later, platform threads otherwise.
+     *
+     * @param threadNamePrefix prefix of thread names
+     * @param environment environment
+     * @return thread factory
+     */
+    public static ThreadFactory threadFactory(final String threadNamePrefix, final Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory(threadNamePrefix);
+    }
+
+    private static ThreadPoolTaskExecutor createExecutor(final String threadNamePrefix, final int corePoolSize, final int maxPoolSize, final int queueCapacity, final Environment environment) {
+        logger.info("Configuring executor: {}, core pool size: {}, max pool size: {}, queue capacity: {}, virtual threads: {}",
+                threadNamePrefix, corePoolSize, maxPoolSize, queueCapacity, Threading.VIRTUAL.isActive(environment));
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        // Keep the pool bounds and the backpressure also when the tasks run on virtual threads
+        executor.setThreadFactory(threadFactory(threadNamePrefix, environment));
+        return executor;
+    }
 
 }
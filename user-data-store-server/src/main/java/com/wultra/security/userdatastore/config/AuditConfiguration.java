@@ -19,12 +19,18 @@ package com.wultra.security.userdatastore.config;
 
 import com.wultra.core.audit.base.Audit;
 import com.wultra.core.audit.base.AuditFactory;
+import com.wultra.security.userdatastore.service.AsyncAudit;
+import com.wultra.security.userdatastore.service.AuditOverflowPolicy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.time.Duration;
+
 /**
  * Configuration of auditing.
  *
@@ -37,13 +43,21 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class AuditConfiguration {
 
     /**
-     * Prepare audit interface.
+     * Prepare audit interface, writing the audit events asynchronously in batches.
      *
      * @return Audit interface.
      */
     @Bean
-    public Audit audit(final AuditFactory auditFactory) {
+    public AsyncAudit audit(
+            final AuditFactory auditFactory,
+            @Value("${user-data-store.audit.queue-capacity}") final int queueCapacity,
+            @Value("${user-data-store.audit.batch-size}") final int batchSize,
+            @Value("${user-data-store.audit.flush-interval}") final Duration flushInterval,
+            @Value("${user-data-store.audit.overflow-policy}") final AuditOverflowPolicy overflowPolicy,
+            @Value("${user-data-store.audit.sample-rate}") final int sampleRate,
+            final Environment environment) {
         logger.info("bean: init, type: Audit");
-        return auditFactory.getAudit();
+        return new AsyncAudit(auditFactory.getAudit(), queueCapacity, batchSize, flushInterval, overflowPolicy, sampleRate,
+                AsyncConfiguration.threadFactory("audit-", environment));
     }
 }
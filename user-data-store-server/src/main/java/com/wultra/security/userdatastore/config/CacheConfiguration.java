@@ -0,0 +1,75 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.config;
+
+import com.wultra.security.userdatastore.model.repository.CacheInvalidationRepository;
+import com.wultra.security.userdatastore.service.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Configuration of invalidation of the caches across the nodes.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Configuration
+@Slf4j
+public class CacheConfiguration {
+
+    /**
+     * Prepare cache invalidation bus of the configured type.
+     *
+     * @return Cache invalidation bus.
+     */
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(
+            @Value("${user-data-store.cache.invalidation.type}") final CacheInvalidationType type,
+            @Value("${user-data-store.cache.invalidation.polling.lookback}") final Duration lookback,
+            @Value("${user-data-store.cache.invalidation.polling.retention}") final Duration retention,
+            @Value("${user-data-store.cache.invalidation.postgresql.poll-timeout}") final Duration pollTimeout,
+            @Value("${user-data-store.cache.invalidation.postgresql.reconnect-delay}") final Duration reconnectDelay,
+            final CacheInvalidationRepository cacheInvalidationRepository,
+            final DataSource dataSource,
+            final DataSourceProperties dataSourceProperties,
+            final Environment environment) {
+        logger.info("bean: init, type: CacheInvalidationBus, invalidationType: {}", type);
+        return switch (type) {
+            case LOCAL -> new LocalCacheInvalidationBus();
+            case POLLING -> new PollingCacheInvalidationBus(cacheInvalidationRepository, lookback, retention);
+            case POSTGRESQL -> new PostgresCacheInvalidationBus(dataSource, listenerDataSource(dataSourceProperties), pollTimeout, reconnectDelay,
+                    AsyncConfiguration.threadFactory("cache-invalidation-", environment));
+        };
+    }
+
+    /**
+     * The {@code LISTEN} connection is held for the application lifetime, so it is opened outside the connection pool.
+     * It neither reduces the pool size nor is it closed by the pool when reaching its maximum lifetime.
+     */
+    private static DataSource listenerDataSource(final DataSourceProperties dataSourceProperties) {
+        return new DriverManagerDataSource(dataSourceProperties.determineUrl(), dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    }
+
+}
@@ -86,6 +86,8 @@ public class WebSecurityConfiguration {
                             .hasRole("WRITE")
                         .requestMatchers(HttpMethod.PUT, "/admin/**")
                             .hasRole("WRITE")
+                        .requestMatchers(HttpMethod.PATCH, "/admin/**")
+                            .hasRole("WRITE")
                         .requestMatchers(HttpMethod.GET, "/private/**")
                             .hasRole("READ")
                         .requestMatchers(HttpMethod.GET, "/**")
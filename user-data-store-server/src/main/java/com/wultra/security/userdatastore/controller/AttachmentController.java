@@ -27,12 +27,19 @@ import io.getlime.core.rest.model.base.response.ObjectResponse;
 import io.getlime.core.rest.model.base.response.Response;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Optional;
 
@@ -47,6 +54,9 @@ import java.util.Optional;
 @AllArgsConstructor
 class AttachmentController {
 
+    private static final String INCLUDE_METADATA = "metadata";
+    private static final int MAX_LIMIT = 1000;
+
     private final AttachmentService attachmentService;
 
     /**
@@ -54,18 +64,40 @@ class AttachmentController {
      *
      * @param userId user identifier
      * @param documentId document identifier
+     * @param include {@code all} to return complete records, {@code metadata} to return records without data
+     * @param limit optional maximal number of returned attachments, enables pagination
+     * @param cursor optional cursor of the next page returned by the previous call, enables pagination
+     * @param webRequest web request, to evaluate {@code If-None-Match}
      * @return attachments
      */
     @Operation(
             summary = "Return attachments",
-            description = "Return attachments for the given user and document."
+            description = "Return attachments for the given user and document. Use include=metadata to omit attachment data. Use limit and cursor to paginate the attachments. Complete records which are not paginated are returned with ETag, 304 is returned for a matching If-None-Match."
     )
     @GetMapping("/attachments")
-    public ObjectResponse<AttachmentResponse> fetchAttachments(@NotBlank @Size(max = 255) @RequestParam String userId, @NotBlank @Size(max = 255) @RequestParam String documentId) {
-        logger.info("action: fetchAttachments, state: initiated, userId: {}, documentId: {}", userId, documentId);
-        final AttachmentResponse attachments = attachmentService.fetchAttachments(userId, Optional.ofNullable(documentId));
-        logger.info("action: fetchAttachments, state: succeeded, userId: {}, documentId: {}", userId, documentId);
-        return new ObjectResponse<>(attachments);
+    public ResponseEntity<ObjectResponse<AttachmentResponse>> fetchAttachments(@NotBlank @Size(max = 255) @RequestParam String userId, @NotBlank @Size(max = 255) @RequestParam String documentId,
+                                                                     @Pattern(regexp = "all|metadata") @RequestParam(required = false, defaultValue = "all") String include,
+                                                                     @Min(1) @Max(MAX_LIMIT) @RequestParam(required = false) Integer limit, @Size(max = 512) @RequestParam(required = false) String cursor,
+                                                                     final ServletWebRequest webRequest) {
+        logger.info("action: fetchAttachments, state: initiated, userId: {}, documentId: {}, include: {}, limit: {}", userId, documentId, include, limit);
+        final boolean paginated = limit != null || cursor != null;
+        if (!paginated && !INCLUDE_METADATA.equals(include)
+                && webRequest.checkNotModified(attachmentService.fetchAttachmentsETag(userId, Optional.ofNullable(documentId)))) {
+            logger.info("action: fetchAttachments, state: not modified, userId: {}, documentId: {}", userId, documentId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        final AttachmentResponse attachments;
+        if (paginated) {
+            attachments = INCLUDE_METADATA.equals(include)
+                    ? attachmentService.fetchAttachmentsMetadataPage(userId, Optional.ofNullable(documentId), Optional.ofNullable(limit), Optional.ofNullable(cursor))
+                    : attachmentService.fetchAttachmentsPage(userId, Optional.ofNullable(documentId), Optional.ofNullable(limit), Optional.ofNullable(cursor));
+        } else {
+            attachments = INCLUDE_METADATA.equals(include)
+                    ? attachmentService.fetchAttachmentsMetadata(userId, Optional.ofNullable(documentId))
+                    : attachmentService.fetchAttachments(userId, Optional.ofNullable(documentId));
+        }
+        logger.info("action: fetchAttachments, state: succeeded, userId: {}, documentId: {}, include: {}", userId, documentId, include);
+        return ResponseEntity.ok(new ObjectResponse<>(attachments));
     }
 
     /**
@@ -90,16 +122,18 @@ class AttachmentController {
      * Update an attachment.
      *
      * @param request Update attachment request
+     * @param ifMatch optional ETag of the attachment returned in the field {@code etag} by the fetch of the attachments
      * @return response
      */
     @Operation(
             summary = "Update an attachment",
-            description = "Update an attachment."
+            description = "Update an attachment. Returns 412 if If-Match does not match the current ETag of the attachment."
     )
     @PutMapping("/admin/attachments/{attachmentId}")
-    public Response updateAttachment(@NotBlank @Size(max = 36) @PathVariable("attachmentId") String attachmentId, @Valid @RequestBody final ObjectRequest<AttachmentUpdateRequest> request) {
+    public Response updateAttachment(@NotBlank @Size(max = 36) @PathVariable("attachmentId") String attachmentId, @Valid @RequestBody final ObjectRequest<AttachmentUpdateRequest> request,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("action: updateAttachment, state: initiated, attachmentId: {}", attachmentId);
-        attachmentService.updateAttachment(attachmentId, request.getRequestObject());
+        attachmentService.updateAttachment(attachmentId, request.getRequestObject(), Optional.ofNullable(ifMatch));
         logger.info("action: updateAttachment, state: succeeded, attachmentId: {}", attachmentId);
         return new Response();
     }
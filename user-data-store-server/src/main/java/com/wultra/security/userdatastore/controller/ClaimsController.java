@@ -17,6 +17,7 @@
  */
 package com.wultra.security.userdatastore.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.wultra.security.userdatastore.service.ClaimsService;
 import io.getlime.core.rest.model.base.response.ObjectResponse;
 import io.getlime.core.rest.model.base.response.Response;
@@ -25,8 +26,12 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Optional;
 
@@ -40,6 +45,10 @@ import java.util.Optional;
 @Slf4j
 class ClaimsController {
 
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    private static final String JSON_PATCH_JSON = "application/json-patch+json";
+
     private final ClaimsService claimsService;
 
     @Autowired
@@ -51,18 +60,24 @@ class ClaimsController {
      * Return claims for the given user.
      *
      * @param userId user identifier
+     * @param webRequest web request, to evaluate {@code If-None-Match}
      * @return user claims
      */
     @Operation(
             summary = "Return claims",
-            description = "Return claims for the given user."
+            description = "Return claims for the given user. Claims are returned with ETag, 304 is returned for a matching If-None-Match."
     )
     @GetMapping("/claims")
-    public ObjectResponse<Object> fetchClaims(@NotBlank @Size(max = 255) @RequestParam String userId, @Size(max = 255) @RequestParam(required = false) String claim) {
+    public ResponseEntity<ObjectResponse<Object>> fetchClaims(@NotBlank @Size(max = 255) @RequestParam String userId, @Size(max = 255) @RequestParam(required = false) String claim,
+                                                              final ServletWebRequest webRequest) {
         logger.info("action: fetchClaims, state: initiated, userId: {}, claim: {}", userId, claim);
+        if (webRequest.checkNotModified(claimsService.fetchClaimsETag(userId))) {
+            logger.info("action: fetchClaims, state: not modified, userId: {}, claim: {}", userId, claim);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         final Object claims = claimsService.fetchClaims(userId, Optional.ofNullable(claim));
         logger.info("action: fetchClaims, state: succeeded, userId: {}, claim: {}", userId, claim);
-        return new ObjectResponse<>(claims);
+        return ResponseEntity.ok(new ObjectResponse<>(claims));
     }
 
     /**
@@ -89,20 +104,64 @@ class ClaimsController {
      *
      * @param userId user identifier
      * @param claims claims
+     * @param ifMatch optional ETag of the claims
      * @return response status
      */
     @Operation(
             summary = "Update claims",
-            description = "Update claims for the given user."
+            description = "Update claims for the given user. Returns 412 if If-Match does not match the current ETag of the claims."
     )
     @PutMapping("/admin/claims")
-    public Response updateClaims(@NotBlank @Size(max = 255) @RequestParam String userId, @RequestBody final Object claims) {
+    public Response updateClaims(@NotBlank @Size(max = 255) @RequestParam String userId, @RequestBody final Object claims,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("action: updateClaims, state: initiated, userId: {}", userId);
-        claimsService.updateClaims(userId, claims);
+        claimsService.updateClaims(userId, claims, Optional.ofNullable(ifMatch));
         logger.info("action: updateClaims, state: succeeded, userId: {}", userId);
         return new Response();
     }
 
+    /**
+     * Partially update claims for the given user by RFC 7386 JSON Merge Patch.
+     *
+     * @param userId user identifier
+     * @param patch merge patch
+     * @param ifMatch optional ETag of the claims
+     * @return response status
+     */
+    @Operation(
+            summary = "Merge patch claims",
+            description = "Partially update claims for the given user by JSON Merge Patch (RFC 7386). Returns 409 if the claims were modified concurrently, 412 if If-Match does not match the current ETag of the claims."
+    )
+    @PatchMapping(value = "/admin/claims", consumes = MERGE_PATCH_JSON)
+    public Response mergePatchClaims(@NotBlank @Size(max = 255) @RequestParam String userId, @RequestBody final JsonNode patch,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("action: mergePatchClaims, state: initiated, userId: {}", userId);
+        claimsService.mergePatchClaims(userId, patch, Optional.ofNullable(ifMatch));
+        logger.info("action: mergePatchClaims, state: succeeded, userId: {}", userId);
+        return new Response();
+    }
+
+    /**
+     * Partially update claims for the given user by RFC 6902 JSON Patch.
+     *
+     * @param userId user identifier
+     * @param operations array of patch operations
+     * @param ifMatch optional ETag of the claims
+     * @return response status
+     */
+    @Operation(
+            summary = "JSON patch claims",
+            description = "Partially update claims for the given user by JSON Patch (RFC 6902). Returns 409 if the claims were modified concurrently, a path does not exist, or a test operation fails, 412 if If-Match does not match the current ETag of the claims."
+    )
+    @PatchMapping(value = "/admin/claims", consumes = JSON_PATCH_JSON)
+    public Response jsonPatchClaims(@NotBlank @Size(max = 255) @RequestParam String userId, @RequestBody final JsonNode operations,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("action: jsonPatchClaims, state: initiated, userId: {}", userId);
+        claimsService.jsonPatchClaims(userId, operations, Optional.ofNullable(ifMatch));
+        logger.info("action: jsonPatchClaims, state: succeeded, userId: {}", userId);
+        return new Response();
+    }
+
     /**
      * Delete claims of the given user.
      *
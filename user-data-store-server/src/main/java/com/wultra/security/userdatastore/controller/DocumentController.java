@@ -21,18 +21,26 @@ import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequ
 import com.wultra.security.userdatastore.client.model.request.DocumentUpdateRequest;
 import com.wultra.security.userdatastore.client.model.response.DocumentCreateResponse;
 import com.wultra.security.userdatastore.client.model.response.DocumentResponse;
+import com.wultra.security.userdatastore.model.error.RequestValidationException;
 import com.wultra.security.userdatastore.service.DocumentService;
 import io.getlime.core.rest.model.base.request.ObjectRequest;
 import io.getlime.core.rest.model.base.response.ObjectResponse;
 import io.getlime.core.rest.model.base.response.Response;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Optional;
 
@@ -47,6 +55,9 @@ import java.util.Optional;
 @AllArgsConstructor
 class DocumentController {
 
+    private static final String INCLUDE_METADATA = "metadata";
+    private static final int MAX_LIMIT = 1000;
+
     private final DocumentService documentService;
 
     /**
@@ -54,18 +65,43 @@ class DocumentController {
      *
      * @param userId user identifier
      * @param documentId optional document identifier
+     * @param include {@code all} to return complete records, {@code metadata} to return records without data
+     * @param limit optional maximal number of returned documents, enables pagination, not allowed with document identifier
+     * @param cursor optional cursor of the next page returned by the previous call, enables pagination, not allowed with document identifier
+     * @param webRequest web request, to evaluate {@code If-None-Match}
      * @return user documents
      */
     @Operation(
             summary = "Return documents",
-            description = "Return documents for the given user."
+            description = "Return documents for the given user. Use include=metadata to omit document data. Use limit and cursor to paginate the documents, not allowed with documentId. Complete records which are not paginated are returned with ETag, 304 is returned for a matching If-None-Match."
     )
     @GetMapping("/documents")
-    public ObjectResponse<DocumentResponse> fetchDocuments(@NotBlank @Size(max = 255) @RequestParam String userId, @Size(max = 255) @RequestParam(required = false) String documentId) {
-        logger.info("action: fetchDocuments, state: initiated, userId: {}, documentId: {}", userId, documentId);
-        final DocumentResponse documents = documentService.fetchDocuments(userId, Optional.ofNullable(documentId));
-        logger.info("action: fetchDocuments, state: succeeded, userId: {}, documentId: {}", userId, documentId);
-        return new ObjectResponse<>(documents);
+    public ResponseEntity<ObjectResponse<DocumentResponse>> fetchDocuments(@NotBlank @Size(max = 255) @RequestParam String userId, @Size(max = 255) @RequestParam(required = false) String documentId,
+                                                                     @Pattern(regexp = "all|metadata") @RequestParam(required = false, defaultValue = "all") String include,
+                                                                     @Min(1) @Max(MAX_LIMIT) @RequestParam(required = false) Integer limit, @Size(max = 512) @RequestParam(required = false) String cursor,
+                                                                     final ServletWebRequest webRequest) {
+        logger.info("action: fetchDocuments, state: initiated, userId: {}, documentId: {}, include: {}, limit: {}", userId, documentId, include, limit);
+        final boolean paginated = limit != null || cursor != null;
+        if (documentId != null && paginated) {
+            throw new RequestValidationException("Parameters limit and cursor are not allowed with documentId");
+        }
+        if (!paginated && !INCLUDE_METADATA.equals(include)
+                && webRequest.checkNotModified(documentService.fetchDocumentsETag(userId, Optional.ofNullable(documentId)))) {
+            logger.info("action: fetchDocuments, state: not modified, userId: {}, documentId: {}", userId, documentId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        final DocumentResponse documents;
+        if (paginated) {
+            documents = INCLUDE_METADATA.equals(include)
+                    ? documentService.fetchDocumentsMetadataPage(userId, Optional.ofNullable(limit), Optional.ofNullable(cursor))
+                    : documentService.fetchDocumentsPage(userId, Optional.ofNullable(limit), Optional.ofNullable(cursor));
+        } else {
+            documents = INCLUDE_METADATA.equals(include)
+                    ? documentService.fetchDocumentsMetadata(userId, Optional.ofNullable(documentId))
+                    : documentService.fetchDocuments(userId, Optional.ofNullable(documentId));
+        }
+        logger.info("action: fetchDocuments, state: succeeded, userId: {}, documentId: {}, include: {}", userId, documentId, include);
+        return ResponseEntity.ok(new ObjectResponse<>(documents));
     }
 
     /**
@@ -91,16 +127,18 @@ class DocumentController {
      *
      * @param documentId Document identifier
      * @param request Document update request
+     * @param ifMatch optional ETag of the document returned by the fetch of the document
      * @return user documents
      */
     @Operation(
             summary = "Update a document",
-            description = "Update a document for the given user."
+            description = "Update a document for the given user. Returns 412 if If-Match does not match the current ETag of the document."
     )
     @PutMapping("/admin/documents/{documentId}")
-    public Response updateDocument(@NotBlank @Size(max = 36) @PathVariable("documentId") String documentId, @Valid @RequestBody final ObjectRequest<DocumentUpdateRequest> request) {
+    public Response updateDocument(@NotBlank @Size(max = 36) @PathVariable("documentId") String documentId, @Valid @RequestBody final ObjectRequest<DocumentUpdateRequest> request,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("action: updateDocument, state: initiated, userId: {}, documentId: {}", request.getRequestObject().userId(), documentId);
-        documentService.updateDocument(documentId, request.getRequestObject());
+        documentService.updateDocument(documentId, request.getRequestObject(), Optional.ofNullable(ifMatch));
         logger.info("action: updateDocument, state: succeeded, userId: {}, documentId: {}", request.getRequestObject().userId(), documentId);
         return new Response();
     }
@@ -0,0 +1,68 @@
+/*
+ * User Data Store
+ * Copyright (C) 2023 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.controller;
+
+import com.wultra.security.userdatastore.client.model.response.ImportJobResponse;
+import com.wultra.security.userdatastore.service.ImportJobService;
+import io.getlime.core.rest.model.base.response.ObjectResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller providing API for import jobs.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@RestController
+@Validated
+@Slf4j
+class ImportJobController {
+
+    private final ImportJobService importJobService;
+
+    @Autowired
+    ImportJobController(ImportJobService importJobService) {
+        this.importJobService = importJobService;
+    }
+
+    /**
+     * Return progress of the given import job.
+     *
+     * @param jobId import job identifier
+     * @return import job response
+     */
+    @Operation(
+            summary = "Return import job",
+            description = "Return state and progress of the given import job."
+    )
+    @GetMapping("/admin/import-jobs/{jobId}")
+    public ObjectResponse<ImportJobResponse> fetchImportJob(@NotBlank @Size(max = 36) @PathVariable("jobId") String jobId) {
+        logger.info("action: fetchImportJob, state: initiated, jobId: {}", jobId);
+        final ImportJobResponse response = importJobService.fetchImportJob(jobId);
+        logger.info("action: fetchImportJob, state: succeeded, jobId: {}", jobId);
+        return new ObjectResponse<>(response);
+    }
+
+}
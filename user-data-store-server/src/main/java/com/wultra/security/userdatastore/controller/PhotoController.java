@@ -23,6 +23,7 @@ import com.wultra.security.userdatastore.client.model.request.PhotosImportCsvReq
 import com.wultra.security.userdatastore.client.model.request.PhotosImportRequest;
 import com.wultra.security.userdatastore.client.model.response.PhotoCreateResponse;
 import com.wultra.security.userdatastore.client.model.response.PhotoResponse;
+import com.wultra.security.userdatastore.client.model.response.PhotosImportCsvResponse;
 import com.wultra.security.userdatastore.client.model.response.PhotosImportResponse;
 import com.wultra.security.userdatastore.service.PhotoService;
 import io.getlime.core.rest.model.base.request.ObjectRequest;
@@ -30,12 +31,20 @@ import io.getlime.core.rest.model.base.response.ObjectResponse;
 import io.getlime.core.rest.model.base.response.Response;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Optional;
 
@@ -50,6 +59,9 @@ import java.util.Optional;
 @AllArgsConstructor
 class PhotoController {
 
+    private static final String INCLUDE_METADATA = "metadata";
+    private static final int MAX_LIMIT = 1000;
+
     private final PhotoService photoService;
 
     /**
@@ -57,18 +69,62 @@ class PhotoController {
      *
      * @param userId user identifier
      * @param documentId document identifier
+     * @param include {@code all} to return complete records, {@code metadata} to return records without data
+     * @param limit optional maximal number of returned photos, enables pagination
+     * @param cursor optional cursor of the next page returned by the previous call, enables pagination
+     * @param webRequest web request, to evaluate {@code If-None-Match}
      * @return photos
      */
     @Operation(
             summary = "Return photos",
-            description = "Return photos for the given user and document."
+            description = "Return photos for the given user and document. Use include=metadata to omit photo data. Use limit and cursor to paginate the photos. Complete records which are not paginated are returned with ETag, 304 is returned for a matching If-None-Match."
     )
     @GetMapping("/photos")
-    public ObjectResponse<PhotoResponse> fetchPhotos(@NotBlank @Size(max = 255) @RequestParam String userId, @NotBlank @Size(max = 255) @RequestParam String documentId) {
-        logger.info("action: fetchPhotos, state: initiated, userId: {}, documentId: {}", userId, documentId);
-        final PhotoResponse photos = photoService.fetchPhotos(userId, Optional.ofNullable(documentId));
-        logger.info("action: fetchPhotos, state: succeeded, userId: {}, documentId: {}", userId, documentId);
-        return new ObjectResponse<>(photos);
+    public ResponseEntity<ObjectResponse<PhotoResponse>> fetchPhotos(@NotBlank @Size(max = 255) @RequestParam String userId, @NotBlank @Size(max = 255) @RequestParam String documentId,
+                                                                     @Pattern(regexp = "all|metadata") @RequestParam(required = false, defaultValue = "all") String include,
+                                                                     @Min(1) @Max(MAX_LIMIT) @RequestParam(required = false) Integer limit, @Size(max = 512) @RequestParam(required = false) String cursor,
+                                                                     final ServletWebRequest webRequest) {
+        logger.info("action: fetchPhotos, state: initiated, userId: {}, documentId: {}, include: {}, limit: {}", userId, documentId, include, limit);
+        final boolean paginated = limit != null || cursor != null;
+        if (!paginated && !INCLUDE_METADATA.equals(include)
+                && webRequest.checkNotModified(photoService.fetchPhotosETag(userId, Optional.ofNullable(documentId)))) {
+            logger.info("action: fetchPhotos, state: not modified, userId: {}, documentId: {}", userId, documentId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        final PhotoResponse photos;
+        if (paginated) {
+            photos = INCLUDE_METADATA.equals(include)
+                    ? photoService.fetchPhotosMetadataPage(userId, Optional.ofNullable(documentId), Optional.ofNullable(limit), Optional.ofNullable(cursor))
+                    : photoService.fetchPhotosPage(userId, Optional.ofNullable(documentId), Optional.ofNullable(limit), Optional.ofNullable(cursor));
+        } else {
+            photos = INCLUDE_METADATA.equals(include)
+                    ? photoService.fetchPhotosMetadata(userId, Optional.ofNullable(documentId))
+                    : photoService.fetchPhotos(userId, Optional.ofNullable(documentId));
+        }
+        logger.info("action: fetchPhotos, state: succeeded, userId: {}, documentId: {}, include: {}", userId, documentId, include);
+        return ResponseEntity.ok(new ObjectResponse<>(photos));
+    }
+
+    /**
+     * Return binary content of the given photo.
+     * Content type is detected from the photo data, HTTP range requests are supported.
+     *
+     * @param userId user identifier
+     * @param photoId photo identifier
+     * @return photo content
+     */
+    @Operation(
+            summary = "Return photo content",
+            description = "Return decrypted binary content of the given photo of the user. Supports HTTP range requests."
+    )
+    @GetMapping("/photos/{photoId}/content")
+    public ResponseEntity<Resource> fetchPhotoContent(@NotBlank @Size(max = 255) @RequestParam String userId, @NotBlank @Size(max = 36) @PathVariable("photoId") String photoId) {
+        logger.info("action: fetchPhotoContent, state: initiated, userId: {}, photoId: {}", userId, photoId);
+        final PhotoService.PhotoContent photoContent = photoService.fetchPhotoContent(userId, photoId);
+        logger.info("action: fetchPhotoContent, state: succeeded, userId: {}, photoId: {}", userId, photoId);
+        return ResponseEntity.ok()
+                .contentType(photoContent.contentType())
+                .body(photoContent.content());
     }
 
     /**
@@ -93,16 +149,18 @@ class PhotoController {
      * Update a photo.
      *
      * @param request Update photo request
+     * @param ifMatch optional ETag of the photo returned in the field {@code etag} by the fetch of the photos
      * @return response
      */
     @Operation(
             summary = "Update a photo",
-            description = "Update a photo."
+            description = "Update a photo. Returns 412 if If-Match does not match the current ETag of the photo."
     )
     @PutMapping("/admin/photos/{photoId}")
-    public Response updatePhoto(@NotBlank @Size(max = 36) @PathVariable("photoId") String photoId, @Valid @RequestBody final ObjectRequest<PhotoUpdateRequest> request) {
+    public Response updatePhoto(@NotBlank @Size(max = 36) @PathVariable("photoId") String photoId, @Valid @RequestBody final ObjectRequest<PhotoUpdateRequest> request,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("action: createPhoto, state: initiated, photoId: {}", photoId);
-        photoService.updatePhoto(photoId, request.getRequestObject());
+        photoService.updatePhoto(photoId, request.getRequestObject(), Optional.ofNullable(ifMatch));
         logger.info("action: createPhoto, state: succeeded, photoId: {}", photoId);
         return new Response();
     }
@@ -148,18 +206,18 @@ class PhotoController {
      * Import photos asynchronously from CSV.
      *
      * @param request Photo import from CSV request
-     * @return Response
+     * @return photo import from CSV response with the import job identifier
      */
     @Operation(
             summary = "Import photos from CSV",
-            description = "Import photos asynchronously from CSV."
+            description = "Import photos asynchronously from CSV. Progress of the import job may be tracked by its identifier."
     )
     @PostMapping("/admin/photos/import/csv")
-    public Response importPhotosCsv(@Valid @RequestBody final ObjectRequest<PhotosImportCsvRequest> request) {
+    public ObjectResponse<PhotosImportCsvResponse> importPhotosCsv(@Valid @RequestBody final ObjectRequest<PhotosImportCsvRequest> request) {
         logger.info("action: importPhotosCsv, state: initiated");
-        photoService.importPhotosCsv(request.getRequestObject());
-        logger.info("action: importPhotosCsv, state: succeeded");
-        return new Response();
+        final PhotosImportCsvResponse response = photoService.importPhotosCsv(request.getRequestObject());
+        logger.info("action: importPhotosCsv, state: succeeded, jobId: {}", response.jobId());
+        return new ObjectResponse<>(response);
     }
 
 }
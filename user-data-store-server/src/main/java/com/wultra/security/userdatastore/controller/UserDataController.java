@@ -0,0 +1,67 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.controller;
+
+import com.wultra.security.userdatastore.service.UserDataService;
+import io.getlime.core.rest.model.base.response.Response;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller providing API for the user data as a whole.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@RestController
+@Validated
+@Slf4j
+class UserDataController {
+
+    private final UserDataService userDataService;
+
+    @Autowired
+    UserDataController(UserDataService userDataService) {
+        this.userDataService = userDataService;
+    }
+
+    /**
+     * Erase all data of the given user.
+     *
+     * @param userId user identifier
+     * @return response status
+     */
+    @Operation(
+            summary = "Erase user data",
+            description = "Erase all data of the given user, i.e. documents, claims, photos, attachments, document history, and import results."
+    )
+    @DeleteMapping("/admin/user-data")
+    public Response eraseUserData(@NotBlank @Size(max = 255) @RequestParam String userId) {
+        logger.info("action: eraseUserData, state: initiated, userId: {}", userId);
+        userDataService.eraseUserData(userId);
+        logger.info("action: eraseUserData, state: succeeded, userId: {}", userId);
+        return new Response();
+    }
+
+}
@@ -19,7 +19,9 @@ package com.wultra.security.userdatastore.converter;
 
 import com.wultra.security.userdatastore.client.model.dto.AttachmentDto;
 import com.wultra.security.userdatastore.model.entity.AttachmentEntity;
+import com.wultra.security.userdatastore.model.projection.AttachmentMetadata;
 import com.wultra.security.userdatastore.model.repository.DocumentRepository;
+import com.wultra.security.userdatastore.service.ETags;
 import com.wultra.security.userdatastore.service.EncryptionService;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -53,6 +55,29 @@ public class AttachmentConverter {
                 .externalId(entity.getExternalId())
                 .timestampCreated(entity.getTimestampCreated())
                 .timestampLastUpdated(entity.getTimestampLastUpdated())
+                .etag(ETags.of(entity.getId(), entity.getVersion()))
+                .build();
+    }
+
+    /**
+     * Convert {@link AttachmentMetadata} to {@link AttachmentDto} without attachment data.
+     * @param metadata Attachment metadata.
+     * @return Attachment DTO.
+     */
+    public AttachmentDto toAttachment(final AttachmentMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+
+        return AttachmentDto.builder()
+                .id(metadata.getId())
+                .userId(metadata.getUserId())
+                .documentId(metadata.getDocumentId())
+                .attachmentType(metadata.getAttachmentType())
+                .externalId(metadata.getExternalId())
+                .timestampCreated(metadata.getTimestampCreated())
+                .timestampLastUpdated(metadata.getTimestampLastUpdated())
+                .etag(ETags.of(metadata.getId(), metadata.getVersion()))
                 .build();
     }
 
@@ -22,6 +22,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wultra.security.userdatastore.client.model.dto.DocumentDto;
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import com.wultra.security.userdatastore.model.projection.DocumentMetadata;
 import com.wultra.security.userdatastore.service.EncryptionService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -67,6 +68,29 @@ public class DocumentConverter {
                 .build();
     }
 
+    /**
+     * Convert {@link DocumentMetadata} to {@link DocumentDto} without document data.
+     * @param metadata Document metadata.
+     * @return Document DTO.
+     */
+    public DocumentDto toDocument(final DocumentMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+
+        return DocumentDto.builder()
+                .id(metadata.getId())
+                .userId(metadata.getUserId())
+                .documentType(metadata.getDocumentType())
+                .dataType(metadata.getDataType())
+                .documentDataId(metadata.getDocumentDataId())
+                .externalId(metadata.getExternalId())
+                .attributes(convertAttributesToMap(metadata.getAttributes()))
+                .timestampCreated(metadata.getTimestampCreated())
+                .timestampLastUpdated(metadata.getTimestampLastUpdated())
+                .build();
+    }
+
     public void convertAndSetAttributes(final Map<String, Object> attributes, final DocumentEntity documentEntity) {
         if (attributes == null) {
             documentEntity.setAttributes("{}");
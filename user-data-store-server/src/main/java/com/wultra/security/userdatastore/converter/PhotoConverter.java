@@ -23,6 +23,8 @@ import com.wultra.security.userdatastore.client.model.dto.PhotoImportResultDto;
 import com.wultra.security.userdatastore.client.model.request.EmbeddedPhotoImportRequest;
 import com.wultra.security.userdatastore.client.model.response.EmbeddedPhotoImportResponse;
 import com.wultra.security.userdatastore.model.entity.PhotoEntity;
+import com.wultra.security.userdatastore.model.projection.PhotoMetadata;
+import com.wultra.security.userdatastore.service.ETags;
 import com.wultra.security.userdatastore.service.EncryptionService;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -56,6 +58,29 @@ public class PhotoConverter {
                 .externalId(entity.getExternalId())
                 .timestampCreated(entity.getTimestampCreated())
                 .timestampLastUpdated(entity.getTimestampLastUpdated())
+                .etag(ETags.of(entity.getId(), entity.getVersion()))
+                .build();
+    }
+
+    /**
+     * Convert {@link PhotoMetadata} to {@link PhotoDto} without photo data.
+     * @param metadata Photo metadata.
+     * @return Photo DTO.
+     */
+    public PhotoDto toPhoto(final PhotoMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+
+        return PhotoDto.builder()
+                .id(metadata.getId())
+                .userId(metadata.getUserId())
+                .documentId(metadata.getDocumentId())
+                .photoType(metadata.getPhotoType())
+                .externalId(metadata.getExternalId())
+                .timestampCreated(metadata.getTimestampCreated())
+                .timestampLastUpdated(metadata.getTimestampLastUpdated())
+                .etag(ETags.of(metadata.getId(), metadata.getVersion()))
                 .build();
     }
 
@@ -19,12 +19,17 @@ package com.wultra.security.userdatastore.errorhandling;
 
 import com.wultra.security.userdatastore.model.error.EncryptionException;
 import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+import com.wultra.security.userdatastore.model.error.PreconditionFailedException;
 import com.wultra.security.userdatastore.model.error.RequestValidationException;
 import com.wultra.security.userdatastore.model.error.ResourceAlreadyExistsException;
+import com.wultra.security.userdatastore.model.error.ResourceConflictException;
 import com.wultra.security.userdatastore.model.error.ResourceNotFoundException;
 import io.getlime.core.rest.model.base.response.ErrorResponse;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -72,6 +77,20 @@ class DefaultExceptionHandler {
         return new ErrorResponse("ENCRYPTION_ERROR", e.getMessage());
     }
 
+    /**
+     * Exception handler for {@link TaskRejectedException}, the executor of the requested workload is saturated.
+     *
+     * @param e Exception.
+     * @return Response with error details.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTaskRejectedException(final TaskRejectedException e) {
+        logger.warn("Executor saturated when processing request object: {}", e.getMessage());
+        logger.debug("Exception detail: ", e);
+        return new ErrorResponse("TOO_MANY_REQUESTS", "Too many requests, try again later.");
+    }
+
     /**
      * Exception handler for invalid request exceptions.
      *
@@ -114,4 +133,42 @@ class DefaultExceptionHandler {
         return new ErrorResponse("ALREADY_EXISTS", e.getMessage());
     }
 
+    /**
+     * Exception handler for {@link ResourceConflictException}, {@link OptimisticLockingFailureException}
+     * and {@link DataIntegrityViolationException}, the resource was modified or created concurrently
+     * or its state does not allow the request.
+     *
+     * @param e Exception.
+     * @return Response with error details.
+     */
+    @ExceptionHandler({ResourceConflictException.class, OptimisticLockingFailureException.class, DataIntegrityViolationException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConflictException(final Exception e) {
+        logger.warn("Error occurred when processing request object: {}", e.getMessage());
+        logger.debug("Exception detail: ", e);
+        final String message;
+        if (e instanceof ResourceConflictException) {
+            message = e.getMessage();
+        } else if (e instanceof DataIntegrityViolationException) {
+            message = "Resource was created concurrently, try again.";
+        } else {
+            message = "Resource was modified concurrently, try again.";
+        }
+        return new ErrorResponse("CONFLICT", message);
+    }
+
+    /**
+     * Exception handler for {@link PreconditionFailedException}.
+     *
+     * @param e Exception.
+     * @return Response with error details.
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailedException(final PreconditionFailedException e) {
+        logger.warn("Error occurred when processing request object: {}", e.getMessage());
+        logger.debug("Exception detail: ", e);
+        return new ErrorResponse("PRECONDITION_FAILED", e.getMessage());
+    }
+
 }
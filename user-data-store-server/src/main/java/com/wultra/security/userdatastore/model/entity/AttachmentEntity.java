@@ -33,10 +33,14 @@ import java.util.Objects;
  * @author Roman Strobl, roman.strobl@wultra.com
  */
 @Entity
-@Table(name = "uds_attachment")
+@Table(name = "uds_attachment", indexes = {
+        @Index(name = "uds_attachment_user_document", columnList = "user_id, document_id"),
+        @Index(name = "uds_attachment_document", columnList = "document_id"),
+        @Index(name = "uds_attachment_user_created", columnList = "user_id, timestamp_created, id")
+})
 @Getter
 @Setter
-public class AttachmentEntity implements Serializable {
+public class AttachmentEntity extends AssignedIdEntity implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 6667938502679127302L;
@@ -58,13 +62,20 @@ public class AttachmentEntity implements Serializable {
     @Column(name = "attachment_type", nullable = false)
     private String attachmentType;
 
-    @Column(name = "attachment_data", nullable = false, columnDefinition = "CLOB")
+    @Column(name = "attachment_data", columnDefinition = "CLOB")
     private String attachmentData;
 
+    @Column(name = "attachment_data_binary", columnDefinition = "BLOB")
+    private byte[] attachmentDataBinary;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "encryption_mode", nullable = false)
     private EncryptionMode encryptionMode;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "timestamp_created", nullable = false)
     private LocalDateTime timestampCreated = LocalDateTime.now();
 
@@ -0,0 +1,71 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.util.ProxyUtils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Entity for cache invalidation published to the other nodes.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Entity
+@Table(name = "uds_cache_invalidation", indexes = {
+        @Index(name = "uds_cache_invalidation_created", columnList = "timestamp_created")
+})
+@Getter
+@Setter
+public class CacheInvalidationEntity extends AssignedIdEntity implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -3170565209574238148L;
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private String id;
+
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "timestamp_created", nullable = false)
+    private LocalDateTime timestampCreated;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || !this.getClass().equals(ProxyUtils.getUserClass(o))) return false;
+        CacheInvalidationEntity that = (CacheInvalidationEntity) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
@@ -33,10 +33,14 @@ import java.util.Objects;
  * @author Roman Strobl, roman.strobl@wultra.com
  */
 @Entity
-@Table(name = "uds_document")
+@Table(name = "uds_document", indexes = {
+        @Index(name = "uds_document_user_data_type", columnList = "user_id, data_type"),
+        @Index(name = "uds_document_external_id", columnList = "external_id"),
+        @Index(name = "uds_document_user_created", columnList = "user_id, timestamp_created, id")
+})
 @Getter
 @Setter
-public class DocumentEntity implements Serializable {
+public class DocumentEntity extends AssignedIdEntity implements Serializable {
 
     @Serial
     private static final long serialVersionUID = -383789783213592918L;
@@ -70,6 +74,10 @@ public class DocumentEntity implements Serializable {
     @Column(name = "encryption_mode", nullable = false)
     private EncryptionMode encryptionMode;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "timestamp_created", nullable = false)
     private LocalDateTime timestampCreated = LocalDateTime.now();
 
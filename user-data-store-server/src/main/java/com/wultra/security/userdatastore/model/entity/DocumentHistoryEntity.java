@@ -33,10 +33,13 @@ import java.util.Objects;
  * @author Roman Strobl, roman.strobl@wultra.com
  */
 @Entity
-@Table(name = "uds_document_history")
+@Table(name = "uds_document_history", indexes = {
+        @Index(name = "uds_document_history_document", columnList = "document_id"),
+        @Index(name = "uds_document_history_user", columnList = "user_id")
+})
 @Getter
 @Setter
-public class DocumentHistoryEntity implements Serializable {
+public class DocumentHistoryEntity extends AssignedIdEntity implements Serializable {
 
     @Serial
     private static final long serialVersionUID = -6085099307796424549L;
@@ -32,5 +32,10 @@ public enum EncryptionMode {
     /**
      * AES encryption with HMAC-based index.
      */
-    AES_HMAC
+    AES_HMAC,
+
+    /**
+     * AES encryption with HMAC-based index, Base64 encoded data is decoded and stored encrypted in a binary column.
+     */
+    AES_HMAC_BINARY
 }
@@ -0,0 +1,118 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.util.ProxyUtils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Entity for import job, tracking progress of an asynchronous import so that it can be resumed from the last checkpoint.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Entity
+@Table(name = "uds_import_job", indexes = {
+        @Index(name = "uds_import_job_state_updated", columnList = "state, timestamp_last_updated")
+})
+@Getter
+@Setter
+public class ImportJobEntity implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -2375480938275914071L;
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private String id;
+
+    @Column(name = "state", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ImportJobState state;
+
+    /**
+     * Import paths serialized into JSON.
+     */
+    @Column(name = "import_paths", nullable = false, columnDefinition = "CLOB")
+    private String importPaths;
+
+    /**
+     * Attributes of imported photos serialized into JSON.
+     */
+    @Column(name = "attributes")
+    private String attributes;
+
+    /**
+     * Index of the import path being processed.
+     */
+    @Column(name = "path_index", nullable = false)
+    private int pathIndex;
+
+    /**
+     * Number of committed records of the import path being processed.
+     */
+    @Column(name = "record_position", nullable = false)
+    private long recordPosition;
+
+    @Column(name = "processed_count", nullable = false)
+    private long processedCount;
+
+    @Column(name = "imported_count", nullable = false)
+    private long importedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(name = "error")
+    private String error;
+
+    /**
+     * Number of resumes of the interrupted job since its last progress.
+     */
+    @Column(name = "resume_attempts", nullable = false)
+    private int resumeAttempts;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "timestamp_created", nullable = false)
+    private LocalDateTime timestampCreated;
+
+    @Column(name = "timestamp_last_updated", nullable = false)
+    private LocalDateTime timestampLastUpdated;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || !this.getClass().equals(ProxyUtils.getUserClass(o))) return false;
+        ImportJobEntity that = (ImportJobEntity) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
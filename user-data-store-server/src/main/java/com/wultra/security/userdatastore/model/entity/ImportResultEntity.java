@@ -33,10 +33,12 @@ import java.util.Objects;
  * @author Roman Strobl, roman.strobl@wultra.com
  */
 @Entity
-@Table(name = "uds_import_result")
+@Table(name = "uds_import_result", indexes = {
+        @Index(name = "uds_import_result_job", columnList = "job_id")
+})
 @Getter
 @Setter
-public class ImportResultEntity implements Serializable {
+public class ImportResultEntity extends AssignedIdEntity implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 743666156963790739L;
@@ -45,13 +47,16 @@ public class ImportResultEntity implements Serializable {
     @Column(name = "id", nullable = false)
     private String id;
 
+    @Column(name = "job_id")
+    private String jobId;
+
     @Column(name = "import_path")
     private String importPath;
 
     @Column(name = "user_id", nullable = false)
     private String userId;
 
-    @Column(name = "document_id", nullable = false)
+    @Column(name = "document_id")
     private String documentId;
 
     @Column(name = "photo_id")
@@ -33,10 +33,14 @@ import java.util.Objects;
  * @author Roman Strobl, roman.strobl@wultra.com
  */
 @Entity
-@Table(name = "uds_photo")
+@Table(name = "uds_photo", indexes = {
+        @Index(name = "uds_photo_user_document", columnList = "user_id, document_id"),
+        @Index(name = "uds_photo_document", columnList = "document_id"),
+        @Index(name = "uds_photo_user_created", columnList = "user_id, timestamp_created, id")
+})
 @Getter
 @Setter
-public class PhotoEntity implements Serializable {
+public class PhotoEntity extends AssignedIdEntity implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 6279309905513294661L;
@@ -58,13 +62,20 @@ public class PhotoEntity implements Serializable {
     @Column(name = "photo_type", nullable = false)
     private String photoType;
 
-    @Column(name = "photo_data", nullable = false, columnDefinition = "CLOB")
+    @Column(name = "photo_data", columnDefinition = "CLOB")
     private String photoData;
 
+    @Column(name = "photo_data_binary", columnDefinition = "BLOB")
+    private byte[] photoDataBinary;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "encryption_mode", nullable = false)
     private EncryptionMode encryptionMode;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "timestamp_created", nullable = false)
     private LocalDateTime timestampCreated = LocalDateTime.now();
 
@@ -30,6 +30,15 @@ public class InvalidRequestException extends RuntimeException {
     public InvalidRequestException() {
     }
 
+    /**
+     * Constructs a new exception with the specified message.
+     *
+     * @param message message
+     */
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
     /**
      * Constructs a new exception with the specified cause.
      *
@@ -0,0 +1,45 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.model.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of {@link com.wultra.security.userdatastore.model.entity.PhotoEntity} without the photo data.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+public interface PhotoMetadata {
+
+    String getId();
+
+    String getUserId();
+
+    String getDocumentId();
+
+    String getExternalId();
+
+    String getPhotoType();
+
+    LocalDateTime getTimestampCreated();
+
+    LocalDateTime getTimestampLastUpdated();
+
+    long getVersion();
+
+}
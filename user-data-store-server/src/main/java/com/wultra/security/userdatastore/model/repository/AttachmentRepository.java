@@ -19,9 +19,15 @@ package com.wultra.security.userdatastore.model.repository;
 
 import com.wultra.security.userdatastore.model.entity.AttachmentEntity;
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import com.wultra.security.userdatastore.model.projection.AttachmentMetadata;
+import com.wultra.security.userdatastore.model.projection.EntityVersion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -36,8 +42,102 @@ public interface AttachmentRepository extends JpaRepository<AttachmentEntity, St
 
     List<AttachmentEntity> findAllByUserIdAndDocument(String userId, DocumentEntity documentEntity);
 
+    @Query("SELECT a.id AS id, a.version AS version FROM AttachmentEntity a WHERE a.userId = :userId")
+    List<EntityVersion> findVersionsByUserId(String userId);
+
+    @Query("SELECT a.id AS id, a.version AS version FROM AttachmentEntity a WHERE a.userId = :userId AND a.document.id = :documentId")
+    List<EntityVersion> findVersionsByUserIdAndDocumentId(String userId, String documentId);
+
+    @Query("""
+            SELECT a.id AS id, a.userId AS userId, a.document.id AS documentId, a.externalId AS externalId,
+                   a.attachmentType AS attachmentType, a.timestampCreated AS timestampCreated, a.timestampLastUpdated AS timestampLastUpdated, a.version AS version
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId
+            """)
+    List<AttachmentMetadata> findAllMetadataByUserId(String userId);
+
+    @Query("""
+            SELECT a.id AS id, a.userId AS userId, a.document.id AS documentId, a.externalId AS externalId,
+                   a.attachmentType AS attachmentType, a.timestampCreated AS timestampCreated, a.timestampLastUpdated AS timestampLastUpdated, a.version AS version
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId AND a.document.id = :documentId
+            """)
+    List<AttachmentMetadata> findAllMetadataByUserIdAndDocumentId(String userId, String documentId);
+
+    @Query("""
+            SELECT a
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentEntity> findInitialPageByUserId(String userId, Limit limit);
+
+    @Query("""
+            SELECT a
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId AND (a.timestampCreated > :timestampCreated OR (a.timestampCreated = :timestampCreated AND a.id > :id))
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentEntity> findPageByUserId(String userId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Query("""
+            SELECT a
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId AND a.document.id = :documentId
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentEntity> findInitialPageByUserIdAndDocumentId(String userId, String documentId, Limit limit);
+
+    @Query("""
+            SELECT a
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId AND a.document.id = :documentId AND (a.timestampCreated > :timestampCreated OR (a.timestampCreated = :timestampCreated AND a.id > :id))
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentEntity> findPageByUserIdAndDocumentId(String userId, String documentId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Query("""
+            SELECT a.id AS id, a.userId AS userId, a.document.id AS documentId, a.externalId AS externalId,
+                   a.attachmentType AS attachmentType, a.timestampCreated AS timestampCreated, a.timestampLastUpdated AS timestampLastUpdated, a.version AS version
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentMetadata> findInitialMetadataPageByUserId(String userId, Limit limit);
+
+    @Query("""
+            SELECT a.id AS id, a.userId AS userId, a.document.id AS documentId, a.externalId AS externalId,
+                   a.attachmentType AS attachmentType, a.timestampCreated AS timestampCreated, a.timestampLastUpdated AS timestampLastUpdated, a.version AS version
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId AND (a.timestampCreated > :timestampCreated OR (a.timestampCreated = :timestampCreated AND a.id > :id))
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentMetadata> findMetadataPageByUserId(String userId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Query("""
+            SELECT a.id AS id, a.userId AS userId, a.document.id AS documentId, a.externalId AS externalId,
+                   a.attachmentType AS attachmentType, a.timestampCreated AS timestampCreated, a.timestampLastUpdated AS timestampLastUpdated, a.version AS version
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId AND a.document.id = :documentId
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentMetadata> findInitialMetadataPageByUserIdAndDocumentId(String userId, String documentId, Limit limit);
+
+    @Query("""
+            SELECT a.id AS id, a.userId AS userId, a.document.id AS documentId, a.externalId AS externalId,
+                   a.attachmentType AS attachmentType, a.timestampCreated AS timestampCreated, a.timestampLastUpdated AS timestampLastUpdated, a.version AS version
+            FROM AttachmentEntity a
+            WHERE a.userId = :userId AND a.document.id = :documentId AND (a.timestampCreated > :timestampCreated OR (a.timestampCreated = :timestampCreated AND a.id > :id))
+            ORDER BY a.timestampCreated, a.id
+            """)
+    List<AttachmentMetadata> findMetadataPageByUserIdAndDocumentId(String userId, String documentId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AttachmentEntity a WHERE a.userId = :userId")
     int deleteAllByUserId(String userId);
 
-    int deleteAllByUserIdAndDocument(String userId, DocumentEntity documentEntity);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AttachmentEntity a WHERE a.userId = :userId AND a.document.id = :documentId")
+    int deleteAllByUserIdAndDocumentId(String userId, String documentId);
 
 }
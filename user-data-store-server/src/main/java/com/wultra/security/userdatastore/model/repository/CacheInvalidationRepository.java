@@ -0,0 +1,53 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.model.repository;
+
+import com.wultra.security.userdatastore.model.entity.CacheInvalidationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for {@link CacheInvalidationEntity}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidationEntity, String> {
+
+    /**
+     * Find invalidations published by the other nodes since the given timestamp.
+     *
+     * @param timestamp timestamp, exclusive
+     * @param nodeId identifier of the polling node
+     * @return invalidations
+     */
+    @Query("SELECT c FROM CacheInvalidationEntity c WHERE c.timestampCreated > :timestamp AND c.nodeId <> :nodeId ORDER BY c.timestampCreated")
+    List<CacheInvalidationEntity> findAllPublishedByOtherNodes(LocalDateTime timestamp, String nodeId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheInvalidationEntity c WHERE c.timestampCreated < :timestamp")
+    int deleteAllByTimestampCreatedBefore(LocalDateTime timestamp);
+
+}
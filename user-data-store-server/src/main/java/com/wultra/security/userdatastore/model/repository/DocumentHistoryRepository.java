@@ -20,6 +20,8 @@ package com.wultra.security.userdatastore.model.repository;
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
 import com.wultra.security.userdatastore.model.entity.DocumentHistoryEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -32,4 +34,8 @@ import java.util.List;
 @Repository
 public interface DocumentHistoryRepository extends JpaRepository<DocumentHistoryEntity, String> {
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DocumentHistoryEntity h WHERE h.userId = :userId")
+    int deleteAllByUserId(String userId);
+
 }
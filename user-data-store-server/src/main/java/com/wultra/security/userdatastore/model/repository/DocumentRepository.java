@@ -18,10 +18,17 @@
 package com.wultra.security.userdatastore.model.repository;
 
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import com.wultra.security.userdatastore.model.projection.DocumentMetadata;
+import com.wultra.security.userdatastore.model.projection.EntityVersion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for {@link DocumentEntity}.
@@ -35,8 +42,76 @@ public interface DocumentRepository extends JpaRepository<DocumentEntity, String
 
     List<DocumentEntity> findAllByUserIdAndDataType(String userId, String dataType);
 
+    @Query("SELECT d.id AS id, d.version AS version FROM DocumentEntity d WHERE d.id = :id")
+    Optional<EntityVersion> findVersionById(String id);
+
+    @Query("SELECT d.id AS id, d.version AS version FROM DocumentEntity d WHERE d.userId = :userId")
+    List<EntityVersion> findVersionsByUserId(String userId);
+
+    @Query("""
+            SELECT d.id AS id, d.userId AS userId, d.documentType AS documentType, d.dataType AS dataType,
+                   d.documentDataId AS documentDataId, d.externalId AS externalId, d.attributes AS attributes,
+                   d.timestampCreated AS timestampCreated, d.timestampLastUpdated AS timestampLastUpdated
+            FROM DocumentEntity d
+            WHERE d.userId = :userId
+            """)
+    List<DocumentMetadata> findAllMetadataByUserId(String userId);
+
+    @Query("""
+            SELECT d.id AS id, d.userId AS userId, d.documentType AS documentType, d.dataType AS dataType,
+                   d.documentDataId AS documentDataId, d.externalId AS externalId, d.attributes AS attributes,
+                   d.timestampCreated AS timestampCreated, d.timestampLastUpdated AS timestampLastUpdated
+            FROM DocumentEntity d
+            WHERE d.id = :id
+            """)
+    Optional<DocumentMetadata> findMetadataById(String id);
+
+    @Query("""
+            SELECT d
+            FROM DocumentEntity d
+            WHERE d.userId = :userId
+            ORDER BY d.timestampCreated, d.id
+            """)
+    List<DocumentEntity> findInitialPageByUserId(String userId, Limit limit);
+
+    @Query("""
+            SELECT d
+            FROM DocumentEntity d
+            WHERE d.userId = :userId AND (d.timestampCreated > :timestampCreated OR (d.timestampCreated = :timestampCreated AND d.id > :id))
+            ORDER BY d.timestampCreated, d.id
+            """)
+    List<DocumentEntity> findPageByUserId(String userId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Query("""
+            SELECT d.id AS id, d.userId AS userId, d.documentType AS documentType, d.dataType AS dataType,
+                   d.documentDataId AS documentDataId, d.externalId AS externalId, d.attributes AS attributes,
+                   d.timestampCreated AS timestampCreated, d.timestampLastUpdated AS timestampLastUpdated
+            FROM DocumentEntity d
+            WHERE d.userId = :userId
+            ORDER BY d.timestampCreated, d.id
+            """)
+    List<DocumentMetadata> findInitialMetadataPageByUserId(String userId, Limit limit);
+
+    @Query("""
+            SELECT d.id AS id, d.userId AS userId, d.documentType AS documentType, d.dataType AS dataType,
+                   d.documentDataId AS documentDataId, d.externalId AS externalId, d.attributes AS attributes,
+                   d.timestampCreated AS timestampCreated, d.timestampLastUpdated AS timestampLastUpdated
+            FROM DocumentEntity d
+            WHERE d.userId = :userId AND (d.timestampCreated > :timestampCreated OR (d.timestampCreated = :timestampCreated AND d.id > :id))
+            ORDER BY d.timestampCreated, d.id
+            """)
+    List<DocumentMetadata> findMetadataPageByUserId(String userId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DocumentEntity d WHERE d.userId = :userId")
     int deleteAllByUserId(String userId);
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DocumentEntity d WHERE d.userId = :userId AND d.dataType = :dataType")
+    int deleteAllByUserIdAndDataType(String userId, String dataType);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DocumentEntity d WHERE d.userId = :userId AND d.id = :id")
     int deleteAllByUserIdAndId(String userId, String id);
 
 }
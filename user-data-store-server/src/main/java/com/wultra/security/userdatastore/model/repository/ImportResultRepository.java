@@ -19,6 +19,8 @@ package com.wultra.security.userdatastore.model.repository;
 
 import com.wultra.security.userdatastore.model.entity.ImportResultEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -29,4 +31,8 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ImportResultRepository extends JpaRepository<ImportResultEntity, String> {
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ImportResultEntity r WHERE r.userId = :userId")
+    int deleteAllByUserId(String userId);
+
 }
@@ -19,9 +19,15 @@ package com.wultra.security.userdatastore.model.repository;
 
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
 import com.wultra.security.userdatastore.model.entity.PhotoEntity;
+import com.wultra.security.userdatastore.model.projection.EntityVersion;
+import com.wultra.security.userdatastore.model.projection.PhotoMetadata;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -36,8 +42,102 @@ public interface PhotoRepository extends JpaRepository<PhotoEntity, String> {
 
     List<PhotoEntity> findAllByUserIdAndDocument(String userId, DocumentEntity documentEntity);
 
+    @Query("SELECT p.id AS id, p.version AS version FROM PhotoEntity p WHERE p.userId = :userId")
+    List<EntityVersion> findVersionsByUserId(String userId);
+
+    @Query("SELECT p.id AS id, p.version AS version FROM PhotoEntity p WHERE p.userId = :userId AND p.document.id = :documentId")
+    List<EntityVersion> findVersionsByUserIdAndDocumentId(String userId, String documentId);
+
+    @Query("""
+            SELECT p.id AS id, p.userId AS userId, p.document.id AS documentId, p.externalId AS externalId,
+                   p.photoType AS photoType, p.timestampCreated AS timestampCreated, p.timestampLastUpdated AS timestampLastUpdated, p.version AS version
+            FROM PhotoEntity p
+            WHERE p.userId = :userId
+            """)
+    List<PhotoMetadata> findAllMetadataByUserId(String userId);
+
+    @Query("""
+            SELECT p.id AS id, p.userId AS userId, p.document.id AS documentId, p.externalId AS externalId,
+                   p.photoType AS photoType, p.timestampCreated AS timestampCreated, p.timestampLastUpdated AS timestampLastUpdated, p.version AS version
+            FROM PhotoEntity p
+            WHERE p.userId = :userId AND p.document.id = :documentId
+            """)
+    List<PhotoMetadata> findAllMetadataByUserIdAndDocumentId(String userId, String documentId);
+
+    @Query("""
+            SELECT p
+            FROM PhotoEntity p
+            WHERE p.userId = :userId
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoEntity> findInitialPageByUserId(String userId, Limit limit);
+
+    @Query("""
+            SELECT p
+            FROM PhotoEntity p
+            WHERE p.userId = :userId AND (p.timestampCreated > :timestampCreated OR (p.timestampCreated = :timestampCreated AND p.id > :id))
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoEntity> findPageByUserId(String userId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Query("""
+            SELECT p
+            FROM PhotoEntity p
+            WHERE p.userId = :userId AND p.document.id = :documentId
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoEntity> findInitialPageByUserIdAndDocumentId(String userId, String documentId, Limit limit);
+
+    @Query("""
+            SELECT p
+            FROM PhotoEntity p
+            WHERE p.userId = :userId AND p.document.id = :documentId AND (p.timestampCreated > :timestampCreated OR (p.timestampCreated = :timestampCreated AND p.id > :id))
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoEntity> findPageByUserIdAndDocumentId(String userId, String documentId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Query("""
+            SELECT p.id AS id, p.userId AS userId, p.document.id AS documentId, p.externalId AS externalId,
+                   p.photoType AS photoType, p.timestampCreated AS timestampCreated, p.timestampLastUpdated AS timestampLastUpdated, p.version AS version
+            FROM PhotoEntity p
+            WHERE p.userId = :userId
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoMetadata> findInitialMetadataPageByUserId(String userId, Limit limit);
+
+    @Query("""
+            SELECT p.id AS id, p.userId AS userId, p.document.id AS documentId, p.externalId AS externalId,
+                   p.photoType AS photoType, p.timestampCreated AS timestampCreated, p.timestampLastUpdated AS timestampLastUpdated, p.version AS version
+            FROM PhotoEntity p
+            WHERE p.userId = :userId AND (p.timestampCreated > :timestampCreated OR (p.timestampCreated = :timestampCreated AND p.id > :id))
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoMetadata> findMetadataPageByUserId(String userId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Query("""
+            SELECT p.id AS id, p.userId AS userId, p.document.id AS documentId, p.externalId AS externalId,
+                   p.photoType AS photoType, p.timestampCreated AS timestampCreated, p.timestampLastUpdated AS timestampLastUpdated, p.version AS version
+            FROM PhotoEntity p
+            WHERE p.userId = :userId AND p.document.id = :documentId
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoMetadata> findInitialMetadataPageByUserIdAndDocumentId(String userId, String documentId, Limit limit);
+
+    @Query("""
+            SELECT p.id AS id, p.userId AS userId, p.document.id AS documentId, p.externalId AS externalId,
+                   p.photoType AS photoType, p.timestampCreated AS timestampCreated, p.timestampLastUpdated AS timestampLastUpdated, p.version AS version
+            FROM PhotoEntity p
+            WHERE p.userId = :userId AND p.document.id = :documentId AND (p.timestampCreated > :timestampCreated OR (p.timestampCreated = :timestampCreated AND p.id > :id))
+            ORDER BY p.timestampCreated, p.id
+            """)
+    List<PhotoMetadata> findMetadataPageByUserIdAndDocumentId(String userId, String documentId, LocalDateTime timestampCreated, String id, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM PhotoEntity p WHERE p.userId = :userId")
     int deleteAllByUserId(String userId);
 
-    int deleteAllByUserIdAndDocument(String userId, DocumentEntity documentEntity);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM PhotoEntity p WHERE p.userId = :userId AND p.document.id = :documentId")
+    int deleteAllByUserIdAndDocumentId(String userId, String documentId);
 
 }
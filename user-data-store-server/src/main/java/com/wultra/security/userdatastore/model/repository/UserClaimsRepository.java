@@ -19,6 +19,8 @@ package com.wultra.security.userdatastore.model.repository;
 
 import com.wultra.security.userdatastore.model.entity.UserClaimsEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -29,4 +31,8 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface UserClaimsRepository extends JpaRepository<UserClaimsEntity, String> {
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM UserClaimsEntity c WHERE c.userId = :userId")
+    int deleteAllByUserId(String userId);
+
 }
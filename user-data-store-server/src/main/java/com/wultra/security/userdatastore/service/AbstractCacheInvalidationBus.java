@@ -0,0 +1,87 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Base of cache invalidation buses, notifying the local listeners and leaving the delivery to the other nodes to the implementation.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Slf4j
+public abstract class AbstractCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Identifier of this node, invalidations published by the node itself are ignored when received back.
+     */
+    protected final String nodeId = UUID.randomUUID().toString();
+
+    @Override
+    public void publish(final String userId) {
+        notifyListeners(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Evict also the values read by concurrent transactions before this one completed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    notifyListeners(userId);
+                }
+            });
+        }
+        publishRemote(userId);
+    }
+
+    @Override
+    public void subscribe(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Deliver the invalidation to the other nodes, within the current transaction if any.
+     *
+     * @param userId user identifier
+     */
+    protected abstract void publishRemote(String userId);
+
+    /**
+     * Notify the local listeners about invalidation of the given user.
+     *
+     * @param userId user identifier
+     */
+    protected void notifyListeners(final String userId) {
+        listeners.forEach(listener -> listener.invalidate(userId));
+    }
+
+    /**
+     * Notify the local listeners to invalidate everything.
+     */
+    protected void notifyListenersAll() {
+        logger.info("Invalidating all cached user data");
+        listeners.forEach(Listener::invalidateAll);
+    }
+
+}
@@ -0,0 +1,454 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.core.audit.base.Audit;
+import com.wultra.core.audit.base.model.AuditDetail;
+import com.wultra.core.audit.base.model.AuditLevel;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Audit enqueuing the events into a bounded in-memory queue, passed to the delegate audit and flushed to the database
+ * in batches by a background thread.
+ * <p>
+ * Business transactions do not wait for the audit inserts. A batch is flushed when it is full or when the flush interval
+ * since its first event elapses. Queued events are flushed when the application is stopped, they are lost on a crash.
+ * The calling class recorded by the delegate is this class, the actor and the action are recorded in the event itself.
+ * The timestamp and the thread name recorded by the delegate are those of the background write, so the time and the thread
+ * of the audited action are added as the parameters {@value #PARAM_TIMESTAMP} and {@value #PARAM_THREAD}.
+ * Each written batch is emitted as the JFR event {@link AuditFlushEvent}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Slf4j
+public class AsyncAudit implements Audit, MeterBinder, AutoCloseable {
+
+    static final String PARAM_TIMESTAMP = "eventTimestamp";
+    static final String PARAM_THREAD = "eventThread";
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Audit delegate;
+    private final BlockingQueue<AuditEvent> queue;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final Thread writerThread;
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    /**
+     * Timer of batch writes. {@code null} until bound to a meter registry.
+     */
+    private volatile Timer writeTimer;
+
+    /**
+     * Summary of written batch sizes. {@code null} until bound to a meter registry.
+     */
+    private volatile DistributionSummary batchSizeSummary;
+
+    /**
+     * Create the audit and start its background writer.
+     *
+     * @param delegate audit writing the events
+     * @param queueCapacity maximum number of queued events
+     * @param batchSize maximum number of events flushed at once
+     * @param flushInterval maximum time an event waits for its batch to fill up
+     * @param overflowPolicy policy applied when the queue is full
+     * @param sampleRate every n-th event is enqueued by {@link AuditOverflowPolicy#SAMPLE} once the queue is at least half full
+     * @param threadFactory factory of the background writer thread
+     */
+    public AsyncAudit(final Audit delegate, final int queueCapacity, final int batchSize, final Duration flushInterval,
+                      final AuditOverflowPolicy overflowPolicy, final int sampleRate, final ThreadFactory threadFactory) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.writerThread = threadFactory.newThread(this::runWriter);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("uds.audit.queue.size", queue, BlockingQueue::size)
+                .description("Number of audit events waiting to be written")
+                .register(registry);
+        Gauge.builder("uds.audit.queue.capacity", () -> queueCapacity)
+                .description("Maximum number of queued audit events")
+                .register(registry);
+        FunctionCounter.builder("uds.audit.dropped", droppedCount, AtomicLong::get)
+                .description("Number of audit events dropped because of a full queue")
+                .register(registry);
+        FunctionCounter.builder("uds.audit.written", writtenCount, AtomicLong::get)
+                .description("Number of audit events passed to the audit writer")
+                .register(registry);
+        batchSizeSummary = DistributionSummary.builder("uds.audit.batch.size")
+                .description("Number of audit events written at once")
+                .baseUnit("events")
+                .register(registry);
+        writeTimer = Timer.builder("uds.audit.write")
+                .description("Latency of writing and flushing a batch of audit events, failed batches excluded")
+                .register(registry);
+    }
+
+    /**
+     * Stop the background writer and flush the queued events.
+     */
+    @Override
+    public void close() {
+        logger.info("Stopping audit writer, queued events: {}", queue.size());
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(flushInterval.toMillis() + 5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public void error(final String message) {
+        enqueue(message, AuditLevel.ERROR, null, NO_ARGS);
+    }
+
+    @Override
+    public void error(final String message, final Object... args) {
+        enqueue(message, AuditLevel.ERROR, null, args);
+    }
+
+    @Override
+    public void error(final String message, final AuditDetail auditDetail) {
+        enqueue(message, AuditLevel.ERROR, auditDetail, NO_ARGS);
+    }
+
+    @Override
+    public void error(final String message, final AuditDetail auditDetail, final Object... args) {
+        enqueue(message, AuditLevel.ERROR, auditDetail, args);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(final String message) {
+        enqueue(message, AuditLevel.WARN, null, NO_ARGS);
+    }
+
+    @Override
+    public void warn(final String message, final Object... args) {
+        enqueue(message, AuditLevel.WARN, null, args);
+    }
+
+    @Override
+    public void warn(final String message, final AuditDetail auditDetail) {
+        enqueue(message, AuditLevel.WARN, auditDetail, NO_ARGS);
+    }
+
+    @Override
+    public void warn(final String message, final AuditDetail auditDetail, final Object... args) {
+        enqueue(message, AuditLevel.WARN, auditDetail, args);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(final String message) {
+        enqueue(message, AuditLevel.INFO, null, NO_ARGS);
+    }
+
+    @Override
+    public void info(final String message, final Object... args) {
+        enqueue(message, AuditLevel.INFO, null, args);
+    }
+
+    @Override
+    public void info(final String message, final AuditDetail auditDetail) {
+        enqueue(message, AuditLevel.INFO, auditDetail, NO_ARGS);
+    }
+
+    @Override
+    public void info(final String message, final AuditDetail auditDetail, final Object... args) {
+        enqueue(message, AuditLevel.INFO, auditDetail, args);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(final String message) {
+        enqueue(message, AuditLevel.DEBUG, null, NO_ARGS);
+    }
+
+    @Override
+    public void debug(final String message, final Object... args) {
+        enqueue(message, AuditLevel.DEBUG, null, args);
+    }
+
+    @Override
+    public void debug(final String message, final AuditDetail auditDetail) {
+        enqueue(message, AuditLevel.DEBUG, auditDetail, NO_ARGS);
+    }
+
+    @Override
+    public void debug(final String message, final AuditDetail auditDetail, final Object... args) {
+        enqueue(message, AuditLevel.DEBUG, auditDetail, args);
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return delegate.isTraceEnabled();
+    }
+
+    @Override
+    public void trace(final String message) {
+        enqueue(message, AuditLevel.TRACE, null, NO_ARGS);
+    }
+
+    @Override
+    public void trace(final String message, final Object... args) {
+        enqueue(message, AuditLevel.TRACE, null, args);
+    }
+
+    @Override
+    public void trace(final String message, final AuditDetail auditDetail) {
+        enqueue(message, AuditLevel.TRACE, auditDetail, NO_ARGS);
+    }
+
+    @Override
+    public void trace(final String message, final AuditDetail auditDetail, final Object... args) {
+        enqueue(message, AuditLevel.TRACE, auditDetail, args);
+    }
+
+    @Override
+    public boolean isLevelEnabled(final AuditLevel level) {
+        return delegate.isLevelEnabled(level);
+    }
+
+    @Override
+    public void log(final String message, final AuditLevel level) {
+        enqueue(message, level, null, NO_ARGS);
+    }
+
+    @Override
+    public void log(final String message, final AuditLevel level, final Object... args) {
+        enqueue(message, level, null, args);
+    }
+
+    @Override
+    public void log(final String message, final AuditLevel level, final AuditDetail auditDetail) {
+        enqueue(message, level, auditDetail, NO_ARGS);
+    }
+
+    @Override
+    public void log(final String message, final AuditLevel level, final AuditDetail auditDetail, final Object... args) {
+        enqueue(message, level, auditDetail, args);
+    }
+
+    /**
+     * Write the queued events on the calling thread.
+     */
+    @Override
+    public void flush() {
+        final List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        delegate.cleanup();
+    }
+
+    private void enqueue(final String message, final AuditLevel level, final AuditDetail auditDetail, final Object[] args) {
+        if (!delegate.isLevelEnabled(level)) {
+            return;
+        }
+        final AuditEvent event = new AuditEvent(message, level, auditDetail, args == null ? NO_ARGS : args, Instant.now(), Thread.currentThread().getName());
+        if (!running) {
+            write(List.of(event));
+            return;
+        }
+        final boolean enqueued = switch (overflowPolicy) {
+            case BLOCK -> put(event);
+            case DROP -> queue.offer(event);
+            case SAMPLE -> isSampled() && queue.offer(event);
+        };
+        if (!enqueued) {
+            droppedCount.incrementAndGet();
+            logger.debug("Audit event dropped, queue size: {}, message: {}", queue.size(), message);
+        }
+    }
+
+    private boolean put(final AuditEvent event) {
+        try {
+            queue.put(event);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean isSampled() {
+        return queue.size() < queueCapacity / 2 || sampleCounter.incrementAndGet() % sampleRate == 0;
+    }
+
+    private void runWriter() {
+        logger.info("Audit writer started, queue capacity: {}, batch size: {}, flush interval: {}, overflow policy: {}",
+                queueCapacity, batchSize, flushInterval, overflowPolicy);
+        final List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                // Interrupted by close, the interrupt flag is not restored, so that the remaining events can be written
+                logger.debug("Audit writer interrupted, queued events: {}", queue.size());
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        flush();
+        logger.info("Audit writer stopped");
+    }
+
+    private void collectBatch(final List<AuditEvent> batch) throws InterruptedException {
+        final AuditEvent first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        final long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize && running) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            final AuditEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(final List<AuditEvent> batch) {
+        final long start = System.nanoTime();
+        final AuditFlushEvent flushEvent = new AuditFlushEvent();
+        flushEvent.begin();
+        boolean flushed = false;
+        for (AuditEvent event : batch) {
+            try {
+                delegate.log(event.message(), event.level(), withOrigin(event), event.args());
+            } catch (RuntimeException e) {
+                logger.warn("Writing of audit event failed, message: {}", event.message(), e);
+            }
+        }
+        try {
+            delegate.flush();
+            flushed = true;
+            recordWrite(start, batch.size());
+            writtenCount.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            logger.error("Flushing of {} audit events failed", batch.size(), e);
+        }
+        flushEvent.end();
+        if (flushEvent.shouldCommit()) {
+            flushEvent.eventCount = batch.size();
+            flushEvent.flushed = flushed;
+            flushEvent.commit();
+        }
+    }
+
+    private void recordWrite(final long start, final int size) {
+        final Timer timer = writeTimer;
+        final DistributionSummary summary = batchSizeSummary;
+        if (timer != null && summary != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            summary.record(size);
+        }
+    }
+
+    /**
+     * Return the audit detail of the event extended by the time and the thread of the audited action.
+     */
+    private static AuditDetail withOrigin(final AuditEvent event) {
+        final AuditDetail.Builder builder = AuditDetail.builder();
+        if (event.auditDetail() != null) {
+            builder.type(event.auditDetail().getType()).params(event.auditDetail().getParam());
+        }
+        return builder
+                .param(PARAM_TIMESTAMP, event.timestamp().toString())
+                .param(PARAM_THREAD, event.threadName())
+                .build();
+    }
+
+    private record AuditEvent(String message, AuditLevel level, AuditDetail auditDetail, Object[] args, Instant timestamp, String threadName) {
+    }
+
+}
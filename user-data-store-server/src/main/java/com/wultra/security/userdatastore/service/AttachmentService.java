@@ -29,6 +29,8 @@ import com.wultra.security.userdatastore.converter.AttachmentConverter;
 import com.wultra.security.userdatastore.model.entity.AttachmentEntity;
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
 import com.wultra.security.userdatastore.model.error.ResourceNotFoundException;
+import com.wultra.security.userdatastore.model.projection.EntityVersion;
+import com.wultra.security.userdatastore.model.projection.AttachmentMetadata;
 import com.wultra.security.userdatastore.model.repository.AttachmentRepository;
 import com.wultra.security.userdatastore.model.repository.DocumentRepository;
 import lombok.AllArgsConstructor;
@@ -58,23 +60,108 @@ public class AttachmentService {
     private final Audit audit;
     private final EncryptionService encryptionService;
     private final AttachmentConverter attachmentConverter;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * Return the entity tag of the attachments returned by {@link #fetchAttachments(String, Optional)}. It is computed from
+     * identifiers and versions only, so that a matching {@code If-None-Match} reads no attachment data.
+     *
+     * @param userId user identifier
+     * @param documentId optional document identifier
+     * @return quoted entity tag
+     */
+    @Transactional(readOnly = true)
+    public String fetchAttachmentsETag(final String userId, final Optional<String> documentId) {
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            audit("action: fetchAttachmentsETag, userId: {}, documentId: {}", userId, documentId.get());
+            return etag(attachmentRepository.findVersionsByUserIdAndDocumentId(userId, documentId.get()));
+        }
+        audit("action: fetchAttachmentsETag, userId: {}", userId, null);
+        return etag(attachmentRepository.findVersionsByUserId(userId));
+    }
 
     @Transactional(readOnly = true)
     public AttachmentResponse fetchAttachments(final String userId, final Optional<String> documentId) {
         if (documentId.isPresent()) {
-            final DocumentEntity documentEntity = documentRepository.findById(documentId.get()).orElseThrow(
-                    () -> new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId)));
-            final List<AttachmentEntity> attachmentEntities = attachmentRepository.findAllByUserIdAndDocument(userId, documentEntity);
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            final List<AttachmentEntity> attachmentEntities = attachmentRepository.findAllByUserIdAndDocument(userId, documentRepository.getReferenceById(documentId.get()));
             final List<AttachmentDto> attachments = attachmentEntities.stream().map(attachmentConverter::toAttachment).toList();
             audit("action: fetchAttachments, userId: {}, documentId: {}", userId, documentId.get());
             return new AttachmentResponse(attachments);
         }
-        final List<AttachmentEntity> attachmentEntities = attachmentRepository.findAllByUserId(userId);
-        final List<AttachmentDto> attachments = attachmentEntities.stream().map(attachmentConverter::toAttachment).toList();
         audit("action: fetchAttachments, userId: {}", userId, null);
+        final List<AttachmentDto> attachments = attachmentRepository.findAllByUserId(userId).stream().map(attachmentConverter::toAttachment).toList();
         return new AttachmentResponse(attachments);
     }
 
+    @Transactional(readOnly = true)
+    public AttachmentResponse fetchAttachmentsMetadata(final String userId, final Optional<String> documentId) {
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            final List<AttachmentDto> attachments = attachmentRepository.findAllMetadataByUserIdAndDocumentId(userId, documentId.get()).stream()
+                    .map(attachmentConverter::toAttachment)
+                    .toList();
+            audit("action: fetchAttachmentsMetadata, userId: {}, documentId: {}", userId, documentId.get());
+            return new AttachmentResponse(attachments);
+        }
+        final List<AttachmentDto> attachments = attachmentRepository.findAllMetadataByUserId(userId).stream()
+                .map(attachmentConverter::toAttachment)
+                .toList();
+        audit("action: fetchAttachmentsMetadata, userId: {}", userId, null);
+        return new AttachmentResponse(attachments);
+    }
+
+    @Transactional(readOnly = true)
+    public AttachmentResponse fetchAttachmentsPage(final String userId, final Optional<String> documentId, final Optional<Integer> limit, final Optional<String> cursor) {
+        final Optional<KeysetCursor> keysetCursor = KeysetCursor.parse(cursor);
+        final int pageSize = limit.orElse(KeysetCursor.DEFAULT_LIMIT);
+        final List<AttachmentEntity> attachmentEntities;
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            attachmentEntities = keysetCursor.isEmpty()
+                    ? attachmentRepository.findInitialPageByUserIdAndDocumentId(userId, documentId.get(), KeysetCursor.queryLimit(pageSize))
+                    : attachmentRepository.findPageByUserIdAndDocumentId(userId, documentId.get(), keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        } else {
+            attachmentEntities = keysetCursor.isEmpty()
+                    ? attachmentRepository.findInitialPageByUserId(userId, KeysetCursor.queryLimit(pageSize))
+                    : attachmentRepository.findPageByUserId(userId, keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        }
+        final List<AttachmentDto> attachments = attachmentEntities.stream().limit(pageSize).map(attachmentConverter::toAttachment).toList();
+        audit("action: fetchAttachments, userId: {}, documentId: {}", userId, documentId.orElse(null));
+        return new AttachmentResponse(attachments, KeysetCursor.next(attachmentEntities, pageSize, AttachmentEntity::getTimestampCreated, AttachmentEntity::getId));
+    }
+
+    @Transactional(readOnly = true)
+    public AttachmentResponse fetchAttachmentsMetadataPage(final String userId, final Optional<String> documentId, final Optional<Integer> limit, final Optional<String> cursor) {
+        final Optional<KeysetCursor> keysetCursor = KeysetCursor.parse(cursor);
+        final int pageSize = limit.orElse(KeysetCursor.DEFAULT_LIMIT);
+        final List<AttachmentMetadata> attachmentsMetadata;
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            attachmentsMetadata = keysetCursor.isEmpty()
+                    ? attachmentRepository.findInitialMetadataPageByUserIdAndDocumentId(userId, documentId.get(), KeysetCursor.queryLimit(pageSize))
+                    : attachmentRepository.findMetadataPageByUserIdAndDocumentId(userId, documentId.get(), keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        } else {
+            attachmentsMetadata = keysetCursor.isEmpty()
+                    ? attachmentRepository.findInitialMetadataPageByUserId(userId, KeysetCursor.queryLimit(pageSize))
+                    : attachmentRepository.findMetadataPageByUserId(userId, keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        }
+        final List<AttachmentDto> attachments = attachmentsMetadata.stream().limit(pageSize).map(attachmentConverter::toAttachment).toList();
+        audit("action: fetchAttachmentsMetadata, userId: {}, documentId: {}", userId, documentId.orElse(null));
+        return new AttachmentResponse(attachments, KeysetCursor.next(attachmentsMetadata, pageSize, AttachmentMetadata::getTimestampCreated, AttachmentMetadata::getId));
+    }
+
     @Transactional
     public AttachmentCreateResponse createAttachment(final AttachmentCreateRequest request) {
         final String userId = request.userId();
@@ -96,32 +183,54 @@ public class AttachmentService {
         documentEntity.setTimestampLastUpdated(timestamp);
 
         attachmentRepository.save(attachmentEntity);
+        cacheInvalidationBus.publish(userId);
         audit("action: createAttachment, userId: {}, documentId: {}", userId, documentId);
 
         return new AttachmentCreateResponse(attachmentEntity.getId(), documentEntity.getId());
     }
 
-    @Transactional
-    public AttachmentCreateResponse createAttachment(final EmbeddedAttachmentCreateRequest request, final DocumentEntity documentEntity) {
-        final AttachmentEntity attachmentEntity = new AttachmentEntity();
-        attachmentEntity.setId(UUID.randomUUID().toString());
-        attachmentEntity.setDocument(documentEntity);
-        attachmentEntity.setUserId(documentEntity.getUserId());
-        attachmentEntity.setAttachmentType(request.attachmentType());
-        attachmentEntity.setExternalId(request.externalId());
-        attachmentEntity.setTimestampCreated(LocalDateTime.now());
-        encryptionService.encryptAttachment(attachmentEntity, request.attachmentData());
-
-        attachmentRepository.save(attachmentEntity);
-        audit("action: createAttachment, userId: {}, documentId: {}", attachmentEntity.getUserId(), documentEntity.getId());
+    /**
+     * Prepare attachments embedded in the document with encrypted data, without persisting them.
+     * Does not touch the persistence context, so it may be called by any thread.
+     *
+     * @param requests embedded attachment create requests
+     * @param documentEntity document of the attachments
+     * @return new attachment entities
+     */
+    public List<AttachmentEntity> newAttachments(final List<EmbeddedAttachmentCreateRequest> requests, final DocumentEntity documentEntity) {
+        final LocalDateTime timestamp = LocalDateTime.now();
+        return requests.stream()
+                .map(request -> {
+                    final AttachmentEntity attachmentEntity = new AttachmentEntity();
+                    attachmentEntity.setId(UUID.randomUUID().toString());
+                    attachmentEntity.setDocument(documentEntity);
+                    attachmentEntity.setUserId(documentEntity.getUserId());
+                    attachmentEntity.setAttachmentType(request.attachmentType());
+                    attachmentEntity.setExternalId(request.externalId());
+                    attachmentEntity.setTimestampCreated(timestamp);
+                    encryptionService.encryptAttachment(attachmentEntity, request.attachmentData());
+                    return attachmentEntity;
+                })
+                .toList();
+    }
 
-        return new AttachmentCreateResponse(attachmentEntity.getId(), documentEntity.getId());
+    /**
+     * Save the new attachments at once, so that their inserts are batched.
+     *
+     * @param attachmentEntities new attachment entities, their documents already saved
+     */
+    @Transactional
+    public void saveAttachments(final List<AttachmentEntity> attachmentEntities) {
+        attachmentRepository.saveAll(attachmentEntities);
+        attachmentEntities.forEach(attachmentEntity ->
+                audit("action: createAttachment, userId: {}, documentId: {}", attachmentEntity.getUserId(), attachmentEntity.getDocument().getId()));
     }
 
     @Transactional
-    public void updateAttachment(final String attachmentId, final AttachmentUpdateRequest request) {
+    public void updateAttachment(final String attachmentId, final AttachmentUpdateRequest request, final Optional<String> ifMatch) {
         final AttachmentEntity attachmentEntity = attachmentRepository.findById(attachmentId).orElseThrow(() ->
                new ResourceNotFoundException("Attachment not found, ID: '%s'".formatted(attachmentId)));
+        ETags.checkIfMatch(ifMatch, () -> ETags.of(attachmentEntity.getId(), attachmentEntity.getVersion()));
         final LocalDateTime timestamp = LocalDateTime.now();
         attachmentEntity.setAttachmentType(request.attachmentType());
         attachmentEntity.setExternalId(request.externalId());
@@ -130,15 +239,18 @@ public class AttachmentService {
         final DocumentEntity documentEntity = attachmentEntity.getDocument();
         documentEntity.setTimestampLastUpdated(timestamp);
         attachmentRepository.save(attachmentEntity);
+        cacheInvalidationBus.publish(attachmentEntity.getUserId());
         audit("action: updateAttachment, userId: {}, documentId: {}", attachmentEntity.getUserId(), documentEntity.getId());
     }
 
     @Transactional
     public void deleteAttachments(final String userId, final Optional<String> documentId) {
+        cacheInvalidationBus.publish(userId);
         if (documentId.isPresent()) {
-            final DocumentEntity documentEntity = documentRepository.findById(documentId.get()).orElseThrow(
-                    () -> new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId)));
-            attachmentRepository.deleteAllByUserIdAndDocument(userId, documentEntity);
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId));
+            }
+            attachmentRepository.deleteAllByUserIdAndDocumentId(userId, documentId.get());
             audit("action: deleteAttachments, userId: {}, documentId: {}", userId, documentId.get());
             return;
         }
@@ -146,6 +258,10 @@ public class AttachmentService {
         audit("action: deleteAttachments, userId: {}", userId, null);
     }
 
+    private static String etag(final List<EntityVersion> versions) {
+        return ETags.of(versions, EntityVersion::getId, EntityVersion::getVersion);
+    }
+
     private void audit(final String message, final String userId, final String documentId) {
         final String loggedUsername = Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
                 .map(Authentication::getName)
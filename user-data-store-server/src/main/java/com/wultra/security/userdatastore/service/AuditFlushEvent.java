@@ -0,0 +1,47 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of writing a batch of audit events.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Name("com.wultra.security.userdatastore.AuditFlush")
+@Label("Audit Flush")
+@Category({"User Data Store", "Audit"})
+@Description("Writing and flushing a batch of audit events")
+@StackTrace(false)
+final class AuditFlushEvent extends Event {
+
+    @Label("Events")
+    @Description("Number of audit events in the batch")
+    int eventCount;
+
+    @Label("Flushed")
+    @Description("Whether the batch has been flushed successfully")
+    boolean flushed;
+
+}
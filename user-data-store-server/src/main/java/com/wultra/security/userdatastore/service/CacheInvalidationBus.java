@@ -0,0 +1,62 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+/**
+ * Bus distributing invalidations of user data cached in-process, e.g. claims, to all nodes.
+ * <p>
+ * An invalidation is published by a write of the user data, in the writing transaction. Listeners of the publishing node
+ * are notified immediately and again after the transaction completes, listeners of the other nodes once the transaction is committed.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Publish invalidation of cached data of the given user.
+     *
+     * @param userId user identifier
+     */
+    void publish(String userId);
+
+    /**
+     * Register the listener of invalidations, both local and published by the other nodes.
+     *
+     * @param listener listener
+     */
+    void subscribe(Listener listener);
+
+    /**
+     * Listener of cache invalidations.
+     */
+    interface Listener {
+
+        /**
+         * Invalidate cached data of the given user.
+         *
+         * @param userId user identifier
+         */
+        void invalidate(String userId);
+
+        /**
+         * Invalidate all cached data, called when invalidations of the other nodes might have been missed.
+         */
+        void invalidateAll();
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Claims of a user, either parsed or as JSON.
+ * <p>
+ * A single claim is looked up in JSON by streaming, skipping all non-matching content, so that the whole claims are not
+ * parsed just to return one claim. The JSON is supplied lazily, so that claims which are not read, e.g. for a request
+ * with a matching {@code If-None-Match}, are not decrypted.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+public final class Claims {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Parsed claims, {@code null} if not parsed.
+     */
+    private final Object parsed;
+
+    /**
+     * Supplier of claims JSON, {@code null} if parsed.
+     */
+    private final Supplier<String> json;
+
+    /**
+     * Entity tag of the claims, {@code null} if unknown.
+     */
+    private final String etag;
+
+    private Claims(final Object parsed, final Supplier<String> json, final String etag) {
+        this.parsed = parsed;
+        this.json = json;
+        this.etag = etag;
+    }
+
+    /**
+     * Create claims of the given parsed value.
+     *
+     * @param parsed parsed claims
+     * @return claims
+     */
+    public static Claims ofParsed(final Object parsed) {
+        return ofParsed(parsed, null);
+    }
+
+    /**
+     * Create claims of the given parsed value.
+     *
+     * @param parsed parsed claims
+     * @param etag entity tag of the claims
+     * @return claims
+     */
+    public static Claims ofParsed(final Object parsed, final String etag) {
+        return new Claims(parsed, null, etag);
+    }
+
+    /**
+     * Create claims of the given JSON, parsed only when needed.
+     *
+     * @param json claims JSON
+     * @return claims
+     */
+    public static Claims ofJson(final String json) {
+        return ofJson(() -> json, null);
+    }
+
+    /**
+     * Create claims of JSON supplied only when the claims are read.
+     *
+     * @param json supplier of claims JSON
+     * @param etag entity tag of the claims
+     * @return claims
+     */
+    public static Claims ofJson(final Supplier<String> json, final String etag) {
+        return new Claims(null, json, etag);
+    }
+
+    /**
+     * Convert a claim name to a JSON pointer. A slash separates names of nested claims, e.g. {@code address/city},
+     * a number matches also an array index. A slash within a name is escaped as {@code ~1}, a tilde as {@code ~0}.
+     *
+     * @param claim claim name or path
+     * @return JSON pointer
+     */
+    public static JsonPointer toPointer(final String claim) {
+        return JsonPointer.compile("/" + claim);
+    }
+
+    /**
+     * Return the entity tag of the claims.
+     *
+     * @return quoted entity tag or {@code null} if unknown
+     */
+    public String etag() {
+        return etag;
+    }
+
+    /**
+     * Return the whole claims. Shared parsed claims must not be modified.
+     *
+     * @return parsed claims
+     */
+    public Object value() {
+        if (json == null) {
+            return parsed;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(json.get(), Object.class);
+        } catch (IOException e) {
+            throw new InvalidRequestException(e);
+        }
+    }
+
+    /**
+     * Return the claim at the given JSON pointer.
+     *
+     * @param pointer JSON pointer of the claim
+     * @return claim value or {@code null} if the claim does not exist
+     * @throws InvalidRequestException if the claims are not a JSON object
+     */
+    public Object find(final JsonPointer pointer) {
+        if (json == null) {
+            return find(parsed, pointer);
+        }
+        try (final JsonParser parser = OBJECT_MAPPER.createParser(json.get())) {
+            return find(parser, pointer);
+        } catch (IOException e) {
+            throw new InvalidRequestException(e);
+        }
+    }
+
+    private static Object find(final Object claims, final JsonPointer pointer) {
+        if (!(claims instanceof Map<?, ?>)) {
+            throw new InvalidRequestException();
+        }
+        Object current = claims;
+        for (JsonPointer remaining = pointer; !remaining.matches(); remaining = remaining.tail()) {
+            if (current instanceof Map<?, ?> map) {
+                current = map.get(remaining.getMatchingProperty());
+            } else if (current instanceof List<?> list && remaining.getMatchingIndex() >= 0 && remaining.getMatchingIndex() < list.size()) {
+                current = list.get(remaining.getMatchingIndex());
+            } else {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    private static Object find(final JsonParser parser, final JsonPointer pointer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new InvalidRequestException();
+        }
+        for (JsonPointer remaining = pointer; !remaining.matches(); remaining = remaining.tail()) {
+            final boolean found = switch (parser.currentToken()) {
+                case START_OBJECT -> seekProperty(parser, remaining.getMatchingProperty());
+                case START_ARRAY -> remaining.getMatchingIndex() >= 0 && seekIndex(parser, remaining.getMatchingIndex());
+                default -> false;
+            };
+            if (!found) {
+                return null;
+            }
+        }
+        // Only the matching value is deserialized
+        return OBJECT_MAPPER.readValue(parser, Object.class);
+    }
+
+    /**
+     * Move the parser from the start of an object to the value of the given property.
+     */
+    private static boolean seekProperty(final JsonParser parser, final String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final boolean matches = name.equals(parser.currentName());
+            parser.nextToken();
+            if (matches) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Move the parser from the start of an array to the element of the given index.
+     */
+    private static boolean seekIndex(final JsonParser parser, final int index) throws IOException {
+        for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+            if (i == index) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache of user claims keyed by user ID.
+ * <p>
+ * Either the parsed claims are cached, or only the encrypted claims document data, so that plaintext claims never stay
+ * in the heap, and they are decrypted and parsed on every read. Claims are invalidated by {@link CacheInvalidationBus},
+ * on this node when written and again after the writing transaction completes, on the other nodes when committed.
+ * A value read before an invalidation is not cached, so a concurrent read cannot put back claims older than the
+ * committed ones.
+ * <p>
+ * Disabled by default. With {@link CacheInvalidationType#LOCAL} invalidation, other nodes keep serving their cached
+ * claims until they expire, so a cluster must use {@link CacheInvalidationType#POLLING} or
+ * {@link CacheInvalidationType#POSTGRESQL}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Component
+@Slf4j
+public class ClaimsCache implements MeterBinder, CacheInvalidationBus.Listener {
+
+    private static final String CACHE_NAME = "claims";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Cache of claims keyed by user ID. {@code null} if caching is disabled.
+     */
+    private final Cache<String, CachedClaims> cache;
+
+    /**
+     * Whether only the encrypted claims are cached.
+     */
+    private final boolean ciphertextOnly;
+
+    /**
+     * Number of invalidations, used to detect values read before an invalidation.
+     */
+    private final AtomicLong invalidationCounter = new AtomicLong();
+
+    private final EncryptionService encryptionService;
+
+    public ClaimsCache(
+            @Value("${user-data-store.claims.cache.enabled}") final boolean enabled,
+            @Value("${user-data-store.claims.cache.max-size}") final long maxSize,
+            @Value("${user-data-store.claims.cache.ttl}") final Duration ttl,
+            @Value("${user-data-store.claims.cache.ciphertext-only}") final boolean ciphertextOnly,
+            @Value("${user-data-store.cache.invalidation.type}") final CacheInvalidationType invalidationType,
+            final EncryptionService encryptionService,
+            final CacheInvalidationBus cacheInvalidationBus) {
+
+        if (enabled) {
+            logger.info("Claims cache enabled, maxSize: {}, ttl: {}, ciphertextOnly: {}", maxSize, ttl, ciphertextOnly);
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            if (invalidationType == CacheInvalidationType.LOCAL) {
+                logger.warn("Claims cache enabled with LOCAL invalidation, other nodes serve stale claims for up to {}, "
+                        + "set user-data-store.cache.invalidation.type to POLLING or POSTGRESQL when running more than one node", ttl);
+            }
+        } else {
+            logger.info("Claims cache disabled");
+            this.cache = null;
+        }
+        this.ciphertextOnly = ciphertextOnly;
+        this.encryptionService = encryptionService;
+        if (cache != null) {
+            cacheInvalidationBus.subscribe(this);
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        }
+    }
+
+    /**
+     * Return the claims of the given user, either cached or read by the given loader and cached.
+     * The returned claims are shared and must not be modified.
+     *
+     * @param userId user identifier
+     * @param loader loader of the claims document
+     * @return parsed claims or empty if the user has no claims
+     */
+    public Optional<Object> get(final String userId, final Function<String, Optional<DocumentEntity>> loader) {
+        return getClaims(userId, loader).map(Claims::value);
+    }
+
+    /**
+     * Return the claims of the given user, either cached or read by the given loader and cached.
+     * Unless parsed claims are cached, the claims are returned as JSON, so that a single claim can be looked up without
+     * parsing the whole claims.
+     *
+     * @param userId user identifier
+     * @param loader loader of the claims document
+     * @return claims or empty if the user has no claims
+     */
+    public Optional<Claims> getClaims(final String userId, final Function<String, Optional<DocumentEntity>> loader) {
+        if (cache == null) {
+            return loader.apply(userId).map(entity -> Claims.ofJson(() -> encryptionService.decryptDocumentData(entity), etag(entity)));
+        }
+        final CachedClaims cachedClaims = cache.getIfPresent(userId);
+        if (cachedClaims != null) {
+            return Optional.of(cachedClaims.claims() != null
+                    ? Claims.ofParsed(cachedClaims.claims(), cachedClaims.etag())
+                    : Claims.ofJson(() -> encryptionService.decryptDocumentData(cachedClaims.encryptedDocument()), cachedClaims.etag()));
+        }
+        // Obtained before the read, a value read before a concurrent invalidation is not cached
+        final long invalidations = invalidationCounter.get();
+        return loader.apply(userId).map(entity -> {
+            final boolean cacheable = invalidationCounter.get() == invalidations;
+            final String etag = etag(entity);
+            if (ciphertextOnly) {
+                if (cacheable) {
+                    cache.put(userId, new CachedClaims(null, copyEncrypted(entity), etag));
+                }
+                return Claims.ofJson(() -> encryptionService.decryptDocumentData(entity), etag);
+            }
+            final Object claims = decrypt(entity);
+            if (claims != null && cacheable) {
+                cache.put(userId, new CachedClaims(claims, null, etag));
+            }
+            return claims != null ? Claims.ofParsed(claims, etag) : null;
+        });
+    }
+
+    @Override
+    public void invalidate(final String userId) {
+        invalidationCounter.incrementAndGet();
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        invalidationCounter.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private Object decrypt(final DocumentEntity entity) {
+        try {
+            return OBJECT_MAPPER.readValue(encryptionService.decryptDocumentData(entity), Object.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException(e);
+        }
+    }
+
+    private static String etag(final DocumentEntity entity) {
+        return ETags.of(List.of(entity), DocumentEntity::getId, DocumentEntity::getVersion);
+    }
+
+    private static DocumentEntity copyEncrypted(final DocumentEntity entity) {
+        final DocumentEntity copy = new DocumentEntity();
+        copy.setUserId(entity.getUserId());
+        copy.setDocumentData(entity.getDocumentData());
+        copy.setEncryptionMode(entity.getEncryptionMode());
+        return copy;
+    }
+
+    /**
+     * Cached claims, either parsed or encrypted.
+     *
+     * @param claims parsed claims, {@code null} if only the encrypted claims are cached
+     * @param encryptedDocument detached copy of the claims document with the encrypted data
+     * @param etag entity tag of the claims
+     */
+    private record CachedClaims(Object claims, DocumentEntity encryptedDocument, String etag) {
+    }
+
+}
@@ -19,6 +19,7 @@ package com.wultra.security.userdatastore.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wultra.core.audit.base.Audit;
 import com.wultra.core.audit.base.model.AuditDetail;
@@ -37,6 +38,7 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 /**
  * Service for manipulating claims.
@@ -55,26 +57,33 @@ public class ClaimsService {
     private final DocumentRepository documentRepository;
     private final Audit audit;
     private final EncryptionService encryptionService;
+    private final ClaimsCache claimsCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * Return the entity tag of the claims returned by {@link #fetchClaims(String, Optional)}. Cached claims are not
+     * decrypted, so that a matching {@code If-None-Match} reads no claims data.
+     *
+     * @param userId user identifier
+     * @return quoted entity tag
+     */
+    @Transactional(readOnly = true)
+    public String fetchClaimsETag(final String userId) {
+        final Claims claims = findClaims(userId);
+        audit("action: fetchClaimsETag, userId: {}", userId);
+        return claims.etag();
+    }
+
     @Transactional(readOnly = true)
     public Object fetchClaims(final String userId, final Optional<String> claim) {
-        final String claims = readClaims(userId);
+        final Claims claims = findClaims(userId);
         if (claim.isEmpty()) {
             audit("action: fetchClaims, userId: {}", userId);
-            try {
-                return objectMapper.<Map<String, Object>>readValue(claims, new TypeReference<>() {});
-            } catch (JsonProcessingException e) {
-                throw new InvalidRequestException(e);
-            }
-        }
-        try {
-            audit("action: fetchClaims, userId: {}, claim: {}", userId, claim.get());
-            final Map<String, Object> claimMap = objectMapper.readValue(claims, new TypeReference<>() {});
-            return claimMap.get(claim.get());
-        } catch (JsonProcessingException e) {
-            throw new InvalidRequestException(e);
+            return toMap(claims);
         }
+        audit("action: fetchClaims, userId: {}, claim: {}", userId, claim.get());
+        return claims.find(Claims.toPointer(claim.get()));
     }
 
     @Transactional
@@ -85,6 +94,7 @@ public class ClaimsService {
         } catch (JsonProcessingException e) {
             throw new InvalidRequestException(e);
         }
+        cacheInvalidationBus.publish(userId);
         documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE).stream().findAny()
                 .ifPresentOrElse(entity -> {
                             throw new ResourceAlreadyExistsException("Claims for user '%s' already exist".formatted(userId));
@@ -107,15 +117,17 @@ public class ClaimsService {
     }
 
     @Transactional
-    public void updateClaims(final String userId, final Object claims) {
+    public void updateClaims(final String userId, final Object claims, final Optional<String> ifMatch) {
         final String claimsAsString;
         try {
             claimsAsString = objectMapper.writeValueAsString(claims);
         } catch (JsonProcessingException e) {
             throw new InvalidRequestException(e);
         }
+        cacheInvalidationBus.publish(userId);
         documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE).stream().findAny()
                 .ifPresentOrElse(entity -> {
+                            ETags.checkIfMatch(ifMatch, () -> etag(entity));
                             logger.debug("Updating claims of user ID: {}", userId);
                             encryptionService.encryptDocumentData(entity, claimsAsString);
                             entity.setTimestampLastUpdated(LocalDateTime.now());
@@ -126,11 +138,23 @@ public class ClaimsService {
                         });
     }
 
+    @Transactional
+    public void mergePatchClaims(final String userId, final JsonNode patch, final Optional<String> ifMatch) {
+        patchClaims(userId, ifMatch, claims -> JsonPatches.mergePatch(claims, patch));
+        audit("action: mergePatchClaims, userId: {}", userId);
+    }
+
+    @Transactional
+    public void jsonPatchClaims(final String userId, final JsonNode operations, final Optional<String> ifMatch) {
+        patchClaims(userId, ifMatch, claims -> JsonPatches.jsonPatch(claims, operations));
+        audit("action: jsonPatchClaims, userId: {}", userId);
+    }
+
     @Transactional
     public void deleteClaims(final String userId, final String claim) {
+        cacheInvalidationBus.publish(userId);
         if (!StringUtils.hasText(claim)) {
-            final List<DocumentEntity> toDelete = documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE);
-            documentRepository.deleteAll(toDelete);
+            documentRepository.deleteAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE);
             audit("action: deleteClaims, userId: {}", userId);
             return;
         }
@@ -154,15 +178,47 @@ public class ClaimsService {
                 () -> logger.debug("Delete request ignored, no claims found for user ID: {}", userId));
     }
 
-    private String readClaims(final String userId) {
-        return documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE)
-                .stream()
-                .map(encryptionService::decryptDocumentData)
-                .findFirst()
+    private void patchClaims(final String userId, final Optional<String> ifMatch, final UnaryOperator<JsonNode> patcher) {
+        cacheInvalidationBus.publish(userId);
+        final DocumentEntity entity = findClaimsDocument(userId).orElseThrow(() ->
+                new ResourceNotFoundException("Claims for user '%s' do not exist".formatted(userId)));
+        ETags.checkIfMatch(ifMatch, () -> etag(entity));
+        logger.debug("Patching claims of user ID: {}", userId);
+        try {
+            final JsonNode claims = objectMapper.readTree(encryptionService.decryptDocumentData(entity));
+            final JsonNode patched = patcher.apply(claims);
+            if (!patched.isObject()) {
+                throw new InvalidRequestException("Patched claims must be a JSON object");
+            }
+            encryptionService.encryptDocumentData(entity, objectMapper.writeValueAsString(patched));
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException(e);
+        }
+        entity.setTimestampLastUpdated(LocalDateTime.now());
+        documentRepository.save(entity);
+    }
+
+    private static Map<?, ?> toMap(final Claims claims) {
+        if (claims.value() instanceof Map<?, ?> claimMap) {
+            return claimMap;
+        }
+        throw new InvalidRequestException();
+    }
+
+    private static String etag(final DocumentEntity entity) {
+        return ETags.of(List.of(entity), DocumentEntity::getId, DocumentEntity::getVersion);
+    }
+
+    private Claims findClaims(final String userId) {
+        return claimsCache.getClaims(userId, this::findClaimsDocument)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Claims for user ID: '%s' not found".formatted(userId)));
     }
 
+    private Optional<DocumentEntity> findClaimsDocument(final String userId) {
+        return documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE).stream().findFirst();
+    }
+
     private void audit(final String message, final String userId) {
         final String loggedUsername = Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
                 .map(Authentication::getName)
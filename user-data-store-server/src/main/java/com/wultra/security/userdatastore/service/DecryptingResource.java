@@ -0,0 +1,189 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import org.springframework.core.io.AbstractResource;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * Resource decrypting AES/CBC encrypted data ({@code iv || ciphertext}) while it is being read.
+ * <p>
+ * Skipping is done by restarting the decryption at the target cipher block, so HTTP range requests
+ * do not decrypt the data preceding the requested range.
+ * <p>
+ * Each stream is measured from its opening to its closing, the number of decrypted bytes is passed to the given
+ * {@link DecryptionRecorder} when the stream is closed.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+final class DecryptingResource extends AbstractResource {
+
+    private static final String TRANSFORMATION = "AES/CBC/PKCS7Padding";
+    private static final String PROVIDER = "BC";
+    private static final int BLOCK_SIZE = 16;
+
+    private final byte[] encryptedData;
+    private final SecretKey secretKey;
+    private final long contentLength;
+    private final String description;
+    private final DecryptionRecorder recorder;
+
+    /**
+     * Create the resource.
+     *
+     * @param encryptedData IV followed by the ciphertext
+     * @param secretKey decryption key
+     * @param contentLength length of the decrypted data
+     * @param description resource description
+     * @param recorder recorder of the decryption, called when a stream is closed
+     */
+    DecryptingResource(final byte[] encryptedData, final SecretKey secretKey, final long contentLength, final String description,
+                       final DecryptionRecorder recorder) {
+        this.encryptedData = encryptedData;
+        this.secretKey = secretKey;
+        this.contentLength = contentLength;
+        this.description = description;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new DecryptingInputStream();
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    private InputStream openAtBlock(final long block) throws IOException {
+        // In CBC mode, the IV of a block is the previous ciphertext block (the real IV for the first one).
+        final int ivOffset = Math.toIntExact(block * BLOCK_SIZE);
+        final int dataOffset = ivOffset + BLOCK_SIZE;
+        try {
+            final Cipher cipher = Cipher.getInstance(TRANSFORMATION, PROVIDER);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(encryptedData, ivOffset, BLOCK_SIZE));
+            return new CipherInputStream(new ByteArrayInputStream(encryptedData, dataOffset, encryptedData.length - dataOffset), cipher);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Unable to initialize decryption of " + description, e);
+        }
+    }
+
+    /**
+     * Recorder of the decryption of a stream.
+     */
+    @FunctionalInterface
+    interface DecryptionRecorder {
+
+        /**
+         * Record the decryption of a closed stream.
+         *
+         * @param start opening of the stream, see {@link System#nanoTime()}
+         * @param event JFR event begun at the opening of the stream
+         * @param decryptedBytes number of decrypted bytes
+         */
+        void record(long start, EncryptionEvent event, long decryptedBytes);
+    }
+
+    private final class DecryptingInputStream extends InputStream {
+
+        private final long start = System.nanoTime();
+        private final EncryptionEvent event = new EncryptionEvent();
+        private InputStream delegate;
+        private long position;
+        private long decryptedBytes;
+        private boolean closed;
+
+        private DecryptingInputStream() throws IOException {
+            event.begin();
+            this.delegate = openAtBlock(0);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = delegate.read();
+            if (result != -1) {
+                position++;
+                decryptedBytes++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int count = delegate.read(b, off, len);
+            if (count > 0) {
+                position += count;
+                decryptedBytes += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            final long target = Math.min(position + n, contentLength);
+            final long block = target / BLOCK_SIZE;
+            delegate.close();
+            delegate = openAtBlock(block);
+            final long skipped = target - position;
+            position = block * BLOCK_SIZE;
+            final int remainder = (int) (target - position);
+            if (delegate.readNBytes(remainder).length != remainder) {
+                throw new IOException("Unexpected end of " + description);
+            }
+            decryptedBytes += remainder;
+            position = target;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                delegate.close();
+            } finally {
+                recorder.record(start, event, decryptedBytes);
+            }
+        }
+    }
+
+}
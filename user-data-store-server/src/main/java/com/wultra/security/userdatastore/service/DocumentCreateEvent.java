@@ -0,0 +1,47 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of creating a document with its embedded photos and attachments.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Name("com.wultra.security.userdatastore.DocumentCreate")
+@Label("Document Create")
+@Category({"User Data Store", "Document"})
+@Description("Creating a document with its embedded photos and attachments")
+@StackTrace(false)
+final class DocumentCreateEvent extends Event {
+
+    @Label("Photos")
+    @Description("Number of embedded photos")
+    int photoCount;
+
+    @Label("Attachments")
+    @Description("Number of embedded attachments")
+    int attachmentCount;
+
+}
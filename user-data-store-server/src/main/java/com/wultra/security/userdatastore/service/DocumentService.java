@@ -24,9 +24,13 @@ import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequ
 import com.wultra.security.userdatastore.client.model.request.DocumentUpdateRequest;
 import com.wultra.security.userdatastore.client.model.response.*;
 import com.wultra.security.userdatastore.converter.DocumentConverter;
+import com.wultra.security.userdatastore.model.entity.AttachmentEntity;
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
 import com.wultra.security.userdatastore.model.entity.DocumentHistoryEntity;
+import com.wultra.security.userdatastore.model.entity.PhotoEntity;
 import com.wultra.security.userdatastore.model.error.ResourceNotFoundException;
+import com.wultra.security.userdatastore.model.projection.DocumentMetadata;
+import com.wultra.security.userdatastore.model.projection.EntityVersion;
 import com.wultra.security.userdatastore.model.repository.DocumentHistoryRepository;
 import com.wultra.security.userdatastore.model.repository.DocumentRepository;
 import lombok.AllArgsConstructor;
@@ -57,6 +61,27 @@ public class DocumentService {
     private final PhotoService photoService;
     private final AttachmentService attachmentService;
     private final DocumentConverter documentConverter;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * Return the entity tag of the documents returned by {@link #fetchDocuments(String, Optional)}. It is computed from
+     * identifiers and versions only, so that a matching {@code If-None-Match} reads no document data.
+     *
+     * @param userId user identifier
+     * @param documentId optional document identifier
+     * @return quoted entity tag
+     */
+    @Transactional(readOnly = true)
+    public String fetchDocumentsETag(final String userId, final Optional<String> documentId) {
+        if (documentId.isPresent()) {
+            final EntityVersion documentVersion = documentRepository.findVersionById(documentId.get()).orElseThrow(
+                    () -> new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get())));
+            audit("action: fetchDocumentsETag, userId: {}, documentId: {}", userId, documentId.get());
+            return etag(List.of(documentVersion));
+        }
+        audit("action: fetchDocumentsETag, userId: {}", userId, null);
+        return etag(documentRepository.findVersionsByUserId(userId));
+    }
 
     @Transactional(readOnly = true)
     public DocumentResponse fetchDocuments(final String userId, final Optional<String> documentId) {
@@ -67,17 +92,76 @@ public class DocumentService {
             audit("action: fetchDocuments, userId: {}, documentId: {}", userId, documentId.get());
             return new DocumentResponse(Collections.singletonList(document));
         }
-        final List<DocumentEntity> documentEntities = documentRepository.findAllByUserId(userId);
-        final List<DocumentDto> documents = documentEntities.stream().map(documentConverter::toDocument).toList();
         audit("action: fetchDocuments, userId: {}", userId, null);
+        final List<DocumentDto> documents = documentRepository.findAllByUserId(userId).stream().map(documentConverter::toDocument).toList();
         return new DocumentResponse(documents);
     }
 
+    @Transactional(readOnly = true)
+    public DocumentResponse fetchDocumentsMetadata(final String userId, final Optional<String> documentId) {
+        if (documentId.isPresent()) {
+            final DocumentMetadata documentMetadata = documentRepository.findMetadataById(documentId.get()).orElseThrow(
+                    () -> new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get())));
+            final DocumentDto document = documentConverter.toDocument(documentMetadata);
+            audit("action: fetchDocumentsMetadata, userId: {}, documentId: {}", userId, documentId.get());
+            return new DocumentResponse(Collections.singletonList(document));
+        }
+        final List<DocumentDto> documents = documentRepository.findAllMetadataByUserId(userId).stream()
+                .map(documentConverter::toDocument)
+                .toList();
+        audit("action: fetchDocumentsMetadata, userId: {}", userId, null);
+        return new DocumentResponse(documents);
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentResponse fetchDocumentsPage(final String userId, final Optional<Integer> limit, final Optional<String> cursor) {
+        final Optional<KeysetCursor> keysetCursor = KeysetCursor.parse(cursor);
+        final int pageSize = limit.orElse(KeysetCursor.DEFAULT_LIMIT);
+        final List<DocumentEntity> documentEntities = keysetCursor.isEmpty()
+                ? documentRepository.findInitialPageByUserId(userId, KeysetCursor.queryLimit(pageSize))
+                : documentRepository.findPageByUserId(userId, keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        final List<DocumentDto> documents = documentEntities.stream().limit(pageSize).map(documentConverter::toDocument).toList();
+        audit("action: fetchDocuments, userId: {}", userId, null);
+        return new DocumentResponse(documents, KeysetCursor.next(documentEntities, pageSize, DocumentEntity::getTimestampCreated, DocumentEntity::getId));
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentResponse fetchDocumentsMetadataPage(final String userId, final Optional<Integer> limit, final Optional<String> cursor) {
+        final Optional<KeysetCursor> keysetCursor = KeysetCursor.parse(cursor);
+        final int pageSize = limit.orElse(KeysetCursor.DEFAULT_LIMIT);
+        final List<DocumentMetadata> documentsMetadata = keysetCursor.isEmpty()
+                ? documentRepository.findInitialMetadataPageByUserId(userId, KeysetCursor.queryLimit(pageSize))
+                : documentRepository.findMetadataPageByUserId(userId, keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        final List<DocumentDto> documents = documentsMetadata.stream().limit(pageSize).map(documentConverter::toDocument).toList();
+        audit("action: fetchDocumentsMetadata, userId: {}", userId, null);
+        return new DocumentResponse(documents, KeysetCursor.next(documentsMetadata, pageSize, DocumentMetadata::getTimestampCreated, DocumentMetadata::getId));
+    }
+
     @Transactional
     public DocumentCreateResponse createDocument(final DocumentCreateRequest request) {
+        final DocumentCreateEvent event = new DocumentCreateEvent();
+        event.begin();
+        final DocumentCreateResponse response = saveDocuments(List.of(newDocument(request))).get(0);
+        event.end();
+        if (event.shouldCommit()) {
+            event.photoCount = response.photos().size();
+            event.attachmentCount = response.attachments().size();
+            event.commit();
+        }
+        return response;
+    }
+
+    /**
+     * Prepare the document with its history and embedded photos and attachments, encrypting their data without persisting them.
+     * Does not touch the persistence context, so documents may be prepared in parallel by any thread.
+     *
+     * @param request document create request
+     * @return new document
+     */
+    public NewDocument newDocument(final DocumentCreateRequest request) {
         final String userId = request.userId();
         logger.debug("Creating document for user ID: {}", userId);
-        DocumentEntity documentEntity = new DocumentEntity();
+        final DocumentEntity documentEntity = new DocumentEntity();
         documentEntity.setId(UUID.randomUUID().toString());
         documentEntity.setUserId(userId);
         documentEntity.setDocumentType(request.documentType());
@@ -86,40 +170,56 @@ public class DocumentService {
         documentEntity.setExternalId(request.externalId());
         encryptionService.encryptDocumentData(documentEntity, request.documentData());
         documentConverter.convertAndSetAttributes(request.attributes(), documentEntity);
+        documentEntity.setTimestampCreated(LocalDateTime.now());
 
-        final LocalDateTime timestamp = LocalDateTime.now();
-        documentEntity.setTimestampCreated(timestamp);
-
-        documentEntity = documentRepository.save(documentEntity);
-        updateDocumentHistory(documentEntity);
-        audit("action: createDocument, userId: {}, documentId: {}", userId, documentEntity.getId());
-
-        final DocumentEntity documentEntityFinal = documentEntity;
+        final List<PhotoEntity> photoEntities = CollectionUtils.isEmpty(request.photos())
+                ? Collections.emptyList()
+                : photoService.newPhotos(request.photos(), documentEntity);
+        final List<AttachmentEntity> attachmentEntities = CollectionUtils.isEmpty(request.attachments())
+                ? Collections.emptyList()
+                : attachmentService.newAttachments(request.attachments(), documentEntity);
+        return new NewDocument(documentEntity, newDocumentHistory(documentEntity), photoEntities, attachmentEntities);
+    }
 
-        final List<EmbeddedPhotoCreateResponse> photosResponse = new ArrayList<>();
-        if (!CollectionUtils.isEmpty(request.photos())) {
-            photosResponse.addAll(request.photos().stream()
-                    .map(photoRequest -> photoService.createPhoto(photoRequest, documentEntityFinal))
-                    .map(response -> new EmbeddedPhotoCreateResponse(response.id()))
-                    .toList());
-        }
+    /**
+     * Save the new documents at once, so that the inserts of each table are batched.
+     *
+     * @param documents new documents
+     * @return created documents in the given order
+     */
+    @Transactional
+    public List<DocumentCreateResponse> saveDocuments(final List<NewDocument> documents) {
+        // The documents may be claims
+        documents.stream()
+                .map(document -> document.document().getUserId())
+                .distinct()
+                .forEach(cacheInvalidationBus::publish);
+        documentRepository.saveAll(documents.stream().map(NewDocument::document).toList());
+        documentHistoryRepository.saveAll(documents.stream().map(NewDocument::history).toList());
+        documents.forEach(document ->
+                audit("action: createDocument, userId: {}, documentId: {}", document.document().getUserId(), document.document().getId()));
+        photoService.savePhotos(documents.stream().flatMap(document -> document.photos().stream()).toList());
+        attachmentService.saveAttachments(documents.stream().flatMap(document -> document.attachments().stream()).toList());
 
-        final List<EmbeddedAttachmentCreateResponse> attachmentsResponse = new ArrayList<>();
-        if (!CollectionUtils.isEmpty(request.attachments())) {
-            attachmentsResponse.addAll(request.attachments().stream()
-                    .map(attachmentRequest -> attachmentService.createAttachment(attachmentRequest, documentEntityFinal))
-                    .map(response -> new EmbeddedAttachmentCreateResponse(response.id()))
-                    .toList());
-        }
-        return new DocumentCreateResponse(documentEntity.getId(), documentEntity.getDocumentDataId(), photosResponse, attachmentsResponse);
+        return documents.stream()
+                .map(document -> new DocumentCreateResponse(
+                        document.document().getId(),
+                        document.document().getDocumentDataId(),
+                        document.photos().stream().map(photoEntity -> new EmbeddedPhotoCreateResponse(photoEntity.getId())).toList(),
+                        document.attachments().stream().map(attachmentEntity -> new EmbeddedAttachmentCreateResponse(attachmentEntity.getId())).toList()))
+                .toList();
     }
 
     @Transactional
-    public void updateDocument(final String documentId, final DocumentUpdateRequest request) {
+    public void updateDocument(final String documentId, final DocumentUpdateRequest request, final Optional<String> ifMatch) {
         final String userId = request.userId();
         logger.debug("Updating document for user ID: {}", userId);
         final DocumentEntity documentEntity = documentRepository.findById(documentId).orElseThrow(
                 () -> new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId)));
+        ETags.checkIfMatch(ifMatch, () -> ETags.of(documentEntity.getId(), documentEntity.getVersion()));
+        // The document may be claims, possibly moved to another user
+        cacheInvalidationBus.publish(documentEntity.getUserId());
+        cacheInvalidationBus.publish(userId);
         documentEntity.setUserId(userId);
         documentEntity.setDocumentType(request.documentType());
         documentEntity.setDataType(request.dataType());
@@ -138,6 +238,7 @@ public class DocumentService {
 
     @Transactional
     public void deleteDocuments(final String userId, final Optional<String> documentId) {
+        cacheInvalidationBus.publish(userId);
         photoService.deletePhotos(userId, documentId);
         attachmentService.deleteAttachments(userId, documentId);
         if (documentId.isPresent()) {
@@ -151,6 +252,10 @@ public class DocumentService {
         audit("action: deleteDocuments, userId: {}", userId, null);
     }
 
+    private static String etag(final List<EntityVersion> versions) {
+        return ETags.of(versions, EntityVersion::getId, EntityVersion::getVersion);
+    }
+
     private void audit(final String message, final String userId, final String documentId) {
         final String loggedUsername = Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
                 .map(Authentication::getName)
@@ -165,6 +270,10 @@ public class DocumentService {
     }
 
     private void updateDocumentHistory(final DocumentEntity documentEntity) {
+        documentHistoryRepository.save(newDocumentHistory(documentEntity));
+    }
+
+    private static DocumentHistoryEntity newDocumentHistory(final DocumentEntity documentEntity) {
         final DocumentHistoryEntity historyEntity = new DocumentHistoryEntity();
         historyEntity.setId(UUID.randomUUID().toString());
         historyEntity.setDocumentId(documentEntity.getId());
@@ -177,6 +286,21 @@ public class DocumentService {
         historyEntity.setEncryptionMode(documentEntity.getEncryptionMode());
         historyEntity.setAttributes(documentEntity.getAttributes());
         historyEntity.setTimestampCreated(LocalDateTime.now());
-        documentHistoryRepository.save(historyEntity);
+        return historyEntity;
     }
+
+    /**
+     * Document prepared to be saved, with encrypted data.
+     *
+     * @param document document entity
+     * @param history history entity of the document
+     * @param photos embedded photo entities
+     * @param attachments embedded attachment entities
+     */
+    public record NewDocument(
+            DocumentEntity document,
+            DocumentHistoryEntity history,
+            List<PhotoEntity> photos,
+            List<AttachmentEntity> attachments
+    ) {}
 }
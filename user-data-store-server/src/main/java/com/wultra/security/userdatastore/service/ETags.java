@@ -0,0 +1,98 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.model.error.PreconditionFailedException;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Entity tags of versioned entities, used for conditional requests.
+ * <p>
+ * A strong entity tag is derived from identifiers and versions of the returned entities, so it is known before the
+ * entities are decrypted and it is the same on all nodes.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+public final class ETags {
+
+    private static final String ANY = "*";
+
+    private ETags() {
+        throw new IllegalStateException("Should not be instantiated");
+    }
+
+    /**
+     * Compute the entity tag of the given entities. The entities are sorted by the identifier, so the entity tag does not
+     * depend on the order in which they have been read.
+     *
+     * @param entities entities in any order
+     * @param id identifier of an entity
+     * @param version version of an entity
+     * @param <T> type of entities
+     * @return quoted entity tag
+     */
+    public static <T> String of(final Collection<T> entities, final Function<T, String> id, final ToLongFunction<T> version) {
+        final String content = entities.stream()
+                .map(entity -> id.apply(entity) + ':' + version.applyAsLong(entity) + ';')
+                .sorted()
+                .collect(Collectors.joining());
+        return '"' + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /**
+     * Compute the entity tag of a single entity, equal to the entity tag of a collection of just this entity.
+     *
+     * @param id identifier of the entity
+     * @param version version of the entity
+     * @return quoted entity tag
+     */
+    public static String of(final String id, final long version) {
+        return of(List.of(id), Function.identity(), it -> version);
+    }
+
+    /**
+     * Check the {@code If-Match} header against the current entity tag using the strong comparison.
+     *
+     * @param ifMatch value of the {@code If-Match} header, empty if not present
+     * @param etag supplier of the current entity tag, called only if the header is present
+     * @throws PreconditionFailedException if the header does not match
+     */
+    static void checkIfMatch(final Optional<String> ifMatch, final Supplier<String> etag) {
+        if (ifMatch.isEmpty()) {
+            return;
+        }
+        final String current = etag.get();
+        final boolean matches = Arrays.stream(ifMatch.get().split(","))
+                .map(String::trim)
+                .anyMatch(it -> ANY.equals(it) || current.equals(it));
+        if (!matches) {
+            throw new PreconditionFailedException("Resource was modified, current ETag: %s".formatted(current));
+        }
+    }
+
+}
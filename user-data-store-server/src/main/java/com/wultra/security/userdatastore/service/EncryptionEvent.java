@@ -0,0 +1,55 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of encryption or decryption of database data.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Name("com.wultra.security.userdatastore.Encryption")
+@Label("Encryption")
+@Category({"User Data Store", "Encryption"})
+@Description("Encryption or decryption of database data")
+@StackTrace(false)
+final class EncryptionEvent extends Event {
+
+    @Label("Operation")
+    @Description("Encrypt or decrypt")
+    String operation;
+
+    @Label("Entity")
+    @Description("Type of the entity")
+    String entity;
+
+    @Label("Mode")
+    @Description("Encryption mode of the entity")
+    String mode;
+
+    @Label("Size")
+    @Description("Length of the plaintext data in characters")
+    long size;
+
+}
@@ -17,15 +17,24 @@
  */
 package com.wultra.security.userdatastore.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.wultra.security.userdatastore.model.entity.*;
 import com.wultra.security.userdatastore.model.error.EncryptionException;
 import io.getlime.security.powerauth.crypto.lib.generator.KeyGenerator;
 import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
 import io.getlime.security.powerauth.crypto.lib.model.exception.GenericCryptoException;
 import io.getlime.security.powerauth.crypto.lib.util.AESEncryptionUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -36,30 +45,145 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for encryption and decryption database data.
+ * <p>
+ * Once bound to a meter registry, the duration of encryption and decryption is published as the timer
+ * {@code uds.encryption.duration} and the length of the plaintext data as the distribution summary
+ * {@code uds.encryption.payload.size}, both tagged with the operation, the entity type, and the encryption mode.
+ * Derivation of keys not found in the cache is published as the timer {@code uds.encryption.key.derivation}.
+ * Both are also emitted as JFR events {@link EncryptionEvent} and {@link KeyDerivationEvent}.
  *
  * @author Lubos Racansky, lubos.racansky@wultra.com
  * @author Roman Strobl, roman.strobl@wultra.com
  */
 @Service
 @Slf4j
-public class EncryptionService {
+public class EncryptionService implements MeterBinder {
 
-    private final String masterDbEncryptionKeyBase64;
+    private static final String DERIVED_KEY_CACHE_NAME = "derivedKeys";
+    private static final String METRIC_DURATION = "uds.encryption.duration";
+    private static final String METRIC_PAYLOAD_SIZE = "uds.encryption.payload.size";
+    private static final String METRIC_KEY_DERIVATION = "uds.encryption.key.derivation";
+
+    /**
+     * Master DB encryption key, parsed once during construction. {@code null} if encryption is not configured.
+     */
+    private final SecretKey masterDbEncryptionKey;
+
+    /**
+     * Cache of derived keys keyed by user ID. {@code null} if caching is disabled.
+     */
+    private final Cache<String, DerivedKey> derivedKeyCache;
+
+    /**
+     * Whether Base64 encoded photos and attachments are decoded and stored encrypted in binary columns.
+     */
+    private final boolean binaryStorageEnabled;
+
+    /**
+     * Meters indexed by the operation, the entity type, and the encryption mode. {@code null} until bound to a meter registry.
+     */
+    private volatile EncryptionMeters[][][] encryptionMeters;
+
+    /**
+     * Timer of key derivation. {@code null} until bound to a meter registry.
+     */
+    private volatile Timer keyDerivationTimer;
 
     private final KeyGenerator keyGenerator = new KeyGenerator();
     private final AESEncryptionUtils aesEncryptionUtils = new AESEncryptionUtils();
 
+    /**
+     * Create the service with the default derived key cache settings.
+     *
+     * @param masterDbEncryptionKeyBase64 Base64 encoded master DB encryption key, empty value means no encryption.
+     */
+    public EncryptionService(final String masterDbEncryptionKeyBase64) {
+        this(masterDbEncryptionKeyBase64, true, 10_000, Duration.ofMinutes(10), false);
+    }
+
+    /**
+     * Create the service.
+     *
+     * @param masterDbEncryptionKeyBase64 Base64 encoded master DB encryption key, empty value means no encryption.
+     * @param keyCacheEnabled Whether keys derived for a user ID are cached.
+     * @param keyCacheMaxSize Maximum number of cached derived keys.
+     * @param keyCacheTtl Time to live of a cached derived key.
+     * @param binaryStorageEnabled Whether Base64 encoded photos and attachments are stored encrypted in binary columns.
+     */
     @Autowired
-    public EncryptionService(@Value("${user-data-store.db.master.encryption.key}") String masterDbEncryptionKeyBase64) {
+    public EncryptionService(
+            @Value("${user-data-store.db.master.encryption.key}") final String masterDbEncryptionKeyBase64,
+            @Value("${user-data-store.db.encryption.key-cache.enabled}") final boolean keyCacheEnabled,
+            @Value("${user-data-store.db.encryption.key-cache.max-size}") final long keyCacheMaxSize,
+            @Value("${user-data-store.db.encryption.key-cache.ttl}") final Duration keyCacheTtl,
+            @Value("${user-data-store.db.encryption.binary-storage.enabled}") final boolean binaryStorageEnabled) {
+
         if (!StringUtils.hasText(masterDbEncryptionKeyBase64)) {
             logger.warn("masterDbEncryptionKey is not configured, claims will be stored in plain text");
+            this.masterDbEncryptionKey = null;
+        } else {
+            this.masterDbEncryptionKey = convertBytesToSharedSecretKey(Base64.getDecoder().decode(masterDbEncryptionKeyBase64));
+        }
+
+        if (keyCacheEnabled) {
+            logger.info("Derived key cache enabled, maxSize: {}, ttl: {}", keyCacheMaxSize, keyCacheTtl);
+            this.derivedKeyCache = Caffeine.newBuilder()
+                    .maximumSize(keyCacheMaxSize)
+                    .expireAfterWrite(keyCacheTtl)
+                    .<String, DerivedKey>removalListener((userId, derivedKey, cause) -> {
+                        if (derivedKey != null) {
+                            derivedKey.destroy();
+                        }
+                    })
+                    .recordStats()
+                    .build();
+        } else {
+            logger.info("Derived key cache disabled");
+            this.derivedKeyCache = null;
         }
-        this.masterDbEncryptionKeyBase64 = masterDbEncryptionKeyBase64;
+
+        this.binaryStorageEnabled = binaryStorageEnabled;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        if (derivedKeyCache != null) {
+            CaffeineCacheMetrics.monitor(registry, derivedKeyCache, DERIVED_KEY_CACHE_NAME);
+        }
+
+        final EncryptionMeters[][][] meters = new EncryptionMeters[Operation.values().length][EntityType.values().length][EncryptionMode.values().length];
+        for (Operation operation : Operation.values()) {
+            for (EntityType entityType : EntityType.values()) {
+                for (EncryptionMode encryptionMode : EncryptionMode.values()) {
+                    meters[operation.ordinal()][entityType.ordinal()][encryptionMode.ordinal()] = new EncryptionMeters(
+                            Timer.builder(METRIC_DURATION)
+                                    .description("Duration of encryption and decryption of database data")
+                                    .tag("operation", operation.tagValue())
+                                    .tag("entity", entityType.tagValue())
+                                    .tag("mode", encryptionMode.name())
+                                    .register(registry),
+                            DistributionSummary.builder(METRIC_PAYLOAD_SIZE)
+                                    .description("Length of the plaintext data encrypted or decrypted")
+                                    .baseUnit("characters")
+                                    .tag("operation", operation.tagValue())
+                                    .tag("entity", entityType.tagValue())
+                                    .tag("mode", encryptionMode.name())
+                                    .register(registry));
+                }
+            }
+        }
+        this.encryptionMeters = meters;
+        this.keyDerivationTimer = Timer.builder(METRIC_KEY_DERIVATION)
+                .description("Duration of derivation of keys not found in the cache")
+                .register(registry);
     }
 
     /**
@@ -69,11 +193,17 @@ public class EncryptionService {
      * @return decrypted claims
      */
     public String decryptClaims(final UserClaimsEntity entity) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
         final EncryptionMode encryptionMode = entity.getEncryptionMode();
-        return switch (encryptionMode) {
+        final String claims = switch (encryptionMode) {
             case NO_ENCRYPTION -> entity.getClaims();
             case AES_HMAC -> fromDBValue(entity.getUserId(), entity.getClaims());
+            case AES_HMAC_BINARY -> throw new EncryptionException("Unsupported encryption mode for claims: " + encryptionMode);
         };
+        recordEncryption(start, event, Operation.DECRYPT, EntityType.CLAIMS, encryptionMode, claims);
+        return claims;
     }
 
     /**
@@ -83,11 +213,17 @@ public class EncryptionService {
      * @return decrypted document data
      */
     public String decryptDocumentData(final DocumentEntity entity) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
         final EncryptionMode encryptionMode = entity.getEncryptionMode();
-        return switch (encryptionMode) {
+        final String documentData = switch (encryptionMode) {
             case NO_ENCRYPTION -> entity.getDocumentData();
             case AES_HMAC -> fromDBValue(entity.getUserId(), entity.getDocumentData());
+            case AES_HMAC_BINARY -> throw new EncryptionException("Unsupported encryption mode for document data: " + encryptionMode);
         };
+        recordEncryption(start, event, Operation.DECRYPT, EntityType.DOCUMENT, encryptionMode, documentData);
+        return documentData;
     }
 
     /**
@@ -97,10 +233,40 @@ public class EncryptionService {
      * @return decrypted photo data
      */
     public String decryptPhoto(final PhotoEntity entity) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
         final EncryptionMode encryptionMode = entity.getEncryptionMode();
-        return switch (encryptionMode) {
+        final String photoData = switch (encryptionMode) {
             case NO_ENCRYPTION -> entity.getPhotoData();
             case AES_HMAC -> fromDBValue(entity.getDocument().getUserId(), entity.getPhotoData());
+            case AES_HMAC_BINARY -> fromBinaryDBValue(entity.getDocument().getUserId(), entity.getPhotoDataBinary());
+        };
+        recordEncryption(start, event, Operation.DECRYPT, EntityType.PHOTO, encryptionMode, photoData);
+        return photoData;
+    }
+
+    /**
+     * Decrypt photo data of the given entity into a resource with the decoded binary content of the photo.
+     * <p>
+     * Photos stored in the binary column are decrypted while the resource is being read, the decryption is recorded
+     * when the stream is closed. Photos stored in the text column are decrypted and decoded eagerly.
+     *
+     * @param entity photo entity
+     * @return resource with the binary content of the photo
+     */
+    public Resource decryptPhotoContent(final PhotoEntity entity) {
+        final EncryptionMode encryptionMode = entity.getEncryptionMode();
+        final String description = "photo " + entity.getId();
+        return switch (encryptionMode) {
+            case NO_ENCRYPTION, AES_HMAC -> new ByteArrayResource(decodeBase64(decryptPhoto(entity)), description);
+            case AES_HMAC_BINARY -> {
+                final byte[] encryptedData = entity.getPhotoDataBinary();
+                final SecretKey secretKey = fetchDerivedKey(entity.getDocument().getUserId());
+                // Decrypted bytes are recorded as the length of their Base64 encoding, to match the decryption of the same photo by decryptPhoto
+                yield new DecryptingResource(encryptedData, secretKey, decryptedLength(encryptedData, secretKey), description,
+                        (start, event, decryptedBytes) -> recordEncryption(start, event, Operation.DECRYPT, EntityType.PHOTO, encryptionMode, 4 * ((decryptedBytes + 2) / 3)));
+            }
         };
     }
 
@@ -111,11 +277,17 @@ public class EncryptionService {
      * @return decrypted attachment data
      */
     public String decryptAttachment(final AttachmentEntity entity) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
         final EncryptionMode encryptionMode = entity.getEncryptionMode();
-        return switch (encryptionMode) {
+        final String attachmentData = switch (encryptionMode) {
             case NO_ENCRYPTION -> entity.getAttachmentData();
             case AES_HMAC -> fromDBValue(entity.getDocument().getUserId(), entity.getAttachmentData());
+            case AES_HMAC_BINARY -> fromBinaryDBValue(entity.getDocument().getUserId(), entity.getAttachmentDataBinary());
         };
+        recordEncryption(start, event, Operation.DECRYPT, EntityType.ATTACHMENT, encryptionMode, attachmentData);
+        return attachmentData;
     }
 
     /**
@@ -125,13 +297,17 @@ public class EncryptionService {
      * @param claims claims to encrypt
      */
     public void encryptClaims(final UserClaimsEntity entity, final String claims) {
-        if (!StringUtils.hasText(masterDbEncryptionKeyBase64)) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
+        if (masterDbEncryptionKey == null) {
             entity.setEncryptionMode(EncryptionMode.NO_ENCRYPTION);
             entity.setClaims(claims);
         } else {
             entity.setEncryptionMode(EncryptionMode.AES_HMAC);
             entity.setClaims(toDBValue(entity.getUserId(), claims.getBytes(StandardCharsets.UTF_8)));
         }
+        recordEncryption(start, event, Operation.ENCRYPT, EntityType.CLAIMS, entity.getEncryptionMode(), claims);
     }
 
     /**
@@ -141,48 +317,112 @@ public class EncryptionService {
      * @param documentData document data to encrypt
      */
     public void encryptDocumentData(final DocumentEntity entity, final String documentData) {
-        if (!StringUtils.hasText(masterDbEncryptionKeyBase64)) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
+        if (masterDbEncryptionKey == null) {
             entity.setEncryptionMode(EncryptionMode.NO_ENCRYPTION);
             entity.setDocumentData(documentData);
         } else {
             entity.setEncryptionMode(EncryptionMode.AES_HMAC);
             entity.setDocumentData(toDBValue(entity.getUserId(), documentData.getBytes(StandardCharsets.UTF_8)));
         }
+        recordEncryption(start, event, Operation.ENCRYPT, EntityType.DOCUMENT, entity.getEncryptionMode(), documentData);
     }
 
     /**
      * Encrypt the photo data and set to the given entity.
+     * <p>
+     * When the binary storage is enabled, Base64 encoded photo data is decoded and stored encrypted in the binary column.
      *
      * @param entity photo entity to be modified
      * @param photoData photo data to encrypt
      */
     public void encryptPhoto(final PhotoEntity entity, final String photoData) {
-        if (!StringUtils.hasText(masterDbEncryptionKeyBase64)) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
+        if (masterDbEncryptionKey == null) {
             entity.setEncryptionMode(EncryptionMode.NO_ENCRYPTION);
             entity.setPhotoData(photoData);
+            entity.setPhotoDataBinary(null);
+            recordEncryption(start, event, Operation.ENCRYPT, EntityType.PHOTO, EncryptionMode.NO_ENCRYPTION, photoData);
+            return;
+        }
+
+        final String userId = entity.getDocument().getUserId();
+        final byte[] binaryData = decodeForBinaryStorage(photoData);
+        if (binaryData != null) {
+            entity.setEncryptionMode(EncryptionMode.AES_HMAC_BINARY);
+            entity.setPhotoData(null);
+            entity.setPhotoDataBinary(encrypt(userId, binaryData));
         } else {
             entity.setEncryptionMode(EncryptionMode.AES_HMAC);
-            entity.setPhotoData(toDBValue(entity.getDocument().getUserId(), photoData.getBytes(StandardCharsets.UTF_8)));
+            entity.setPhotoData(toDBValue(userId, photoData.getBytes(StandardCharsets.UTF_8)));
+            entity.setPhotoDataBinary(null);
         }
+        recordEncryption(start, event, Operation.ENCRYPT, EntityType.PHOTO, entity.getEncryptionMode(), photoData);
     }
 
     /**
      * Encrypt the attachment data and set to the given entity.
+     * <p>
+     * When the binary storage is enabled, Base64 encoded attachment data is decoded and stored encrypted in the binary column.
      *
      * @param entity attachment entity to be modified
      * @param attachmentData attachment data to encrypt
      */
     public void encryptAttachment(final AttachmentEntity entity, final String attachmentData) {
-        if (!StringUtils.hasText(masterDbEncryptionKeyBase64)) {
+        final long start = System.nanoTime();
+        final EncryptionEvent event = new EncryptionEvent();
+        event.begin();
+        if (masterDbEncryptionKey == null) {
             entity.setEncryptionMode(EncryptionMode.NO_ENCRYPTION);
             entity.setAttachmentData(attachmentData);
+            entity.setAttachmentDataBinary(null);
+            recordEncryption(start, event, Operation.ENCRYPT, EntityType.ATTACHMENT, EncryptionMode.NO_ENCRYPTION, attachmentData);
+            return;
+        }
+
+        final String userId = entity.getDocument().getUserId();
+        final byte[] binaryData = decodeForBinaryStorage(attachmentData);
+        if (binaryData != null) {
+            entity.setEncryptionMode(EncryptionMode.AES_HMAC_BINARY);
+            entity.setAttachmentData(null);
+            entity.setAttachmentDataBinary(encrypt(userId, binaryData));
         } else {
             entity.setEncryptionMode(EncryptionMode.AES_HMAC);
-            entity.setAttachmentData(toDBValue(entity.getDocument().getUserId(), attachmentData.getBytes(StandardCharsets.UTF_8)));
+            entity.setAttachmentData(toDBValue(userId, attachmentData.getBytes(StandardCharsets.UTF_8)));
+            entity.setAttachmentDataBinary(null);
+        }
+        recordEncryption(start, event, Operation.ENCRYPT, EntityType.ATTACHMENT, entity.getEncryptionMode(), attachmentData);
+    }
+
+    /**
+     * Decode the given data for the binary storage.
+     * Only canonical Base64 is accepted so that decrypted data is encoded back to the identical string.
+     *
+     * @param data data to decode
+     * @return decoded bytes or {@code null} if the binary storage is disabled or the data is not canonical Base64
+     */
+    private byte[] decodeForBinaryStorage(final String data) {
+        if (!binaryStorageEnabled || data == null || data.length() % 4 != 0) {
+            return null;
+        }
+        try {
+            final byte[] decoded = Base64.getDecoder().decode(data);
+            return Base64.getEncoder().encodeToString(decoded).equals(data) ? decoded : null;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Data is not Base64 encoded, using text storage");
+            return null;
         }
     }
 
     private String toDBValue(final String userId, final byte[] dataBytes) {
+        return Base64.getEncoder().encodeToString(encrypt(userId, dataBytes));
+    }
+
+    private byte[] encrypt(final String userId, final byte[] dataBytes) {
         final SecretKey secretKey = fetchDerivedKey(userId);
 
         try {
@@ -191,7 +431,7 @@ public class EncryptionService {
             final ByteArrayOutputStream baos = new ByteArrayOutputStream();
             baos.write(iv);
             baos.write(encrypted);
-            return Base64.getEncoder().encodeToString(baos.toByteArray());
+            return baos.toByteArray();
         } catch (GenericCryptoException | CryptoProviderException | InvalidKeyException | IOException e) {
             logger.error("Unable to encrypt claims for user ID: {}", userId, e);
             throw new EncryptionException("Unable to encrypt claims for user ID: " + userId, e);
@@ -199,10 +439,54 @@ public class EncryptionService {
     }
 
     private String fromDBValue(final String userId, final String data) {
+        final byte[] decrypted = decrypt(userId, Base64.getDecoder().decode(data));
+        return new String(decrypted, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decodeBase64(final String data) {
+        try {
+            return Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new EncryptionException("Unable to decode Base64 data", e);
+        }
+    }
+
+    /**
+     * Compute the length of the plaintext by decrypting only the last cipher block and reading its PKCS#7 padding.
+     *
+     * @param encryptedData IV followed by the ciphertext
+     * @param secretKey decryption key
+     * @return length of the decrypted data
+     */
+    private long decryptedLength(final byte[] encryptedData, final SecretKey secretKey) {
+        final int length = encryptedData == null ? 0 : encryptedData.length;
+        if (length < 32 || length % 16 != 0) {
+            throw new EncryptionException("Invalid encrypted data format - unexpected length of the byte array");
+        }
+
+        // The last block is encrypted with the previous ciphertext block (or IV) in CBC mode
+        final byte[] iv = Arrays.copyOfRange(encryptedData, length - 32, length - 16);
+        final byte[] lastBlock = Arrays.copyOfRange(encryptedData, length - 16, length);
+        try {
+            final byte[] decryptedBlock = aesEncryptionUtils.decrypt(lastBlock, iv, secretKey, "AES/CBC/NoPadding");
+            final int padding = decryptedBlock[15] & 0xFF;
+            if (padding < 1 || padding > 16) {
+                throw new EncryptionException("Invalid encrypted data format - wrong padding");
+            }
+            return length - 16L - padding;
+        } catch (InvalidKeyException | GenericCryptoException | CryptoProviderException e) {
+            throw new EncryptionException("Unable to decrypt data", e);
+        }
+    }
+
+    private String fromBinaryDBValue(final String userId, final byte[] data) {
+        return Base64.getEncoder().encodeToString(decrypt(userId, data));
+    }
+
+    private byte[] decrypt(final String userId, final byte[] dataBytes) {
         final SecretKey secretKey = fetchDerivedKey(userId);
-        final byte[] dataBytes = Base64.getDecoder().decode(data);
 
-        if (dataBytes.length < 16) {
+        if (dataBytes == null || dataBytes.length < 16) {
             throw new EncryptionException("Invalid encrypted private key format - the byte array is too short");
         }
 
@@ -213,8 +497,7 @@ public class EncryptionService {
         final byte[] encryptedClaims = Arrays.copyOfRange(dataBytes, 16, dataBytes.length);
 
         try {
-            final byte[] decryptedClaims = aesEncryptionUtils.decrypt(encryptedClaims, iv, secretKey);
-            return new String(decryptedClaims, StandardCharsets.UTF_8);
+            return aesEncryptionUtils.decrypt(encryptedClaims, iv, secretKey);
         } catch (InvalidKeyException | GenericCryptoException | CryptoProviderException e) {
             logger.error("Unable to decrypt claims for user ID: {}", userId, e);
             throw new EncryptionException("Unable to decrypt claims for user ID: " + userId, e);
@@ -223,11 +506,21 @@ public class EncryptionService {
 
 
     private SecretKey fetchDerivedKey(final String userId) {
-        if (!StringUtils.hasText(masterDbEncryptionKeyBase64)) {
+        if (masterDbEncryptionKey == null) {
             throw new EncryptionException("masterDbEncryptionKey is not configured");
         }
+        Assert.hasText(userId, "userId must not be blank");
 
-        final SecretKey masterDbEncryptionKey = convertBytesToSharedSecretKey(Base64.getDecoder().decode(masterDbEncryptionKeyBase64));
+        if (derivedKeyCache == null) {
+            return deriveSecretKey(masterDbEncryptionKey, userId);
+        }
+
+        final SecretKey cachedKey = derivedKeyCache.get(userId, key -> new DerivedKey(deriveSecretKey(masterDbEncryptionKey, key)))
+                .toSecretKey();
+        if (cachedKey != null) {
+            return cachedKey;
+        }
+        // The cached key has been evicted and destroyed in the meantime, derive it once more without caching.
         return deriveSecretKey(masterDbEncryptionKey, userId);
     }
 
@@ -244,12 +537,114 @@ public class EncryptionService {
      * @see <a href="https://github.com/wultra/powerauth-server/blob/develop/docs/Encrypting-Records-in-Database.md">Encrypting Records in Database</a>
      */
     private SecretKey deriveSecretKey(final SecretKey masterDbEncryptionKey, final String userId) {
-        Assert.hasText(userId, "userId must not be blank");
+        final long start = System.nanoTime();
+        final KeyDerivationEvent event = new KeyDerivationEvent();
+        event.begin();
         final byte[] index = userId.getBytes(StandardCharsets.UTF_8);
         try {
             return keyGenerator.deriveSecretKeyHmac(masterDbEncryptionKey, index);
         } catch (GenericCryptoException | CryptoProviderException e) {
             throw new EncryptionException("Unable to derive key for user ID: " + userId, e);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+            final Timer timer = keyDerivationTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Commit the JFR event of the encryption or decryption and record its duration and payload size, if bound to a meter registry.
+     *
+     * @param start start of the operation, see {@link System#nanoTime()}
+     * @param event JFR event begun at the start of the operation
+     * @param operation encryption or decryption
+     * @param entityType type of the entity
+     * @param encryptionMode encryption mode of the entity
+     * @param data plaintext data
+     */
+    private void recordEncryption(final long start, final EncryptionEvent event, final Operation operation, final EntityType entityType, final EncryptionMode encryptionMode, final String data) {
+        recordEncryption(start, event, operation, entityType, encryptionMode, data == null ? 0 : data.length());
+    }
+
+    /**
+     * Commit the JFR event of the encryption or decryption and record its duration and payload size, if bound to a meter registry.
+     *
+     * @param start start of the operation, see {@link System#nanoTime()}
+     * @param event JFR event begun at the start of the operation
+     * @param operation encryption or decryption
+     * @param entityType type of the entity
+     * @param encryptionMode encryption mode of the entity
+     * @param size length of the plaintext data in characters
+     */
+    private void recordEncryption(final long start, final EncryptionEvent event, final Operation operation, final EntityType entityType, final EncryptionMode encryptionMode, final long size) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.tagValue();
+            event.entity = entityType.tagValue();
+            event.mode = encryptionMode == null ? null : encryptionMode.name();
+            event.size = size;
+            event.commit();
+        }
+        final EncryptionMeters[][][] meters = encryptionMeters;
+        if (meters == null || encryptionMode == null) {
+            return;
+        }
+        final EncryptionMeters encryptionMeter = meters[operation.ordinal()][entityType.ordinal()][encryptionMode.ordinal()];
+        encryptionMeter.duration().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        encryptionMeter.payloadSize().record(size);
+    }
+
+    private enum Operation {
+        ENCRYPT, DECRYPT;
+
+        private String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private enum EntityType {
+        CLAIMS, DOCUMENT, PHOTO, ATTACHMENT;
+
+        private String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record EncryptionMeters(Timer duration, DistributionSummary payloadSize) {
+    }
+
+    /**
+     * Derived key held in the cache. Key bytes are zeroized when the entry is evicted.
+     */
+    private static final class DerivedKey {
+
+        private final byte[] keyBytes;
+        private boolean destroyed;
+
+        private DerivedKey(final SecretKey secretKey) {
+            this.keyBytes = secretKey.getEncoded();
+        }
+
+        /**
+         * Return a secret key backed by a copy of the key bytes.
+         *
+         * @return secret key or {@code null} if the key has already been destroyed
+         */
+        private synchronized SecretKey toSecretKey() {
+            if (destroyed) {
+                return null;
+            }
+            return convertBytesToSharedSecretKey(keyBytes);
+        }
+
+        private synchronized void destroy() {
+            Arrays.fill(keyBytes, (byte) 0);
+            destroyed = true;
         }
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wultra.security.userdatastore.client.model.response.ImportJobResponse;
+import com.wultra.security.userdatastore.model.entity.ImportJobEntity;
+import com.wultra.security.userdatastore.model.entity.ImportJobState;
+import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+import com.wultra.security.userdatastore.model.error.ResourceNotFoundException;
+import com.wultra.security.userdatastore.model.repository.ImportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service for import jobs.
+ * <p>
+ * Running jobs whose progress has not been updated within the stale timeout are considered interrupted,
+ * e.g. by a crash of the node running them, and are resumed from their last checkpoint.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Service
+@Slf4j
+public class ImportJobService {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ImportJobRepository importJobRepository;
+    private final PhotoImportService photoImportService;
+    private final Duration staleTimeout;
+
+    @Autowired
+    public ImportJobService(
+            ImportJobRepository importJobRepository,
+            PhotoImportService photoImportService,
+            @Value("${user-data-store.import.job.stale-timeout}") Duration staleTimeout) {
+        this.importJobRepository = importJobRepository;
+        this.photoImportService = photoImportService;
+        this.staleTimeout = staleTimeout;
+    }
+
+    /**
+     * Create a running job importing photos from the CSV files.
+     *
+     * @param importPaths paths or URLs of the CSV files
+     * @param attributes attributes of the imported photos
+     * @return job identifier
+     */
+    @Transactional
+    public String createCsvJob(final List<String> importPaths, final Map<String, Object> attributes) {
+        final LocalDateTime now = LocalDateTime.now();
+        final ImportJobEntity job = new ImportJobEntity();
+        job.setId(UUID.randomUUID().toString());
+        job.setState(ImportJobState.RUNNING);
+        try {
+            job.setImportPaths(OBJECT_MAPPER.writeValueAsString(importPaths));
+            job.setAttributes(attributes == null ? null : OBJECT_MAPPER.writeValueAsString(attributes));
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException(e);
+        }
+        job.setTimestampCreated(now);
+        job.setTimestampLastUpdated(now);
+        importJobRepository.save(job);
+        logger.info("Created import job, ID: {}, paths: {}", job.getId(), importPaths.size());
+        return job.getId();
+    }
+
+    /**
+     * Delete the job which has not been started.
+     *
+     * @param jobId job identifier
+     */
+    @Transactional
+    public void deleteJob(final String jobId) {
+        importJobRepository.deleteById(jobId);
+        logger.info("Deleted import job, ID: {}", jobId);
+    }
+
+    @Transactional(readOnly = true)
+    public ImportJobResponse fetchImportJob(final String jobId) {
+        final ImportJobEntity job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found, ID: '%s'".formatted(jobId)));
+        return ImportJobResponse.builder()
+                .id(job.getId())
+                .state(job.getState().name())
+                .pathCount(countPaths(job))
+                .pathIndex(job.getPathIndex())
+                .recordPosition(job.getRecordPosition())
+                .processedCount(job.getProcessedCount())
+                .importedCount(job.getImportedCount())
+                .failedCount(job.getFailedCount())
+                .error(job.getError())
+                .timestampCreated(job.getTimestampCreated())
+                .timestampLastUpdated(job.getTimestampLastUpdated())
+                .build();
+    }
+
+    /**
+     * Resume running jobs not updated within the stale timeout. Each job is taken over by a single node.
+     */
+    @Scheduled(fixedDelayString = "${user-data-store.import.job.resume-interval}")
+    public void resumeStaleJobs() {
+        final LocalDateTime staleBefore = LocalDateTime.now().minus(staleTimeout);
+        importJobRepository.findAllByStateAndTimestampLastUpdatedBefore(ImportJobState.RUNNING, staleBefore).stream()
+                .map(ImportJobEntity::getId)
+                .filter(jobId -> photoImportService.takeOverStaleJob(jobId, staleBefore))
+                .forEach(jobId -> {
+                    logger.info("Resuming stale import job, ID: {}", jobId);
+                    try {
+                        photoImportService.importCsvJob(jobId);
+                    } catch (TaskRejectedException e) {
+                        logger.warn("Import executor saturated, job will be resumed later, ID: {}", jobId);
+                    }
+                });
+    }
+
+    private static int countPaths(final ImportJobEntity job) {
+        try {
+            return OBJECT_MAPPER.readValue(job.getImportPaths(), new TypeReference<List<String>>() {}).size();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid import paths of job ID: " + job.getId(), e);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of a stage of importing photos, either fetching, encoding, or encrypting a photo, or persisting a batch of photos.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Name("com.wultra.security.userdatastore.ImportStage")
+@Label("Import Stage")
+@Category({"User Data Store", "Import"})
+@Description("Fetching, encoding, or encrypting an imported photo, or persisting a batch of imported photos")
+@StackTrace(false)
+final class ImportStageEvent extends Event {
+
+    static final String FETCH = "fetch";
+    static final String ENCODE = "encode";
+    static final String ENCRYPT = "encrypt";
+    static final String PERSIST = "persist";
+
+    @Label("Stage")
+    @Description("Import stage: fetch, encode, encrypt, or persist")
+    String stage;
+
+    @Label("Photo Data Type")
+    @Description("Type of the imported photo data: raw, base64, or base64_inline, not set for the persist stage")
+    String photoDataType;
+
+    @Label("Count")
+    @Description("Number of photos, more than one for the persist stage")
+    int count;
+
+    @Label("Size")
+    @Description("Size of the photo data, total of the batch for the persist stage")
+    @DataAmount(DataAmount.BYTES)
+    long size;
+
+    @Label("Success")
+    @Description("Whether the stage succeeded")
+    boolean success;
+
+}
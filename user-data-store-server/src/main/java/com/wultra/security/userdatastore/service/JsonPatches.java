@@ -0,0 +1,193 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+import com.wultra.security.userdatastore.model.error.ResourceConflictException;
+
+/**
+ * Application of RFC 7386 JSON Merge Patch and RFC 6902 JSON Patch to JSON trees.
+ * <p>
+ * A malformed patch causes {@link InvalidRequestException}, a patch not applicable to the target,
+ * e.g. a missing path or a failed {@code test} operation, causes {@link ResourceConflictException}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+final class JsonPatches {
+
+    private JsonPatches() {
+        throw new IllegalStateException("Should not be instantiated");
+    }
+
+    /**
+     * Apply the RFC 7386 JSON Merge Patch. The target is modified in place when possible.
+     *
+     * @param target target document
+     * @param patch merge patch
+     * @return patched document
+     */
+    static JsonNode mergePatch(final JsonNode target, final JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        final ObjectNode result = target != null && target.isObject() ? (ObjectNode) target : JsonNodeFactory.instance.objectNode();
+        patch.fields().forEachRemaining(field -> {
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), mergePatch(result.get(field.getKey()), field.getValue()));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Apply the RFC 6902 JSON Patch. The operations are applied in order, the target is modified in place when possible.
+     *
+     * @param target target document
+     * @param operations array of patch operations
+     * @return patched document
+     */
+    static JsonNode jsonPatch(final JsonNode target, final JsonNode operations) {
+        if (!operations.isArray()) {
+            throw new InvalidRequestException("JSON Patch must be an array of operations");
+        }
+        JsonNode result = target;
+        for (final JsonNode operation : operations) {
+            result = apply(result, operation);
+        }
+        return result;
+    }
+
+    private static JsonNode apply(final JsonNode target, final JsonNode operation) {
+        final String op = requiredText(operation, "op");
+        final JsonPointer path = pointer(requiredText(operation, "path"));
+        return switch (op) {
+            case "add" -> add(target, path, requiredValue(operation));
+            case "remove" -> {
+                remove(target, path);
+                yield target;
+            }
+            case "replace" -> {
+                if (path.matches()) {
+                    yield requiredValue(operation);
+                }
+                remove(target, path);
+                yield add(target, path, requiredValue(operation));
+            }
+            case "move" -> {
+                final JsonPointer from = pointer(requiredText(operation, "from"));
+                if (!from.equals(path) && path.toString().startsWith(from + "/")) {
+                    throw new InvalidRequestException("Cannot move a value into its own child: " + path);
+                }
+                final JsonNode value = existing(target, from);
+                remove(target, from);
+                yield add(target, path, value);
+            }
+            case "copy" -> add(target, path, existing(target, pointer(requiredText(operation, "from"))).deepCopy());
+            case "test" -> {
+                if (!existing(target, path).equals(requiredValue(operation))) {
+                    throw new ResourceConflictException("Test failed at path: " + path);
+                }
+                yield target;
+            }
+            default -> throw new InvalidRequestException("Unsupported JSON Patch operation: " + op);
+        };
+    }
+
+    private static JsonNode add(final JsonNode target, final JsonPointer path, final JsonNode value) {
+        if (path.matches()) {
+            return value;
+        }
+        final JsonNode parent = existing(target, path.head());
+        final JsonPointer last = path.last();
+        if (parent instanceof ObjectNode objectNode) {
+            objectNode.set(last.getMatchingProperty(), value);
+        } else if (parent instanceof ArrayNode arrayNode) {
+            if ("-".equals(last.getMatchingProperty())) {
+                arrayNode.add(value);
+            } else {
+                arrayNode.insert(index(arrayNode, last, arrayNode.size()), value);
+            }
+        } else {
+            throw new ResourceConflictException("Path not found: " + path);
+        }
+        return target;
+    }
+
+    private static void remove(final JsonNode target, final JsonPointer path) {
+        if (path.matches()) {
+            throw new InvalidRequestException("Cannot remove the whole document");
+        }
+        final JsonNode parent = existing(target, path.head());
+        final JsonPointer last = path.last();
+        if (parent instanceof ObjectNode objectNode && objectNode.has(last.getMatchingProperty())) {
+            objectNode.remove(last.getMatchingProperty());
+        } else if (parent instanceof ArrayNode arrayNode) {
+            arrayNode.remove(index(arrayNode, last, arrayNode.size() - 1));
+        } else {
+            throw new ResourceConflictException("Path not found: " + path);
+        }
+    }
+
+    private static JsonNode existing(final JsonNode target, final JsonPointer path) {
+        final JsonNode node = target.at(path);
+        if (node.isMissingNode()) {
+            throw new ResourceConflictException("Path not found: " + path);
+        }
+        return node;
+    }
+
+    private static int index(final ArrayNode arrayNode, final JsonPointer pointer, final int maxIndex) {
+        final int index = pointer.getMatchingIndex();
+        if (index < 0 || index > maxIndex) {
+            throw new ResourceConflictException("Invalid index: %s, size: %d".formatted(pointer.getMatchingProperty(), arrayNode.size()));
+        }
+        return index;
+    }
+
+    private static JsonPointer pointer(final String path) {
+        try {
+            return JsonPointer.compile(path);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid JSON Pointer: " + path);
+        }
+    }
+
+    private static String requiredText(final JsonNode operation, final String name) {
+        final JsonNode node = operation.get(name);
+        if (node == null || !node.isTextual()) {
+            throw new InvalidRequestException("Missing JSON Patch member: " + name);
+        }
+        return node.asText();
+    }
+
+    private static JsonNode requiredValue(final JsonNode operation) {
+        final JsonNode value = operation.get("value");
+        if (value == null) {
+            throw new InvalidRequestException("Missing JSON Patch member: value");
+        }
+        return value;
+    }
+
+}
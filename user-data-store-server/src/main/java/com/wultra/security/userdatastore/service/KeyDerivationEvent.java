@@ -0,0 +1,38 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of deriving a key not found in the derived key cache.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Name("com.wultra.security.userdatastore.KeyDerivation")
+@Label("Key Derivation")
+@Category({"User Data Store", "Encryption"})
+@Description("Derivation of a key from the master DB encryption key and a user ID")
+@StackTrace(false)
+final class KeyDerivationEvent extends Event {
+}
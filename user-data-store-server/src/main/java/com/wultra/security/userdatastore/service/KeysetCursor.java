@@ -0,0 +1,101 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.model.error.RequestValidationException;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Position in a keyset paginated listing ordered by {@code timestamp_created, id}.
+ * <p>
+ * The cursor is passed to clients as an opaque Base64url encoded string.
+ *
+ * @param timestampCreated timestamp of creation of the last returned record
+ * @param id identifier of the last returned record
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+record KeysetCursor(LocalDateTime timestampCreated, String id) {
+
+    /**
+     * Default page size used when only the cursor is specified.
+     */
+    static final int DEFAULT_LIMIT = 100;
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Parse the cursor received from a client. No cursor means the first page, fetched without any keyset bound.
+     *
+     * @param cursor encoded cursor
+     * @return parsed cursor or empty for the first page
+     * @throws RequestValidationException in case the cursor is not valid
+     */
+    static Optional<KeysetCursor> parse(final Optional<String> cursor) {
+        if (cursor.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(cursor.get()), StandardCharsets.UTF_8);
+            final int separatorIndex = decoded.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new RequestValidationException("Invalid cursor: " + cursor.get());
+            }
+            return Optional.of(new KeysetCursor(LocalDateTime.parse(decoded.substring(0, separatorIndex)), decoded.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RequestValidationException("Invalid cursor: " + cursor.get(), e);
+        }
+    }
+
+    /**
+     * Return the limit of records to be fetched from the database, one more than requested to find out whether a next page exists.
+     *
+     * @param limit requested page size
+     * @return database query limit
+     */
+    static Limit queryLimit(final int limit) {
+        return Limit.of(limit + 1);
+    }
+
+    /**
+     * Return the encoded cursor of the next page.
+     *
+     * @param records records fetched with {@link #queryLimit(int)}
+     * @param limit requested page size
+     * @param timestampCreated timestamp of creation extractor
+     * @param id identifier extractor
+     * @param <T> record type
+     * @return encoded cursor of the next page or {@code null} if this is the last page
+     */
+    static <T> String next(final List<T> records, final int limit, final Function<T, LocalDateTime> timestampCreated, final Function<T, String> id) {
+        if (records.size() <= limit) {
+            return null;
+        }
+        final T last = records.get(limit - 1);
+        final String value = timestampCreated.apply(last).toString() + SEPARATOR + id.apply(last);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+/**
+ * Cache invalidation bus of a single node, notifying only the local listeners.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+public class LocalCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    @Override
+    protected void publishRemote(final String userId) {
+        // Single node, nothing to deliver
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.config.AsyncConfiguration;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP client fetching photo data during photo import.
+ * <p>
+ * A single {@link HttpClient} is shared by all the fetches, so connections are reused and HTTP/2 connections are multiplexed.
+ * Fetch latency is published as the timer {@code uds.import.fetch} tagged with the outcome, fetched bytes as the distribution
+ * summary {@code uds.import.fetch.bytes}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Component
+@Slf4j
+class PhotoImportHttpClient {
+
+    private static final String METRIC_FETCH = "uds.import.fetch";
+    private static final String METRIC_FETCH_BYTES = "uds.import.fetch.bytes";
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration readTimeout;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary fetchedBytes;
+
+    /**
+     * Create the client.
+     *
+     * @param connectTimeout Connect timeout.
+     * @param readTimeout Timeout of receiving the response.
+     * @param version Preferred HTTP version, {@code HTTP_2} falls back to {@code HTTP_1_1} when not supported by the server.
+     * @param redirect Redirect policy.
+     * @param meterRegistry Meter registry.
+     * @param environment Environment, driving whether the client runs on virtual threads.
+     */
+    @Autowired
+    PhotoImportHttpClient(
+            @Value("${user-data-store.import.http.connect-timeout}") final Duration connectTimeout,
+            @Value("${user-data-store.import.http.read-timeout}") final Duration readTimeout,
+            @Value("${user-data-store.import.http.version}") final HttpClient.Version version,
+            @Value("${user-data-store.import.http.redirect}") final HttpClient.Redirect redirect,
+            final MeterRegistry meterRegistry,
+            final Environment environment) {
+
+        this.executor = Executors.newCachedThreadPool(AsyncConfiguration.threadFactory("photo-import-http-", environment));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .version(version)
+                .followRedirects(redirect)
+                .executor(executor)
+                .build();
+        this.readTimeout = readTimeout;
+        this.meterRegistry = meterRegistry;
+        this.fetchedBytes = DistributionSummary.builder(METRIC_FETCH_BYTES)
+                .description("Size of photo data fetched during photo import")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        logger.info("Photo import HTTP client, connectTimeout: {}, readTimeout: {}, version: {}, redirect: {}", connectTimeout, readTimeout, version, redirect);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fetch the given URL.
+     *
+     * @param url URL to fetch.
+     * @return HTTP response with the body.
+     * @throws IOException In case of an I/O error or a timeout.
+     * @throws InterruptedException In case the thread is interrupted.
+     */
+    HttpResponse<byte[]> fetch(final String url) throws IOException, InterruptedException {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            final HttpResponse<byte[]> response = httpClient.send(createRequest(url), HttpResponse.BodyHandlers.ofByteArray());
+            outcome = String.valueOf(response.statusCode());
+            fetchedBytes.record(response.body().length);
+            return response;
+        } finally {
+            stop(sample, outcome);
+        }
+    }
+
+    /**
+     * Fetch the given URL, streaming the response body. The read timeout applies only to receiving the response headers.
+     * The caller is responsible for closing the body stream.
+     *
+     * @param url URL to fetch.
+     * @return HTTP response with the body stream.
+     * @throws IOException In case of an I/O error or a timeout.
+     * @throws InterruptedException In case the thread is interrupted.
+     */
+    HttpResponse<InputStream> fetchStream(final String url) throws IOException, InterruptedException {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            final HttpResponse<InputStream> response = httpClient.send(createRequest(url), HttpResponse.BodyHandlers.ofInputStream());
+            outcome = String.valueOf(response.statusCode());
+            return response;
+        } finally {
+            stop(sample, outcome);
+        }
+    }
+
+    private HttpRequest createRequest(final String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(readTimeout)
+                .GET()
+                .build();
+    }
+
+    private void stop(final Timer.Sample sample, final String outcome) {
+        sample.stop(Timer.builder(METRIC_FETCH)
+                .description("Latency of photo data fetches during photo import")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+}
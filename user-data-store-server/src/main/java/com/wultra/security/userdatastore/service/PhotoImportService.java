@@ -17,36 +17,66 @@
  */
 package com.wultra.security.userdatastore.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wultra.security.userdatastore.client.model.dto.PhotoImportDto;
 import com.wultra.security.userdatastore.client.model.dto.PhotoImportResultDto;
 import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequest;
 import com.wultra.security.userdatastore.client.model.request.EmbeddedPhotoCreateRequest;
 import com.wultra.security.userdatastore.client.model.response.DocumentCreateResponse;
+import com.wultra.security.userdatastore.config.AsyncConfiguration;
+import com.wultra.security.userdatastore.model.entity.ImportJobEntity;
+import com.wultra.security.userdatastore.model.entity.ImportJobState;
 import com.wultra.security.userdatastore.model.entity.ImportResultEntity;
 import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+import com.wultra.security.userdatastore.model.repository.ImportJobRepository;
 import com.wultra.security.userdatastore.model.repository.ImportResultRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVException;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.*;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 /**
  * Service for importing photos.
+ * <p>
+ * Photos are imported by a pipeline of stages. Photo data is fetched in parallel by a bounded pool, limiting concurrent
+ * downloads per host, and encrypted in parallel by a CPU-sized pool, without touching the persistence context.
+ * The encrypted photos are persisted in the input order by the calling thread as the single writer, so they take part
+ * in its transaction, in batches whose inserts are batched by JDBC. The number of photos fetched ahead is bounded to limit
+ * the memory footprint of large imports.
+ * <p>
+ * CSV files are imported in chunks, each committed in its own transaction, so the persistence context does not grow
+ * with the size of the file and no transaction spans the whole import. Photos of a chunk are fetched and encrypted
+ * before its transaction is opened, so no database connection is held while waiting for the photo hosts.
+ * <p>
+ * Persisting of the imported photos is published as the timer {@code uds.import.photos} tagged with the outcome,
+ * recording the share of the batch latency per photo, its count gives the import throughput. Fetching, encoding,
+ * and encrypting of each photo and persisting of each batch is emitted as the JFR event {@link ImportStageEvent}.
  *
  * @author Roman Strobl, roman.strobl@wultra.com
  */
@@ -54,127 +84,585 @@ import java.util.*;
 @Slf4j
 public class PhotoImportService {
 
+    private static final int MAX_ERROR_LENGTH = 255;
+    private static final String METRIC_PHOTOS = "uds.import.photos";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final DocumentService documentService;
     private final ImportResultRepository importResultRepository;
+    private final ImportJobRepository importJobRepository;
+    private final PhotoImportHttpClient httpClient;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Pool fetching photo data.
+     */
+    private final ExecutorService fetchExecutor;
+
+    /**
+     * Pool encrypting photo data.
+     */
+    private final ExecutorService encryptExecutor;
+
+    /**
+     * Maximum number of photos fetched ahead of the persisted one.
+     */
+    private final int fetchAhead;
+
+    /**
+     * Number of photos persisted at once.
+     */
+    private final int insertBatchSize;
+
+    /**
+     * Maximum number of concurrent downloads from a single host.
+     */
+    private final int perHostLimit;
+
+    /**
+     * Download permits keyed by host. An entry is removed once no download from the host is waiting or running,
+     * so the map does not grow with every host ever imported from, and a host never gets a second semaphore.
+     */
+    private final ConcurrentMap<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Number of CSV records imported at once.
+     */
+    private final int csvChunkSize;
+
+    /**
+     * Maximum number of resumes of an interrupted job without any progress.
+     */
+    private final int maxResumeAttempts;
+
+    private final Timer importedTimer;
+    private final Timer failedTimer;
 
     @Autowired
-    public PhotoImportService(@Lazy DocumentService documentService, ImportResultRepository importResultRepository) {
+    public PhotoImportService(
+            @Lazy DocumentService documentService,
+            ImportResultRepository importResultRepository,
+            ImportJobRepository importJobRepository,
+            PhotoImportHttpClient httpClient,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${user-data-store.import.fetch.parallelism}") int fetchParallelism,
+            @Value("${user-data-store.import.fetch.per-host-limit}") int perHostLimit,
+            @Value("${user-data-store.import.encrypt.parallelism}") int encryptParallelism,
+            @Value("${user-data-store.import.insert.batch-size}") int insertBatchSize,
+            @Value("${user-data-store.import.csv.chunk-size}") int csvChunkSize,
+            @Value("${user-data-store.import.job.max-resume-attempts}") int maxResumeAttempts) {
         this.documentService = documentService;
         this.importResultRepository = importResultRepository;
+        this.importJobRepository = importJobRepository;
+        this.httpClient = httpClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fetchExecutor = ExecutorServiceMetrics.monitor(meterRegistry,
+                Executors.newFixedThreadPool(fetchParallelism, AsyncConfiguration.threadFactory("photo-import-fetch-", environment)), "photoImportFetchExecutor");
+        final int encryptThreads = encryptParallelism > 0 ? encryptParallelism : Runtime.getRuntime().availableProcessors();
+        this.encryptExecutor = ExecutorServiceMetrics.monitor(meterRegistry,
+                Executors.newFixedThreadPool(encryptThreads, AsyncConfiguration.threadFactory("photo-import-encrypt-", environment)), "photoImportEncryptExecutor");
+        this.fetchAhead = fetchParallelism * 2;
+        this.perHostLimit = perHostLimit;
+        this.insertBatchSize = insertBatchSize;
+        this.csvChunkSize = csvChunkSize;
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.importedTimer = photosTimer(meterRegistry, "imported");
+        this.failedTimer = photosTimer(meterRegistry, "failed");
+        logger.info("Photo import fetch parallelism: {}, per host limit: {}, encrypt parallelism: {}, insert batch size: {}",
+                fetchParallelism, perHostLimit, encryptThreads, insertBatchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdownNow();
+        encryptExecutor.shutdownNow();
     }
 
     public List<PhotoImportResultDto> importPhotos(final List<PhotoImportDto> photos) {
-        return photos.stream().map(this::importPhoto).toList();
+        final List<PhotoImportResultDto> results = new ArrayList<>(photos.size());
+        importPhotos(photos.iterator(), null, results::add);
+        return results;
     }
 
-    public void importPhotosCsv(final List<String> csvPaths, final Map<String, Object> attributes) {
-        csvPaths.forEach(path -> importCsv(path, attributes));
+    /**
+     * Run the CSV import job asynchronously, continuing from its last checkpoint.
+     * <p>
+     * Each chunk of CSV records is committed together with the job progress, so a job interrupted by a node crash
+     * is resumed without importing any record twice. The run stops when another node has taken the job over.
+     * A job interrupted more than the maximum resume attempts without any progress is marked as failed.
+     *
+     * @param jobId import job identifier
+     */
+    @Async(AsyncConfiguration.IMPORT_EXECUTOR)
+    public void importCsvJob(final String jobId) {
+        final ImportJobEntity job = importJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getState() != ImportJobState.RUNNING) {
+            logger.info("Import job is not running, ID: {}", jobId);
+            return;
+        }
+        final JobRun run = new JobRun(jobId, job.getVersion());
+        final List<String> csvPaths = readJson(job.getImportPaths(), new TypeReference<>() {});
+        final Map<String, Object> attributes = job.getAttributes() == null ? null : readJson(job.getAttributes(), new TypeReference<>() {});
+        logger.info("Running import job, ID: {}, path index: {}, record position: {}", jobId, job.getPathIndex(), job.getRecordPosition());
+        try {
+            for (int pathIndex = job.getPathIndex(); pathIndex < csvPaths.size(); pathIndex++) {
+                final long skippedRecords = pathIndex == job.getPathIndex() ? job.getRecordPosition() : 0;
+                importCsv(run, pathIndex, csvPaths.get(pathIndex), attributes, skippedRecords);
+            }
+            checkpoint(run, it -> it.setState(it.getError() == null ? ImportJobState.SUCCEEDED : ImportJobState.FAILED));
+            logger.info("Import job finished, ID: {}", jobId);
+        } catch (ImportJobTakenOverException e) {
+            logger.warn("Import job was taken over by another node, ID: {}", jobId);
+        } catch (RuntimeException e) {
+            logger.debug(e.getMessage(), e);
+            interrupt(run, e);
+        }
     }
 
-    private void importCsv(final String csvPath, Map<String, Object> attributes) {
-        final FetchResult result = fetchFromPath(csvPath);
-        if (result.error == null) {
-            final List<List<String>> parsedData = parseCsv(result.data);
-            if (parsedData != null) {
-                parsedData.forEach(data -> importCsvRow(data, attributes));
+    /**
+     * Record the interruption of the job run. The job is left running to be resumed, unless it has exceeded
+     * the maximum resume attempts, then it is marked as failed with the error.
+     *
+     * @param run job run
+     * @param error error interrupting the run
+     */
+    private void interrupt(final JobRun run, final RuntimeException error) {
+        try {
+            final int resumeAttempts = importJobRepository.findById(run.jobId())
+                    .map(ImportJobEntity::getResumeAttempts)
+                    .orElse(0);
+            if (resumeAttempts < maxResumeAttempts) {
+                logger.error("Import job interrupted, it will be resumed, ID: {}, resume attempts: {}, error: {}", run.jobId(), resumeAttempts, error.getMessage());
+                return;
             }
+            logger.error("Import job failed, resume attempts exceeded, ID: {}, resume attempts: {}, error: {}", run.jobId(), resumeAttempts, error.getMessage());
+            checkpoint(run, job -> {
+                job.setState(ImportJobState.FAILED);
+                job.setError(truncate("Import job failed: " + error.getMessage()));
+            });
+        } catch (ImportJobTakenOverException e) {
+            logger.warn("Import job was taken over by another node, ID: {}", run.jobId());
+        } catch (RuntimeException e) {
+            logger.error("Import job interrupted, it will be resumed, ID: {}, error: {}", run.jobId(), error.getMessage());
+            logger.debug(e.getMessage(), e);
         }
     }
 
-    private void importCsvRow(final List<String> csvRow, final Map<String, Object> attributes) {
-        if (csvRow.size() != 4) {
-            logger.warn("Invalid CSV import format");
+    /**
+     * Take over the running job if its progress has not been updated since the given timestamp.
+     * The job which has exceeded the maximum resume attempts is marked as failed instead.
+     *
+     * @param jobId import job identifier
+     * @param staleBefore timestamp of the last update of a stale job
+     * @return {@code true} if the job has been taken over
+     */
+    public boolean takeOverStaleJob(final String jobId, final LocalDateTime staleBefore) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                final ImportJobEntity job = importJobRepository.findById(jobId).orElse(null);
+                if (job == null || job.getState() != ImportJobState.RUNNING || !job.getTimestampLastUpdated().isBefore(staleBefore)) {
+                    return false;
+                }
+                job.setTimestampLastUpdated(LocalDateTime.now());
+                if (job.getResumeAttempts() >= maxResumeAttempts) {
+                    logger.error("Import job failed, resume attempts exceeded, ID: {}, resume attempts: {}", jobId, job.getResumeAttempts());
+                    job.setState(ImportJobState.FAILED);
+                    if (job.getError() == null) {
+                        job.setError("Import job interrupted, resume attempts exceeded: " + job.getResumeAttempts());
+                    }
+                    importJobRepository.saveAndFlush(job);
+                    return false;
+                }
+                job.setResumeAttempts(job.getResumeAttempts() + 1);
+                importJobRepository.saveAndFlush(job);
+                return true;
+            }));
+        } catch (OptimisticLockingFailureException e) {
+            logger.debug("Import job taken over by another node, ID: {}", jobId);
+            return false;
+        }
+    }
+
+    /**
+     * Import photos from the CSV file, reading the records incrementally and importing them in chunks,
+     * so that at most one chunk of records is held in memory.
+     * <p>
+     * A file which cannot be opened or parsed is skipped with the error recorded. An I/O error while reading the file
+     * interrupts the job, which is resumed later from the last committed chunk.
+     *
+     * @param run job run
+     * @param pathIndex index of the CSV path within the job
+     * @param csvPath path or URL of the CSV file
+     * @param attributes attributes of the imported photos
+     * @param skippedRecords number of records already imported
+     */
+    private void importCsv(final JobRun run, final int pathIndex, final String csvPath, final Map<String, Object> attributes, final long skippedRecords) {
+        final Reader reader;
+        try {
+            reader = openCsv(csvPath);
+        } catch (IOException e) {
+            skipCsv(run, pathIndex, csvPath, e);
             return;
         }
-        final PhotoImportDto photo = PhotoImportDto.builder()
-                .userId(csvRow.get(0))
-                .photoDataType(csvRow.get(1))
-                .photoType(csvRow.get(2))
-                .photoData(csvRow.get(3))
+        try (reader) {
+            parseCsv(reader, attributes, skippedRecords, csvChunkSize, (chunk, recordPosition, last) -> {
+                if (last) {
+                    importCsvChunk(run, csvPath, chunk, pathIndex + 1, 0);
+                } else {
+                    importCsvChunk(run, csvPath, chunk, pathIndex, recordPosition);
+                }
+            });
+        } catch (CSVException e) {
+            skipCsv(run, pathIndex, csvPath, e);
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof CSVException csvException) {
+                skipCsv(run, pathIndex, csvPath, csvException);
+            } else {
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("CSV import interrupted, path: " + csvPath, e);
+        }
+    }
+
+    /**
+     * Skip the CSV file which cannot be opened or parsed, recording the error.
+     *
+     * @param run job run
+     * @param pathIndex index of the CSV path within the job
+     * @param csvPath path or URL of the CSV file
+     * @param e error of the file
+     */
+    private void skipCsv(final JobRun run, final int pathIndex, final String csvPath, final IOException e) {
+        logger.warn("CSV import failed, path: {}, error: {}", csvPath, e.getMessage());
+        logger.debug(e.getMessage(), e);
+        final String error = "CSV import failed, path: %s, error: %s".formatted(csvPath, e.getMessage());
+        checkpoint(run, job -> {
+            job.setPathIndex(pathIndex + 1);
+            job.setRecordPosition(0);
+            job.setResumeAttempts(0);
+            job.setError(truncate(error));
+        });
+    }
+
+    /**
+     * Import the chunk of CSV records in its own transaction together with the job checkpoint. The photos are fetched
+     * and encrypted before the transaction is opened, the transaction only persists them with their results.
+     * When the chunk fails, its changes are rolled back and failed results are recorded for all its records.
+     *
+     * @param run job run
+     * @param csvPath path or URL of the CSV file
+     * @param chunk photos to import
+     * @param pathIndex path index of the checkpoint
+     * @param recordPosition record position of the checkpoint
+     */
+    private void importCsvChunk(final JobRun run, final String csvPath, final List<PhotoImportDto> chunk, final int pathIndex, final long recordPosition) {
+        logger.debug("Importing CSV chunk of {} photos, path: {}", chunk.size(), csvPath);
+        try {
+            final List<List<EncryptedPhoto>> batches = new ArrayList<>();
+            encryptPhotos(chunk.iterator(), batch -> batches.add(List.copyOf(batch)));
+            checkpoint(run, job -> {
+                batches.forEach(batch -> persistPhotos(batch, run.jobId(), result -> {
+                    job.setProcessedCount(job.getProcessedCount() + 1);
+                    if (result.imported()) {
+                        job.setImportedCount(job.getImportedCount() + 1);
+                    } else {
+                        job.setFailedCount(job.getFailedCount() + 1);
+                    }
+                }));
+                job.setPathIndex(pathIndex);
+                job.setRecordPosition(recordPosition);
+                job.setResumeAttempts(0);
+            });
+        } catch (ImportJobTakenOverException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.warn("Import of CSV chunk of {} photos failed, path: {}, error: {}", chunk.size(), csvPath, e.getMessage());
+            logger.debug(e.getMessage(), e);
+            final String error = "Chunk import failed: " + e.getMessage();
+            checkpoint(run, job -> {
+                persistImportResults(chunk.stream().map(photo -> handleError(photo.userId(), photo.photoType(), error)).toList(), run.jobId());
+                job.setProcessedCount(job.getProcessedCount() + chunk.size());
+                job.setFailedCount(job.getFailedCount() + chunk.size());
+                job.setPathIndex(pathIndex);
+                job.setRecordPosition(recordPosition);
+                job.setResumeAttempts(0);
+            });
+        }
+    }
+
+    /**
+     * Update the job in a new transaction, failing if the job has been updated by another node since the last checkpoint.
+     *
+     * @param run job run
+     * @param update job update, executed within the transaction
+     */
+    private void checkpoint(final JobRun run, final Consumer<ImportJobEntity> update) {
+        final Long version = transactionTemplate.execute(status -> {
+            final ImportJobEntity job = importJobRepository.findById(run.jobId())
+                    .filter(it -> it.getVersion() == run.version())
+                    .orElseThrow(ImportJobTakenOverException::new);
+            update.accept(job);
+            job.setTimestampLastUpdated(LocalDateTime.now());
+            return importJobRepository.saveAndFlush(job).getVersion();
+        });
+        run.version(version);
+    }
+
+    private Reader openCsv(final String csvPath) throws IOException {
+        if (csvPath.startsWith("http")) {
+            try {
+                final HttpResponse<InputStream> response = httpClient.fetchStream(csvPath);
+                if (response.statusCode() != 200) {
+                    response.body().close();
+                    throw new IOException("HTTP status code: " + response.statusCode());
+                }
+                return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while downloading " + csvPath, e);
+            }
+        }
+        return Files.newBufferedReader(Paths.get(csvPath), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse the CSV records into photos to import and pass them in chunks to the consumer. Package-private for benchmarks.
+     *
+     * @param reader reader of the CSV file
+     * @param attributes attributes of the imported photos
+     * @param skippedRecords number of records already imported
+     * @param chunkSize number of CSV records in a chunk
+     * @param chunkConsumer consumer of the chunks, the chunk is reused after the consumer returns
+     * @throws IOException in case of an I/O error
+     */
+    static void parseCsv(final Reader reader, final Map<String, Object> attributes, final long skippedRecords, final int chunkSize,
+                         final CsvChunkConsumer chunkConsumer) throws IOException {
+        final List<PhotoImportDto> chunk = new ArrayList<>(chunkSize);
+        long recordPosition = skippedRecords;
+        for (CSVRecord csvRecord : CSVFormat.DEFAULT.parse(reader)) {
+            if (csvRecord.getRecordNumber() <= skippedRecords) {
+                continue;
+            }
+            final PhotoImportDto photo = toPhotoImport(csvRecord, attributes);
+            if (photo != null) {
+                chunk.add(photo);
+            }
+            if (csvRecord.getRecordNumber() - recordPosition == chunkSize) {
+                recordPosition = csvRecord.getRecordNumber();
+                chunkConsumer.accept(chunk, recordPosition, false);
+                chunk.clear();
+            }
+        }
+        chunkConsumer.accept(chunk, recordPosition, true);
+    }
+
+    /**
+     * Convert the CSV record to a photo to import.
+     *
+     * @param csvRecord CSV record of user ID, photo data type, photo type, and photo data
+     * @param attributes attributes of the imported photos
+     * @return photo to import or {@code null} if the record is invalid
+     */
+    private static PhotoImportDto toPhotoImport(final CSVRecord csvRecord, final Map<String, Object> attributes) {
+        if (csvRecord.size() != 4) {
+            logger.warn("Invalid CSV import format");
+            return null;
+        }
+        return PhotoImportDto.builder()
+                .userId(csvRecord.get(0))
+                .photoDataType(csvRecord.get(1))
+                .photoType(csvRecord.get(2))
+                .photoData(csvRecord.get(3))
                 .attributes(attributes)
                 .build();
-        importPhoto(photo);
     }
 
-    private PhotoImportResultDto importPhoto(final PhotoImportDto photo) {
-        final FetchResult result = switch(photo.photoDataType()) {
-            case "raw" -> {
-                final FetchResult rawResult = fetchFromPath(photo.photoData());
-                if (rawResult.error != null) {
-                    yield rawResult;
+    /**
+     * Import the photos, fetching and encrypting their data in parallel and persisting them in the given order
+     * in batches by the calling thread.
+     *
+     * @param photos photos to import
+     * @param jobId optional import job identifier
+     * @param resultConsumer consumer of the import results
+     */
+    private void importPhotos(final Iterator<PhotoImportDto> photos, final String jobId, final Consumer<PhotoImportResultDto> resultConsumer) {
+        encryptPhotos(photos, batch -> persistPhotos(batch, jobId, resultConsumer));
+    }
+
+    /**
+     * Fetch and encrypt the photos in parallel and pass them in the given order in batches to the consumer
+     * called by the calling thread.
+     *
+     * @param photos photos to fetch and encrypt
+     * @param batchConsumer consumer of the batches of encrypted photos, the batch is reused after the consumer returns
+     */
+    private void encryptPhotos(final Iterator<PhotoImportDto> photos, final Consumer<List<EncryptedPhoto>> batchConsumer) {
+        final Deque<PendingPhoto> pending = new ArrayDeque<>();
+        final List<EncryptedPhoto> batch = new ArrayList<>(insertBatchSize);
+        try {
+            while (photos.hasNext() || !pending.isEmpty()) {
+                while (photos.hasNext() && pending.size() < fetchAhead) {
+                    final PhotoImportDto photo = photos.next();
+                    pending.add(new PendingPhoto(photo, CompletableFuture
+                            .supplyAsync(() -> fetchPhoto(photo), fetchExecutor)
+                            .thenApplyAsync(fetchResult -> encryptPhoto(photo, fetchResult), encryptExecutor)));
+                }
+                batch.add(await(pending.poll().encryptedPhoto()));
+                if (batch.size() == insertBatchSize) {
+                    batchConsumer.accept(batch);
+                    batch.clear();
                 }
-                yield new FetchResult(photo.photoData(), Base64.getEncoder().encode(rawResult.data), null);
             }
-            case "base64" -> fetchFromPath(photo.photoData());
-            case "base64_inline" -> new FetchResult(null, photo.photoData().getBytes(StandardCharsets.UTF_8), null);
-            default -> throw new InvalidRequestException();
-        };
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+        } finally {
+            pending.forEach(it -> it.encryptedPhoto().cancel(true));
+        }
+    }
 
-        if (result.error != null) {
-            persistImportResult(handleError(photo.userId(), photo.photoType(), result.error));
+    /**
+     * Persist the batch of photos at once, so that the inserts of each table are batched, and pass their results
+     * in the batch order to the consumer.
+     *
+     * @param batch encrypted photos
+     * @param jobId optional import job identifier
+     * @param resultConsumer consumer of the import results
+     */
+    private void persistPhotos(final List<EncryptedPhoto> batch, final String jobId, final Consumer<PhotoImportResultDto> resultConsumer) {
+        if (batch.isEmpty()) {
+            return;
         }
+        final long start = System.nanoTime();
+        final ImportStageEvent event = beginStage();
+        final List<DocumentService.NewDocument> documents = batch.stream()
+                .map(EncryptedPhoto::document)
+                .filter(Objects::nonNull)
+                .toList();
+        final Iterator<DocumentCreateResponse> responses = documentService.saveDocuments(documents).iterator();
+        final List<PhotoImportResultDto> results = batch.stream()
+                .map(photo -> photo.document() == null
+                        ? handleError(photo.photo().userId(), photo.photo().photoType(), photo.fetchResult().error)
+                        : importedResult(photo, responses.next()))
+                .toList();
+        persistImportResults(results, jobId);
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = ImportStageEvent.PERSIST;
+            event.count = batch.size();
+            event.size = batch.stream().mapToLong(it -> it.fetchResult().data == null ? 0 : it.fetchResult().data.length).sum();
+            event.success = true;
+            event.commit();
+        }
+        final long latencyPerPhoto = (System.nanoTime() - start) / batch.size();
+        results.forEach(result -> {
+            (result.imported() ? importedTimer : failedTimer).record(latencyPerPhoto, TimeUnit.NANOSECONDS);
+            resultConsumer.accept(result);
+        });
+    }
 
-        return createNewPhoto(photo.userId(), photo.photoType(), result.importPath, result.data, photo.attributes());
+    private static Timer photosTimer(final MeterRegistry meterRegistry, final String outcome) {
+        return Timer.builder(METRIC_PHOTOS)
+                .description("Latency of persisting imported photos, share of the batch latency per photo")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
-    public static List<List<String>> parseCsv(byte[] csvData) {
-        final List<List<String>> parsedData = new ArrayList<>();
-        try (
-                ByteArrayInputStream is = new ByteArrayInputStream(csvData);
-                InputStreamReader isr = new InputStreamReader(is, StandardCharsets.UTF_8)
-        ) {
-            final Iterable<CSVRecord> records = CSVFormat.DEFAULT.parse(isr);
-            for (CSVRecord record : records) {
-                final List<String> row = new ArrayList<>();
-                record.forEach(row::add);
-                parsedData.add(row);
+    private static EncryptedPhoto await(final Future<EncryptedPhoto> encryptedPhoto) {
+        try {
+            return encryptedPhoto.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Photo import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
-        } catch (Exception e) {
-            logger.warn("CSV parsing failed, error: {}", e.getMessage());
-            logger.debug(e.getMessage(), e);
-            return null;
+            throw new IllegalStateException("Photo fetch or encryption failed", e.getCause());
         }
-        return parsedData;
     }
 
-    private PhotoImportResultDto createNewPhoto(final String userId, final String photoType, final String importPath, final byte[] photoBase64, final Map<String, Object> attributes) {
+    private FetchResult fetchPhoto(final PhotoImportDto photo) {
+        return switch(photo.photoDataType()) {
+            case "raw" -> {
+                final FetchResult rawResult = fetchStage(photo);
+                if (rawResult.error != null) {
+                    yield rawResult;
+                }
+                final ImportStageEvent event = beginStage();
+                final byte[] encoded = Base64.getEncoder().encode(rawResult.data);
+                commitStage(event, ImportStageEvent.ENCODE, photo, encoded, true);
+                yield new FetchResult(photo.photoData(), encoded, null);
+            }
+            case "base64" -> fetchStage(photo);
+            case "base64_inline" -> new FetchResult(null, photo.photoData().getBytes(StandardCharsets.UTF_8), null);
+            default -> throw new InvalidRequestException();
+        };
+    }
+
+    /**
+     * Encrypt the fetched photo into a new document, unless the fetch failed.
+     *
+     * @param photo photo to import
+     * @param fetchResult fetched photo data
+     * @return encrypted photo
+     */
+    private EncryptedPhoto encryptPhoto(final PhotoImportDto photo, final FetchResult fetchResult) {
+        if (fetchResult.error != null) {
+            return new EncryptedPhoto(photo, fetchResult, null);
+        }
+        final ImportStageEvent event = beginStage();
         final EmbeddedPhotoCreateRequest photoCreateRequest = EmbeddedPhotoCreateRequest.builder()
-                .photoType(photoType)
-                .photoData(new String(photoBase64, StandardCharsets.UTF_8))
+                .photoType(photo.photoType())
+                .photoData(new String(fetchResult.data, StandardCharsets.UTF_8))
                 .build();
         final DocumentCreateRequest documentCreateRequest = DocumentCreateRequest.builder()
-                .userId(userId)
+                .userId(photo.userId())
                 .documentType("data")
                 .dataType("image_base64")
                 .documentData("{}")
-                .attributes(attributes)
+                .attributes(photo.attributes())
                 .photos(Collections.singletonList(photoCreateRequest))
                 .build();
-        final DocumentCreateResponse response = documentService.createDocument(documentCreateRequest);
-        final PhotoImportResultDto result = PhotoImportResultDto.builder()
-                .userId(userId)
-                .photoType(photoType)
-                .importPath(importPath)
+        final DocumentService.NewDocument document = documentService.newDocument(documentCreateRequest);
+        commitStage(event, ImportStageEvent.ENCRYPT, photo, fetchResult.data, true);
+        return new EncryptedPhoto(photo, fetchResult, document);
+    }
+
+    private static PhotoImportResultDto importedResult(final EncryptedPhoto photo, final DocumentCreateResponse response) {
+        return PhotoImportResultDto.builder()
+                .userId(photo.photo().userId())
+                .photoType(photo.photo().photoType())
+                .importPath(photo.fetchResult().importPath)
                 .documentId(response.id())
                 .photoId(response.photos().get(0).id())
                 .imported(true)
                 .build();
-        persistImportResult(result);
-        return result;
     }
 
-    private void persistImportResult(final PhotoImportResultDto result) {
+    private void persistImportResults(final List<PhotoImportResultDto> results, final String jobId) {
+        importResultRepository.saveAll(results.stream().map(result -> toImportResultEntity(result, jobId)).toList());
+    }
+
+    private static ImportResultEntity toImportResultEntity(final PhotoImportResultDto result, final String jobId) {
         final ImportResultEntity resultEntity = new ImportResultEntity();
         resultEntity.setId(UUID.randomUUID().toString());
+        resultEntity.setJobId(jobId);
         resultEntity.setUserId(result.userId());
         resultEntity.setImportPath(result.importPath());
         resultEntity.setDocumentId(result.documentId());
         resultEntity.setPhotoId(result.photoId());
         resultEntity.setImported(result.imported());
-        resultEntity.setError(result.error());
-        resultEntity.setImported(result.imported());
+        resultEntity.setError(truncate(result.error()));
         resultEntity.setTimestampCreated(LocalDateTime.now());
-        importResultRepository.save(resultEntity);
+        return resultEntity;
+    }
+
+    private static String truncate(final String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
     }
 
     private PhotoImportResultDto handleError(final String userId, final String photoType, final String error) {
@@ -186,22 +674,47 @@ public class PhotoImportService {
                 .build();
     }
 
+    private FetchResult fetchStage(final PhotoImportDto photo) {
+        final ImportStageEvent event = beginStage();
+        final FetchResult result = fetchFromPath(photo.photoData());
+        commitStage(event, ImportStageEvent.FETCH, photo, result.data, result.error == null);
+        return result;
+    }
+
+    private static ImportStageEvent beginStage() {
+        final ImportStageEvent event = new ImportStageEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void commitStage(final ImportStageEvent event, final String stage, final PhotoImportDto photo, final byte[] data, final boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.photoDataType = photo.photoDataType();
+            event.count = 1;
+            event.size = data == null ? 0 : data.length;
+            event.success = success;
+            event.commit();
+        }
+    }
+
     private FetchResult fetchFromPath(final String path) {
         if (path.startsWith("http")) {
-            final HttpClient client = HttpClient.newHttpClient();
-            final HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(path))
-                    .build();
+            final String host = hostOf(path);
+            final Semaphore permits = retainHostPermits(host);
             try {
-                final HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
-                if (response.statusCode() == 200) {
-                    return new FetchResult(path, response.body(), null);
-                }
-                return new FetchResult(path, null, "HTTP status code: " + response.statusCode());
-            } catch (IOException | InterruptedException e) {
-                logger.info("Error occurred while downloading file: {}", e.getMessage());
-                logger.debug(e.getMessage(), e);
-                return new FetchResult(path, null, "IO error: " + e.getMessage());
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                releaseHostPermits(host);
+                return new FetchResult(path, null, "Interrupted");
+            }
+            try {
+                return fetchFromUrl(path);
+            } finally {
+                permits.release();
+                releaseHostPermits(host);
             }
         }
         try {
@@ -214,6 +727,139 @@ public class PhotoImportService {
         }
     }
 
+    /**
+     * Get the download permits of the host, registering the download as their user.
+     *
+     * @param host host of the download
+     * @return download permits of the host
+     */
+    private Semaphore retainHostPermits(final String host) {
+        return hostPermits.compute(host, (key, permits) -> {
+            final HostPermits result = permits == null ? new HostPermits(new Semaphore(perHostLimit)) : permits;
+            result.users++;
+            return result;
+        }).semaphore();
+    }
+
+    /**
+     * Unregister the download from the users of the host permits, removing them when no download uses them.
+     *
+     * @param host host of the download
+     */
+    private void releaseHostPermits(final String host) {
+        hostPermits.computeIfPresent(host, (key, permits) -> --permits.users == 0 ? null : permits);
+    }
+
+    private static String hostOf(final String url) {
+        try {
+            return Objects.requireNonNullElse(URI.create(url).getHost(), "");
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private FetchResult fetchFromUrl(final String path) {
+        try {
+            final HttpResponse<byte[]> response = httpClient.fetch(path);
+            if (response.statusCode() == 200) {
+                return new FetchResult(path, response.body(), null);
+            }
+            return new FetchResult(path, null, "HTTP status code: " + response.statusCode());
+        } catch (IOException | InterruptedException e) {
+            logger.info("Error occurred while downloading file: {}", e.getMessage());
+            logger.debug(e.getMessage(), e);
+            return new FetchResult(path, null, "IO error: " + e.getMessage());
+        }
+    }
+
+    private static <T> T readJson(final String json, final TypeReference<T> type) {
+        try {
+            return OBJECT_MAPPER.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid import job data", e);
+        }
+    }
+
+    /**
+     * Run of an import job, holding the job version of the last checkpoint.
+     */
+    private static final class JobRun {
+
+        private final String jobId;
+        private long version;
+
+        private JobRun(final String jobId, final long version) {
+            this.jobId = jobId;
+            this.version = version;
+        }
+
+        private String jobId() {
+            return jobId;
+        }
+
+        private long version() {
+            return version;
+        }
+
+        private void version(final long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Consumer of chunks of photos parsed from a CSV file.
+     */
+    @FunctionalInterface
+    interface CsvChunkConsumer {
+
+        /**
+         * Accept the chunk of photos.
+         *
+         * @param chunk photos of the chunk
+         * @param recordPosition number of the last CSV record of the chunk
+         * @param last whether the chunk is the last one, possibly empty
+         */
+        void accept(List<PhotoImportDto> chunk, long recordPosition, boolean last);
+    }
+
+    /**
+     * Download permits of a host with the number of downloads waiting for or holding them, updated only by
+     * {@link ConcurrentMap#compute} of the host entry.
+     */
+    private static final class HostPermits {
+
+        private final Semaphore semaphore;
+        private int users;
+
+        private HostPermits(final Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        private Semaphore semaphore() {
+            return semaphore;
+        }
+    }
+
+    /**
+     * Thrown when the job has been updated by another node since the last checkpoint of this run.
+     */
+    private static final class ImportJobTakenOverException extends RuntimeException {
+    }
+
+    private record PendingPhoto(
+            PhotoImportDto photo,
+            CompletableFuture<EncryptedPhoto> encryptedPhoto
+    ) {}
+
+    /**
+     * Photo with fetched data, encrypted into a new document, which is {@code null} if the fetch failed.
+     */
+    private record EncryptedPhoto(
+            PhotoImportDto photo,
+            FetchResult fetchResult,
+            DocumentService.NewDocument document
+    ) {}
+
     private record FetchResult (
             String importPath,
             byte[] data,
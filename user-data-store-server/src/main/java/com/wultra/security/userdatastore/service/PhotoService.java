@@ -26,21 +26,30 @@ import com.wultra.security.userdatastore.client.model.request.*;
 import com.wultra.security.userdatastore.client.model.response.EmbeddedPhotoImportResponse;
 import com.wultra.security.userdatastore.client.model.response.PhotoCreateResponse;
 import com.wultra.security.userdatastore.client.model.response.PhotoResponse;
+import com.wultra.security.userdatastore.client.model.response.PhotosImportCsvResponse;
 import com.wultra.security.userdatastore.client.model.response.PhotosImportResponse;
 import com.wultra.security.userdatastore.converter.PhotoConverter;
 import com.wultra.security.userdatastore.model.entity.DocumentEntity;
 import com.wultra.security.userdatastore.model.entity.PhotoEntity;
 import com.wultra.security.userdatastore.model.error.ResourceNotFoundException;
+import com.wultra.security.userdatastore.model.projection.EntityVersion;
+import com.wultra.security.userdatastore.model.projection.PhotoMetadata;
 import com.wultra.security.userdatastore.model.repository.DocumentRepository;
 import com.wultra.security.userdatastore.model.repository.PhotoRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -61,24 +70,121 @@ public class PhotoService {
     private final Audit audit;
     private final EncryptionService encryptionService;
     private final PhotoConverter photoConverter;
+    private final CacheInvalidationBus cacheInvalidationBus;
     private final PhotoImportService photoImportService;
+    private final ImportJobService importJobService;
+
+    /**
+     * Return the entity tag of the photos returned by {@link #fetchPhotos(String, Optional)}. It is computed from
+     * identifiers and versions only, so that a matching {@code If-None-Match} reads no photo data.
+     *
+     * @param userId user identifier
+     * @param documentId optional document identifier
+     * @return quoted entity tag
+     */
+    @Transactional(readOnly = true)
+    public String fetchPhotosETag(final String userId, final Optional<String> documentId) {
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            audit("action: fetchPhotosETag, userId: {}, documentId: {}", userId, documentId.get());
+            return etag(photoRepository.findVersionsByUserIdAndDocumentId(userId, documentId.get()));
+        }
+        audit("action: fetchPhotosETag, userId: {}", userId, null);
+        return etag(photoRepository.findVersionsByUserId(userId));
+    }
 
     @Transactional(readOnly = true)
     public PhotoResponse fetchPhotos(final String userId, final Optional<String> documentId) {
         if (documentId.isPresent()) {
-            final DocumentEntity documentEntity = documentRepository.findById(documentId.get()).orElseThrow(
-                    () -> new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId)));
-            final List<PhotoEntity> photoEntities = photoRepository.findAllByUserIdAndDocument(userId, documentEntity);
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            final List<PhotoEntity> photoEntities = photoRepository.findAllByUserIdAndDocument(userId, documentRepository.getReferenceById(documentId.get()));
             final List<PhotoDto> photos = photoEntities.stream().map(photoConverter::toPhoto).toList();
             audit("action: fetchPhotos, userId: {}, documentId: {}", userId, documentId.get());
             return new PhotoResponse(photos);
         }
-        final List<PhotoEntity> photoEntities = photoRepository.findAllByUserId(userId);
-        final List<PhotoDto> photos = photoEntities.stream().map(photoConverter::toPhoto).toList();
         audit("action: fetchPhotos, userId: {}", userId, null);
+        final List<PhotoDto> photos = photoRepository.findAllByUserId(userId).stream().map(photoConverter::toPhoto).toList();
         return new PhotoResponse(photos);
     }
 
+    @Transactional(readOnly = true)
+    public PhotoContent fetchPhotoContent(final String userId, final String photoId) {
+        final PhotoEntity photoEntity = photoRepository.findById(photoId)
+                .filter(it -> it.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Photo not found, ID: '%s'".formatted(photoId)));
+        final Resource content = encryptionService.decryptPhotoContent(photoEntity);
+        final MediaType contentType = detectContentType(content);
+        audit("action: fetchPhotoContent, userId: {}, documentId: {}", userId, photoEntity.getDocument().getId());
+        return new PhotoContent(contentType, content);
+    }
+
+    @Transactional(readOnly = true)
+    public PhotoResponse fetchPhotosMetadata(final String userId, final Optional<String> documentId) {
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            final List<PhotoDto> photos = photoRepository.findAllMetadataByUserIdAndDocumentId(userId, documentId.get()).stream()
+                    .map(photoConverter::toPhoto)
+                    .toList();
+            audit("action: fetchPhotosMetadata, userId: {}, documentId: {}", userId, documentId.get());
+            return new PhotoResponse(photos);
+        }
+        final List<PhotoDto> photos = photoRepository.findAllMetadataByUserId(userId).stream()
+                .map(photoConverter::toPhoto)
+                .toList();
+        audit("action: fetchPhotosMetadata, userId: {}", userId, null);
+        return new PhotoResponse(photos);
+    }
+
+    @Transactional(readOnly = true)
+    public PhotoResponse fetchPhotosPage(final String userId, final Optional<String> documentId, final Optional<Integer> limit, final Optional<String> cursor) {
+        final Optional<KeysetCursor> keysetCursor = KeysetCursor.parse(cursor);
+        final int pageSize = limit.orElse(KeysetCursor.DEFAULT_LIMIT);
+        final List<PhotoEntity> photoEntities;
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            photoEntities = keysetCursor.isEmpty()
+                    ? photoRepository.findInitialPageByUserIdAndDocumentId(userId, documentId.get(), KeysetCursor.queryLimit(pageSize))
+                    : photoRepository.findPageByUserIdAndDocumentId(userId, documentId.get(), keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        } else {
+            photoEntities = keysetCursor.isEmpty()
+                    ? photoRepository.findInitialPageByUserId(userId, KeysetCursor.queryLimit(pageSize))
+                    : photoRepository.findPageByUserId(userId, keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        }
+        final List<PhotoDto> photos = photoEntities.stream().limit(pageSize).map(photoConverter::toPhoto).toList();
+        audit("action: fetchPhotos, userId: {}, documentId: {}", userId, documentId.orElse(null));
+        return new PhotoResponse(photos, KeysetCursor.next(photoEntities, pageSize, PhotoEntity::getTimestampCreated, PhotoEntity::getId));
+    }
+
+    @Transactional(readOnly = true)
+    public PhotoResponse fetchPhotosMetadataPage(final String userId, final Optional<String> documentId, final Optional<Integer> limit, final Optional<String> cursor) {
+        final Optional<KeysetCursor> keysetCursor = KeysetCursor.parse(cursor);
+        final int pageSize = limit.orElse(KeysetCursor.DEFAULT_LIMIT);
+        final List<PhotoMetadata> photosMetadata;
+        if (documentId.isPresent()) {
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId.get()));
+            }
+            photosMetadata = keysetCursor.isEmpty()
+                    ? photoRepository.findInitialMetadataPageByUserIdAndDocumentId(userId, documentId.get(), KeysetCursor.queryLimit(pageSize))
+                    : photoRepository.findMetadataPageByUserIdAndDocumentId(userId, documentId.get(), keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        } else {
+            photosMetadata = keysetCursor.isEmpty()
+                    ? photoRepository.findInitialMetadataPageByUserId(userId, KeysetCursor.queryLimit(pageSize))
+                    : photoRepository.findMetadataPageByUserId(userId, keysetCursor.get().timestampCreated(), keysetCursor.get().id(), KeysetCursor.queryLimit(pageSize));
+        }
+        final List<PhotoDto> photos = photosMetadata.stream().limit(pageSize).map(photoConverter::toPhoto).toList();
+        audit("action: fetchPhotosMetadata, userId: {}, documentId: {}", userId, documentId.orElse(null));
+        return new PhotoResponse(photos, KeysetCursor.next(photosMetadata, pageSize, PhotoMetadata::getTimestampCreated, PhotoMetadata::getId));
+    }
+
     @Transactional
     public PhotoCreateResponse createPhoto(final PhotoCreateRequest request) {
         final String userId = request.userId();
@@ -100,32 +206,54 @@ public class PhotoService {
         documentEntity.setTimestampLastUpdated(timestamp);
 
         photoRepository.save(photoEntity);
+        cacheInvalidationBus.publish(userId);
         audit("action: createPhoto, userId: {}, documentId: {}", userId, documentId);
 
         return new PhotoCreateResponse(photoEntity.getId(), documentEntity.getId());
     }
 
-    @Transactional
-    public PhotoCreateResponse createPhoto(final EmbeddedPhotoCreateRequest request, final DocumentEntity documentEntity) {
-        final PhotoEntity photoEntity = new PhotoEntity();
-        photoEntity.setId(UUID.randomUUID().toString());
-        photoEntity.setDocument(documentEntity);
-        photoEntity.setUserId(documentEntity.getUserId());
-        photoEntity.setPhotoType(request.photoType());
-        photoEntity.setExternalId(request.externalId());
-        photoEntity.setTimestampCreated(LocalDateTime.now());
-        encryptionService.encryptPhoto(photoEntity, request.photoData());
-
-        photoRepository.save(photoEntity);
-        audit("action: createPhoto, userId: {}, documentId: {}", photoEntity.getUserId(), documentEntity.getId());
+    /**
+     * Prepare photos embedded in the document with encrypted data, without persisting them.
+     * Does not touch the persistence context, so it may be called by any thread.
+     *
+     * @param requests embedded photo create requests
+     * @param documentEntity document of the photos
+     * @return new photo entities
+     */
+    public List<PhotoEntity> newPhotos(final List<EmbeddedPhotoCreateRequest> requests, final DocumentEntity documentEntity) {
+        final LocalDateTime timestamp = LocalDateTime.now();
+        return requests.stream()
+                .map(request -> {
+                    final PhotoEntity photoEntity = new PhotoEntity();
+                    photoEntity.setId(UUID.randomUUID().toString());
+                    photoEntity.setDocument(documentEntity);
+                    photoEntity.setUserId(documentEntity.getUserId());
+                    photoEntity.setPhotoType(request.photoType());
+                    photoEntity.setExternalId(request.externalId());
+                    photoEntity.setTimestampCreated(timestamp);
+                    encryptionService.encryptPhoto(photoEntity, request.photoData());
+                    return photoEntity;
+                })
+                .toList();
+    }
 
-        return new PhotoCreateResponse(photoEntity.getId(), documentEntity.getId());
+    /**
+     * Save the new photos at once, so that their inserts are batched.
+     *
+     * @param photoEntities new photo entities, their documents already saved
+     */
+    @Transactional
+    public void savePhotos(final List<PhotoEntity> photoEntities) {
+        photoRepository.saveAll(photoEntities);
+        photoEntities.forEach(photoEntity ->
+                audit("action: createPhoto, userId: {}, documentId: {}", photoEntity.getUserId(), photoEntity.getDocument().getId()));
     }
 
     @Transactional
-    public void updatePhoto(final String photoId, final PhotoUpdateRequest request) {
+    public void updatePhoto(final String photoId, final PhotoUpdateRequest request, final Optional<String> ifMatch) {
         final PhotoEntity photoEntity = photoRepository.findById(photoId).orElseThrow(() ->
                 new ResourceNotFoundException("Photo not found, ID: '%s'".formatted(photoId)));
+        ETags.checkIfMatch(ifMatch, () -> ETags.of(photoEntity.getId(), photoEntity.getVersion()));
         final LocalDateTime timestamp = LocalDateTime.now();
         photoEntity.setPhotoType(request.photoType());
         photoEntity.setExternalId(request.externalId());
@@ -135,15 +263,18 @@ public class PhotoService {
         documentEntity.setTimestampLastUpdated(timestamp);
 
         photoRepository.save(photoEntity);
+        cacheInvalidationBus.publish(photoEntity.getUserId());
         audit("action: updatePhoto, userId: {}, documentId: {}", photoEntity.getUserId(), documentEntity.getId());
     }
 
     @Transactional
     public void deletePhotos(final String userId, final Optional<String> documentId) {
+        cacheInvalidationBus.publish(userId);
         if (documentId.isPresent()) {
-            final DocumentEntity documentEntity = documentRepository.findById(documentId.get()).orElseThrow(
-                    () -> new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId)));
-            photoRepository.deleteAllByUserIdAndDocument(userId, documentEntity);
+            if (!documentRepository.existsById(documentId.get())) {
+                throw new ResourceNotFoundException("Document not found, ID: '%s'".formatted(documentId));
+            }
+            photoRepository.deleteAllByUserIdAndDocumentId(userId, documentId.get());
             audit("action: deletePhotos, userId: {}, documentId: {}", userId, documentId.get());
             return;
         }
@@ -165,10 +296,42 @@ public class PhotoService {
                 .build();
     }
 
-    @Transactional
-    @Async
-    public void importPhotosCsv(PhotosImportCsvRequest requestObject) {
-        photoImportService.importPhotosCsv(requestObject.importPaths(), requestObject.attributes());
+    /**
+     * Create an import job and run it asynchronously. The job is discarded when the import executor is saturated.
+     *
+     * @param requestObject photo import from CSV request
+     * @return response with the import job identifier
+     */
+    public PhotosImportCsvResponse importPhotosCsv(PhotosImportCsvRequest requestObject) {
+        final String jobId = importJobService.createCsvJob(requestObject.importPaths(), requestObject.attributes());
+        try {
+            photoImportService.importCsvJob(jobId);
+        } catch (TaskRejectedException e) {
+            importJobService.deleteJob(jobId);
+            throw e;
+        }
+        return new PhotosImportCsvResponse(jobId);
+    }
+
+    /**
+     * Detect content type of the photo from its first bytes.
+     *
+     * @param content photo content
+     * @return detected content type or {@code application/octet-stream}
+     */
+    private static MediaType detectContentType(final Resource content) {
+        try (InputStream is = new BufferedInputStream(content.getInputStream())) {
+            final String contentType = URLConnection.guessContentTypeFromStream(is);
+            return contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (IOException e) {
+            logger.warn("Unable to detect content type of {}, error: {}", content.getDescription(), e.getMessage());
+            logger.debug(e.getMessage(), e);
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private static String etag(final List<EntityVersion> versions) {
+        return ETags.of(versions, EntityVersion::getId, EntityVersion::getVersion);
     }
 
     private void audit(final String message, final String userId, final String documentId) {
@@ -184,4 +347,13 @@ public class PhotoService {
         audit.info(message, auditDetail, userId);
     }
 
+    /**
+     * Decrypted binary content of a photo.
+     *
+     * @param contentType detected content type
+     * @param content photo content
+     */
+    public record PhotoContent(MediaType contentType, Resource content) {
+    }
+
 }
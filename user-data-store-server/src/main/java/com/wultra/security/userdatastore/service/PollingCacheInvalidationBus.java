@@ -0,0 +1,107 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.model.entity.CacheInvalidationEntity;
+import com.wultra.security.userdatastore.model.repository.CacheInvalidationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache invalidation bus writing the invalidations to the table {@code uds_cache_invalidation} within the writing transaction,
+ * polled by the other nodes. Portable to all the supported databases.
+ * <p>
+ * An invalidation becomes visible when its transaction commits, which may be later than its creation timestamp.
+ * So each poll looks back by the configured duration and skips the invalidations already processed.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Slf4j
+public class PollingCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+
+    private final Duration lookback;
+
+    private final Duration retention;
+
+    /**
+     * Invalidations processed within the lookback, keyed by ID.
+     */
+    private final Map<String, LocalDateTime> processed = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime lastPoll = LocalDateTime.now();
+
+    public PollingCacheInvalidationBus(final CacheInvalidationRepository cacheInvalidationRepository, final Duration lookback, final Duration retention) {
+        if (retention.compareTo(lookback) <= 0) {
+            throw new IllegalArgumentException("Retention %s must be longer than lookback %s".formatted(retention, lookback));
+        }
+        logger.info("Polling cache invalidation bus, nodeId: {}, lookback: {}, retention: {}", nodeId, lookback, retention);
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.lookback = lookback;
+        this.retention = retention;
+    }
+
+    @Override
+    protected void publishRemote(final String userId) {
+        final CacheInvalidationEntity entity = new CacheInvalidationEntity();
+        entity.setId(UUID.randomUUID().toString());
+        entity.setNodeId(nodeId);
+        entity.setUserId(userId);
+        entity.setTimestampCreated(LocalDateTime.now());
+        cacheInvalidationRepository.save(entity);
+    }
+
+    /**
+     * Poll the invalidations published by the other nodes and notify the local listeners.
+     */
+    @Scheduled(fixedDelayString = "${user-data-store.cache.invalidation.polling.interval}")
+    public void poll() {
+        final LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime since = lastPoll.minus(lookback);
+        try {
+            for (final CacheInvalidationEntity invalidation : cacheInvalidationRepository.findAllPublishedByOtherNodes(since, nodeId)) {
+                if (processed.putIfAbsent(invalidation.getId(), invalidation.getTimestampCreated()) == null) {
+                    logger.debug("Received cache invalidation, userId: {}, nodeId: {}", invalidation.getUserId(), invalidation.getNodeId());
+                    notifyListeners(invalidation.getUserId());
+                }
+            }
+            lastPoll = now;
+            final LocalDateTime nextSince = now.minus(lookback);
+            processed.values().removeIf(timestamp -> timestamp.isBefore(nextSince));
+        } catch (RuntimeException e) {
+            logger.warn("Polling of cache invalidations failed", e);
+        }
+    }
+
+    /**
+     * Delete the invalidations older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${user-data-store.cache.invalidation.polling.cleanup-interval}")
+    public void cleanup() {
+        final int count = cacheInvalidationRepository.deleteAllByTimestampCreatedBefore(LocalDateTime.now().minus(retention));
+        logger.debug("Deleted {} cache invalidations", count);
+    }
+
+}
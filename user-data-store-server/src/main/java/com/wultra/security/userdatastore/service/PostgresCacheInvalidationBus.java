@@ -0,0 +1,145 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Cache invalidation bus using PostgreSQL {@code NOTIFY} within the writing transaction, so the invalidation is delivered
+ * only when the transaction commits. The other nodes receive it by {@code LISTEN} on a dedicated connection.
+ * <p>
+ * Notifications sent while the connection is lost are not delivered, so all cached data are invalidated whenever
+ * the listener (re)connects.
+ * <p>
+ * The listener connection is obtained from a separate, non-pooled data source, because it is held for the application
+ * lifetime.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Slf4j
+public class PostgresCacheInvalidationBus extends AbstractCacheInvalidationBus implements AutoCloseable {
+
+    private static final String CHANNEL = "uds_cache_invalidation";
+
+    private static final char SEPARATOR = ':';
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataSource listenerDataSource;
+
+    private final Duration pollTimeout;
+
+    private final Duration reconnectDelay;
+
+    private final Thread listenerThread;
+
+    private volatile boolean running = true;
+
+    public PostgresCacheInvalidationBus(final DataSource dataSource, final DataSource listenerDataSource, final Duration pollTimeout, final Duration reconnectDelay,
+                                        final ThreadFactory threadFactory) {
+        logger.info("PostgreSQL cache invalidation bus, nodeId: {}, pollTimeout: {}, reconnectDelay: {}", nodeId, pollTimeout, reconnectDelay);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.listenerDataSource = listenerDataSource;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+        this.listenerThread = threadFactory.newThread(this::runListener);
+        this.listenerThread.setDaemon(true);
+        this.listenerThread.start();
+    }
+
+    @Override
+    protected void publishRemote(final String userId) {
+        // Uses the connection of the current transaction, the notification is sent on commit
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, nodeId + SEPARATOR + userId);
+    }
+
+    /**
+     * Stop listening and release the connection.
+     */
+    @Override
+    public void close() {
+        running = false;
+        listenerThread.interrupt();
+        try {
+            listenerThread.join(pollTimeout.toMillis() + 5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runListener() {
+        while (running) {
+            try (final Connection connection = listenerDataSource.getConnection()) {
+                listen(connection);
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Listening to cache invalidations failed, reconnecting in {}", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listen(final Connection connection) throws SQLException {
+        connection.setAutoCommit(true);
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        // Invalidations published while not listening are lost
+        notifyListenersAll();
+        final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        logger.info("Listening to cache invalidations, channel: {}", CHANNEL);
+        while (running) {
+            final PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+            if (notifications != null) {
+                for (final PGNotification notification : notifications) {
+                    handle(notification.getParameter());
+                }
+            }
+        }
+    }
+
+    private void handle(final String payload) {
+        final int index = payload.indexOf(SEPARATOR);
+        if (index < 0) {
+            logger.warn("Invalid cache invalidation: {}", payload);
+            return;
+        }
+        if (!nodeId.equals(payload.substring(0, index))) {
+            final String userId = payload.substring(index + 1);
+            logger.debug("Received cache invalidation, userId: {}", userId);
+            notifyListeners(userId);
+        }
+    }
+
+}
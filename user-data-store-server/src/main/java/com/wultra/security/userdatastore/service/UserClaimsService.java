@@ -18,7 +18,6 @@
 package com.wultra.security.userdatastore.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wultra.core.audit.base.Audit;
 import com.wultra.core.audit.base.model.AuditDetail;
@@ -34,7 +33,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -56,22 +54,17 @@ public class UserClaimsService {
     private final DocumentRepository documentRepository;
     private final Audit audit;
     private final EncryptionService encryptionService;
+    private final ClaimsCache claimsCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Transactional(readOnly = true)
     public Object fetchUserClaims(final String userId) {
-        final String claims = documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE)
-                .stream()
-                .map(encryptionService::decryptDocumentData)
-                .findFirst()
+        final Object claims = claimsCache.get(userId, it -> documentRepository.findAllByUserIdAndDataType(it, CLAIMS_DATA_TYPE).stream().findFirst())
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Claims for user ID: '%s' not found".formatted(userId)));
         audit("action: fetchUserClaims, userId: {}", userId, null);
-        try {
-            return objectMapper.readValue(claims, new TypeReference<>() {});
-        } catch (JsonProcessingException e) {
-            throw new InvalidRequestException(e);
-        }
+        return claims;
     }
 
     @Transactional
@@ -82,6 +75,7 @@ public class UserClaimsService {
         } catch (JsonProcessingException e) {
             throw new InvalidRequestException(e);
         }
+        cacheInvalidationBus.publish(userId);
         documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE).stream().findAny()
                 .ifPresentOrElse(entity -> {
                     logger.debug("Updating claims of user ID: {}", userId);
@@ -108,8 +102,8 @@ public class UserClaimsService {
 
     @Transactional
     public void deleteUserClaims(final String userId) {
-        final List<DocumentEntity> toDelete = documentRepository.findAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE);
-        documentRepository.deleteAll(toDelete);
+        cacheInvalidationBus.publish(userId);
+        documentRepository.deleteAllByUserIdAndDataType(userId, CLAIMS_DATA_TYPE);
         audit("action: deleteUserClaims, userId: {}", userId, null);
     }
 
@@ -0,0 +1,86 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.core.audit.base.Audit;
+import com.wultra.core.audit.base.model.AuditDetail;
+import com.wultra.security.userdatastore.model.repository.*;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Service for the user data as a whole.
+ * <p>
+ * Data are removed by set-based bulk deletes, one statement per table, without loading the entities.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@Service
+@Slf4j
+@AllArgsConstructor
+public class UserDataService {
+
+    private final DocumentRepository documentRepository;
+    private final DocumentHistoryRepository documentHistoryRepository;
+    private final PhotoRepository photoRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final ImportResultRepository importResultRepository;
+    private final UserClaimsRepository userClaimsRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final Audit audit;
+
+    /**
+     * Erase all data of the given user, i.e. documents including claims, photos, attachments, document history,
+     * import results, and legacy user claims, in a single transaction.
+     *
+     * @param userId user identifier
+     */
+    @Transactional
+    public void eraseUserData(final String userId) {
+        cacheInvalidationBus.publish(userId);
+        // Children first to satisfy the foreign keys to the documents
+        final int importResults = importResultRepository.deleteAllByUserId(userId);
+        final int photos = photoRepository.deleteAllByUserId(userId);
+        final int attachments = attachmentRepository.deleteAllByUserId(userId);
+        final int documentHistory = documentHistoryRepository.deleteAllByUserId(userId);
+        final int documents = documentRepository.deleteAllByUserId(userId);
+        final int userClaims = userClaimsRepository.deleteAllByUserId(userId);
+        logger.debug("Erased data of user ID: {}, documents: {}, photos: {}, attachments: {}, document history: {}, import results: {}, user claims: {}",
+                userId, documents, photos, attachments, documentHistory, importResults, userClaims);
+        audit("action: eraseUserData, userId: {}", userId);
+    }
+
+    private void audit(final String message, final String userId) {
+        final String loggedUsername = Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
+                .map(Authentication::getName)
+                .orElse(null);
+        final AuditDetail auditDetail = AuditDetail.builder()
+                .type("userData")
+                .param("userId", userId)
+                .param("actorId", loggedUsername)
+                .build();
+        audit.info(message, auditDetail, userId);
+    }
+
+}
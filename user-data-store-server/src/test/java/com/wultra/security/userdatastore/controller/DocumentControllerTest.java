@@ -23,6 +23,7 @@ import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequ
 import com.wultra.security.userdatastore.client.model.request.DocumentUpdateRequest;
 import com.wultra.security.userdatastore.client.model.response.DocumentResponse;
 import com.wultra.security.userdatastore.config.WebSecurityConfiguration;
+import com.wultra.security.userdatastore.model.error.PreconditionFailedException;
 import com.wultra.security.userdatastore.service.DocumentService;
 import io.getlime.core.rest.model.base.request.ObjectRequest;
 import org.junit.jupiter.api.Test;
@@ -30,6 +31,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -41,6 +43,7 @@ import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -98,6 +101,39 @@ class DocumentControllerTest {
                 .andExpect(jsonPath("$.responseObject.documents[0].documentData", containsString("\"https://claims.example.com/department\":\"engineering\"")));
     }
 
+    @WithMockUser(roles = "READ")
+    @Test
+    void testGet_paginationWithDocumentId() throws Exception {
+        mvc.perform(get("/documents?userId=alice&documentId=d1&limit=10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", is("ERROR")))
+                .andExpect(jsonPath("$.responseObject.code", is("INVALID_REQUEST")));
+    }
+
+    @WithMockUser(roles = "READ")
+    @Test
+    void testGet_notModified() throws Exception {
+        when(service.fetchDocumentsETag("alice", Optional.empty()))
+                .thenReturn("\"1a2b\"");
+        when(service.fetchDocuments("alice", Optional.empty()))
+                .thenReturn(new DocumentResponse(Collections.emptyList()));
+
+        mvc.perform(get("/documents?userId=alice")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1a2b\""));
+
+        mvc.perform(get("/documents?userId=alice")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1a2b\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1a2b\""))
+                .andExpect(content().string(""));
+
+        verify(service).fetchDocuments("alice", Optional.empty());
+    }
+
    @WithMockUser(roles = "WRITE")
    @Test
    void testGet_wrongRoles() throws Exception {
@@ -198,7 +234,23 @@ class DocumentControllerTest {
                         .contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.status", is("OK")));
 
-        verify(service).updateDocument("1", documentUpdateRequest);
+        verify(service).updateDocument("1", documentUpdateRequest, Optional.empty());
+    }
+
+    @WithMockUser(roles = "WRITE")
+    @Test
+    void testPut_preconditionFailed() throws Exception {
+        final DocumentUpdateRequest documentUpdateRequest = new DocumentUpdateRequest("alice", "profile", "claims", "1", null, "{}", Collections.emptyMap());
+        doThrow(new PreconditionFailedException("Resource was modified"))
+                .when(service).updateDocument("1", documentUpdateRequest, Optional.of("\"1a2b\""));
+
+        mvc.perform(put("/admin/documents/1")
+                        .header(HttpHeaders.IF_MATCH, "\"1a2b\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(new ObjectRequest<>(documentUpdateRequest))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status", is("ERROR")))
+                .andExpect(jsonPath("$.responseObject.code", is("PRECONDITION_FAILED")));
     }
 
     @WithMockUser(roles = "READ")
@@ -20,6 +20,7 @@ package com.wultra.security.userdatastore.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wultra.security.userdatastore.client.model.dto.PhotoDto;
 import com.wultra.security.userdatastore.client.model.request.PhotoCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.PhotosImportCsvRequest;
 import com.wultra.security.userdatastore.client.model.response.PhotoResponse;
 import com.wultra.security.userdatastore.config.WebSecurityConfiguration;
 import com.wultra.security.userdatastore.service.PhotoService;
@@ -29,6 +30,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -37,11 +40,14 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -101,6 +107,72 @@ class PhotoControllerTest {
                 .andExpect(jsonPath("$.responseObject.photos[0].photoData", is("iVBORw0KGgoAAAANSUhEUgAAAGQAAABkCAIAAAD/gAIDAAAANElEQVR4Xu3BAQ0AAADCoPdPbQ43oAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAfgx1lAABHywbagAAAABJRU5ErkJggg==")));
     }
 
+    @WithMockUser(roles = "READ")
+    @Test
+    void testGet_metadata() throws Exception {
+        PhotoDto photo = PhotoDto.builder()
+                .userId("alice")
+                .documentId("1")
+                .photoType("person")
+                .build();
+        when(service.fetchPhotosMetadata("alice", Optional.of("1")))
+                .thenReturn(new PhotoResponse(Collections.singletonList(photo)));
+
+        mvc.perform(get("/photos?userId=alice&documentId=1&include=metadata")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("OK")))
+                .andExpect(jsonPath("$.responseObject.photos[0].photoType", is("person")))
+                .andExpect(jsonPath("$.responseObject.photos[0].photoData").doesNotExist());
+
+        verify(service, never()).fetchPhotos("alice", Optional.of("1"));
+        verify(service, never()).fetchPhotosETag("alice", Optional.of("1"));
+    }
+
+    @WithMockUser(roles = "READ")
+    @Test
+    void testGet_invalidInclude() throws Exception {
+        mvc.perform(get("/photos?userId=alice&documentId=1&include=data")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @WithMockUser(roles = "READ")
+    @Test
+    void testGetContent() throws Exception {
+        final byte[] imageData = Base64.getDecoder().decode(encodedPhoto);
+        when(service.fetchPhotoContent("alice", "1"))
+                .thenReturn(new PhotoService.PhotoContent(MediaType.IMAGE_PNG, new ByteArrayResource(imageData)));
+
+        mvc.perform(get("/photos/1/content?userId=alice"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().longValue("Content-Length", imageData.length))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().bytes(imageData));
+    }
+
+    @WithMockUser(roles = "READ")
+    @Test
+    void testGetContent_range() throws Exception {
+        final byte[] imageData = Base64.getDecoder().decode(encodedPhoto);
+        when(service.fetchPhotoContent("alice", "1"))
+                .thenReturn(new PhotoService.PhotoContent(MediaType.IMAGE_PNG, new ByteArrayResource(imageData)));
+
+        mvc.perform(get("/photos/1/content?userId=alice")
+                        .header("Range", "bytes=0-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 0-7/" + imageData.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(imageData, 0, 8)));
+    }
+
+    @WithMockUser(roles = "WRITE")
+    @Test
+    void testGetContent_wrongRoles() throws Exception {
+        mvc.perform(get("/photos/1/content?userId=alice"))
+                .andExpect(status().isForbidden());
+    }
+
     @WithMockUser(roles = "WRITE")
     @Test
     void testGet_wrongRoles() throws Exception {
@@ -153,4 +225,20 @@ class PhotoControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @WithMockUser(roles = "WRITE")
+    @Test
+    void testImportCsv_executorSaturated() throws Exception {
+        final var importRequest = new PhotosImportCsvRequest(List.of("/tmp/photos.csv"), null);
+        when(service.importPhotosCsv(importRequest))
+                .thenThrow(new TaskRejectedException("Executor saturated"));
+
+        final String requestBodyJson = new ObjectMapper().writeValueAsString(new ObjectRequest<>(importRequest));
+        mvc.perform(post("/admin/photos/import/csv")
+                        .content(requestBodyJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.status", is("ERROR")))
+                .andExpect(jsonPath("$.responseObject.code", is("TOO_MANY_REQUESTS")));
+    }
+
 }
@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -31,6 +32,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -127,6 +129,20 @@ class UserClaimsControllerTest {
         verify(service).createOrUpdateUserClaims("alice", expectedClaims);
     }
 
+    @WithMockUser(roles = "WRITE")
+    @Test
+    void testPost_concurrentCreate() throws Exception {
+        doThrow(new DataIntegrityViolationException("uds_document_claims_user"))
+                .when(service).createOrUpdateUserClaims("alice", Map.of("sub", "83692"));
+
+        mvc.perform(post("/public/user-claims?userId=alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sub\": \"83692\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is("ERROR")))
+                .andExpect(jsonPath("$.responseObject.code", is("CONFLICT")));
+    }
+
     @WithMockUser(roles = "READ")
     @Test
     void testPost_wrongRoles() throws Exception {
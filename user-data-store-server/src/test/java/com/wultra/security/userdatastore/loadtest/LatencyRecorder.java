@@ -0,0 +1,130 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.loadtest;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recorder of request latencies per endpoint, summarized to percentiles and throughput.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+class LatencyRecorder {
+
+    private final Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Call the request and record its latency, or an error if it fails.
+     *
+     * @param endpoint endpoint name, e.g. {@code GET /documents}
+     * @param request request to call
+     * @param <T> type of the response
+     * @return response
+     * @throws Exception if the request fails
+     */
+    <T> T record(final String endpoint, final Request<T> request) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            final T response = request.call();
+            latencies.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(System.nanoTime() - start);
+            return response;
+        } catch (Exception e) {
+            errors.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Summarize the recorded latencies, sorted by endpoint.
+     *
+     * @param elapsed duration of the measurement
+     * @return summary per endpoint
+     */
+    List<EndpointSummary> summarize(final Duration elapsed) {
+        final Set<String> endpoints = new TreeSet<>(latencies.keySet());
+        endpoints.addAll(errors.keySet());
+        return endpoints.stream()
+                .map(endpoint -> summarize(endpoint, elapsed))
+                .toList();
+    }
+
+    /**
+     * Return the total number of failed requests.
+     *
+     * @return number of errors
+     */
+    long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private EndpointSummary summarize(final String endpoint, final Duration elapsed) {
+        final long[] sorted = latencies.getOrDefault(endpoint, new ArrayDeque<>()).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        final long errorCount = Optional.ofNullable(errors.get(endpoint)).map(LongAdder::sum).orElse(0L);
+        final double throughput = sorted.length * 1_000_000_000.0 / elapsed.toNanos();
+        return new EndpointSummary(endpoint, sorted.length, errorCount, throughput,
+                toMillis(percentile(sorted, 0.50)), toMillis(percentile(sorted, 0.99)), toMillis(percentile(sorted, 1.0)));
+    }
+
+    /**
+     * Return the percentile by the nearest-rank method.
+     */
+    private static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Request to measure.
+     *
+     * @param <T> type of the response
+     */
+    @FunctionalInterface
+    interface Request<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Latency and throughput summary of an endpoint.
+     *
+     * @param endpoint endpoint name
+     * @param requests number of successful requests
+     * @param errors number of failed requests
+     * @param throughput successful requests per second
+     * @param p50 median latency in milliseconds
+     * @param p99 99th percentile latency in milliseconds
+     * @param max maximum latency in milliseconds
+     */
+    record EndpointSummary(String endpoint, long requests, long errors, double throughput, double p50, double p99, double max) {
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wultra.core.rest.client.base.RestClientConfiguration;
+import com.wultra.security.userdatastore.UserDataStoreRestClient;
+import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.EmbeddedAttachmentCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.EmbeddedPhotoCreateRequest;
+import com.wultra.security.userdatastore.client.model.response.DocumentCreateResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.security.Security;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load test of the REST API, driving mixed document, photo, and claims scenarios by concurrent virtual users against
+ * the embedded server. Reports latency percentiles and throughput per endpoint to the log and to a JSON file.
+ * <p>
+ * Excluded from the regular build, run by {@code mvn -P load-test test}. The database may be switched by
+ * {@code spring.datasource.*} system properties, in-memory H2 is used by default.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "logging.level.com.wultra.security.userdatastore=WARN")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Tag("load-test")
+@Slf4j
+class LoadTest {
+
+    private static final String USER_DATA_STORE_REST_URL = "http://localhost:%d/user-data-store";
+
+    private static final String PHOTO_DATA = "aW1hZ2VfZGF0YQ==";
+
+    @LocalServerPort
+    private int serverPort;
+
+    @Value("${load-test.threads:8}")
+    private int threads;
+
+    @Value("${load-test.warmup:PT10S}")
+    private Duration warmup;
+
+    @Value("${load-test.duration:PT30S}")
+    private Duration duration;
+
+    @Value("${load-test.result:target/load-test-result.json}")
+    private File resultFile;
+
+    private UserDataStoreRestClient restClient;
+
+    @BeforeAll
+    void initTests() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        final RestClientConfiguration config = new RestClientConfiguration();
+        config.setHttpBasicAuthEnabled(true);
+        config.setHttpBasicAuthUsername("admin");
+        config.setHttpBasicAuthPassword("admin");
+        config.setBaseUrl(USER_DATA_STORE_REST_URL.formatted(serverPort));
+        restClient = new UserDataStoreRestClient(config);
+    }
+
+    @Test
+    void testLoad() throws Exception {
+        logger.warn("Load test started, threads: {}, warmup: {}, duration: {}", threads, warmup, duration);
+        run("warmup", warmup, new LatencyRecorder());
+
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final Duration elapsed = run("measurement", duration, recorder);
+        final List<LatencyRecorder.EndpointSummary> summary = recorder.summarize(elapsed);
+
+        report(summary, elapsed);
+        assertEquals(0, recorder.errorCount(), "Requests failed during the load test");
+    }
+
+    private Duration run(final String phase, final Duration phaseDuration, final LatencyRecorder recorder) throws Exception {
+        final Instant start = Instant.now();
+        final Instant deadline = start.plus(phaseDuration);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final String userPrefix = "load_%s_%d".formatted(phase, i);
+                futures.add(executor.submit(() -> {
+                    int iterations = 0;
+                    while (Instant.now().isBefore(deadline)) {
+                        final String userId = userPrefix + "_" + iterations++;
+                        try {
+                            runScenario(userId, recorder);
+                        } catch (Exception e) {
+                            // Counted by the recorder, the rest of the scenario depends on the failed request
+                            logger.debug("Load test scenario failed, user ID: {}, error: {}", userId, e.getMessage());
+                        }
+                    }
+                    return iterations;
+                }));
+            }
+            int iterations = 0;
+            for (Future<Integer> future : futures) {
+                iterations += future.get();
+            }
+            final Duration elapsed = Duration.between(start, Instant.now());
+            logger.warn("Load test {} finished, scenarios: {}, elapsed: {}", phase, iterations, elapsed);
+            return elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the scenario of a single user: create a document with a photo and an attachment, fetch them, create, fetch
+     * and patch claims, and finally erase all data of the user. The scenario stops at the first failed request.
+     */
+    private void runScenario(final String userId, final LatencyRecorder recorder) throws Exception {
+        final DocumentCreateRequest documentRequest = new DocumentCreateRequest(userId, "profile", "test_type", null, null, "test_data", Map.of("key", "value"),
+                List.of(new EmbeddedPhotoCreateRequest("person", PHOTO_DATA, null)),
+                List.of(new EmbeddedAttachmentCreateRequest("text", "test_data", null)));
+        final DocumentCreateResponse document = recorder.record("POST /admin/documents", () -> restClient.createDocument(documentRequest));
+        recorder.record("GET /documents", () -> restClient.fetchDocuments(userId, null));
+        recorder.record("GET /photos", () -> restClient.fetchPhotos(userId, document.id()));
+        recorder.record("GET /attachments", () -> restClient.fetchAttachments(userId, document.id()));
+
+        final Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("name", "Alice Adams");
+        claims.put("email", "alice@example.com");
+        claims.put("address", Map.of("city", "Prague", "zip", "10000"));
+        recorder.record("POST /admin/claims", () -> {
+            restClient.createClaims(userId, claims);
+            return null;
+        });
+        recorder.record("GET /claims", () -> restClient.fetchClaims(userId, null));
+        recorder.record("GET /claims?claim", () -> restClient.fetchClaims(userId, "address/city"));
+        recorder.record("PATCH /admin/claims", () -> {
+            restClient.mergePatchClaims(userId, Map.of("email", "alice.adams@example.com"));
+            return null;
+        });
+
+        recorder.record("DELETE /admin/user-data", () -> {
+            restClient.eraseUserData(userId);
+            return null;
+        });
+    }
+
+    private void report(final List<LatencyRecorder.EndpointSummary> summary, final Duration elapsed) throws Exception {
+        final StringBuilder table = new StringBuilder("%n%-26s %10s %8s %12s %10s %10s %10s%n".formatted("Endpoint", "Requests", "Errors", "Req/s", "p50 [ms]", "p99 [ms]", "Max [ms]"));
+        for (LatencyRecorder.EndpointSummary endpoint : summary) {
+            table.append("%-26s %10d %8d %12.1f %10.2f %10.2f %10.2f%n".formatted(
+                    endpoint.endpoint(), endpoint.requests(), endpoint.errors(), endpoint.throughput(), endpoint.p50(), endpoint.p99(), endpoint.max()));
+        }
+        logger.warn("Load test results, threads: {}, elapsed: {}{}", threads, elapsed, table);
+
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", Instant.now().toString());
+        result.put("threads", threads);
+        result.put("durationMillis", elapsed.toMillis());
+        result.put("endpoints", summary);
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(resultFile, result);
+        logger.warn("Load test results written to {}", resultFile.getAbsolutePath());
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.model.repository;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query plan regression test making sure the frequent queries are served by an index.
+ * <p>
+ * The H2 schema is created from the JPA {@code @Index} annotations, so the test covers the annotations only,
+ * not the Liquibase changesets nor the SQL scripts, which have to declare the same indexes.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Lookups by user ID only may use any index prefixed by user_id
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "SELECT * FROM uds_document WHERE user_id = 'alice' AND data_type = 'claims'      | uds_document_user_data_type",
+            "SELECT * FROM uds_document WHERE user_id = 'alice'                               | uds_document_user_",
+            "SELECT * FROM uds_document WHERE external_id = 'ext-1'                           | uds_document_external_id",
+            "SELECT * FROM uds_document_history WHERE document_id = 'd1'                      | uds_document_history_document",
+            "SELECT * FROM uds_document_history WHERE user_id = 'alice'                       | uds_document_history_user",
+            "SELECT * FROM uds_photo WHERE user_id = 'alice' AND document_id = 'd1'           | uds_photo_user_document",
+            "SELECT * FROM uds_photo WHERE user_id = 'alice'                                  | uds_photo_user_",
+            "SELECT * FROM uds_photo WHERE document_id = 'd1'                                 | uds_photo_document",
+            "SELECT * FROM uds_attachment WHERE user_id = 'alice' AND document_id = 'd1'      | uds_attachment_user_document",
+            "SELECT * FROM uds_attachment WHERE user_id = 'alice'                             | uds_attachment_user_",
+            "SELECT * FROM uds_attachment WHERE document_id = 'd1'                            | uds_attachment_document",
+            "SELECT * FROM uds_document WHERE user_id = 'alice' ORDER BY timestamp_created, id   | uds_document_user_created",
+            "SELECT * FROM uds_photo WHERE user_id = 'alice' ORDER BY timestamp_created, id      | uds_photo_user_created",
+            "SELECT * FROM uds_attachment WHERE user_id = 'alice' ORDER BY timestamp_created, id | uds_attachment_user_created"
+    })
+    void testQueryUsesIndex(final String query, final String expectedIndex) {
+        final String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+
+        assertTrue(plan.toLowerCase().contains(expectedIndex), () -> "Expected index " + expectedIndex + " in plan: " + plan);
+    }
+
+}
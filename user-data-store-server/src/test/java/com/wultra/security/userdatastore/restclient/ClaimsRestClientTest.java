@@ -18,6 +18,7 @@
 package com.wultra.security.userdatastore.restclient;
 
 import com.wultra.core.rest.client.base.RestClientConfiguration;
+import com.wultra.core.rest.client.base.RestClientException;
 import com.wultra.security.userdatastore.UserDataStoreRestClient;
 import com.wultra.security.userdatastore.client.model.error.UserDataStoreClientException;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -26,13 +27,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.security.Security;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -103,4 +107,46 @@ class ClaimsRestClientTest {
         restClient.deleteClaims("bob", null);
         assertThrows(UserDataStoreClientException.class, () -> restClient.fetchClaims("bob", null));
     }
+
+    @Test
+    void testFetchSingleClaim() throws Exception {
+        final Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("claim1", "value1");
+        claims.put("address", Map.of("city", "Prague"));
+        restClient.createClaims("claims_user", claims);
+
+        assertEquals("value1", restClient.fetchClaims("claims_user", "claim1"));
+        assertEquals("Prague", restClient.fetchClaims("claims_user", "address/city"));
+        assertNull(restClient.fetchClaims("claims_user", "address/street"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPatch() throws Exception {
+        final Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("claim1", "value1");
+        claims.put("claim2", "value2");
+        claims.put("address", Map.of("city", "Prague", "zip", "10000"));
+        restClient.createClaims("patch_user", claims);
+
+        final Map<String, Object> mergePatch = new LinkedHashMap<>();
+        mergePatch.put("claim1", "value3");
+        mergePatch.put("claim2", null);
+        mergePatch.put("address", Map.of("city", "Brno"));
+        restClient.mergePatchClaims("patch_user", mergePatch);
+
+        assertEquals(Map.of("claim1", "value3", "address", Map.of("city", "Brno", "zip", "10000")), restClient.fetchClaims("patch_user", null));
+
+        restClient.jsonPatchClaims("patch_user", List.of(
+                Map.of("op", "test", "path", "/claim1", "value", "value3"),
+                Map.of("op", "remove", "path", "/address/zip"),
+                Map.of("op", "add", "path", "/claim4", "value", List.of(1, 2))));
+
+        assertEquals(Map.of("claim1", "value3", "address", Map.of("city", "Brno"), "claim4", List.of(1, 2)), restClient.fetchClaims("patch_user", null));
+
+        final UserDataStoreClientException exception = assertThrows(UserDataStoreClientException.class, () ->
+                restClient.jsonPatchClaims("patch_user", List.of(Map.of("op", "test", "path", "/claim1", "value", "value1"))));
+        assertEquals(HttpStatus.CONFLICT, ((RestClientException) exception.getCause()).getStatusCode());
+        assertEquals("value3", restClient.fetchClaims("patch_user", "claim1"));
+    }
 }
@@ -22,17 +22,23 @@ import com.wultra.security.userdatastore.UserDataStoreRestClient;
 import com.wultra.security.userdatastore.client.model.dto.DocumentDto;
 import com.wultra.security.userdatastore.client.model.error.UserDataStoreClientException;
 import com.wultra.security.userdatastore.client.model.request.*;
+import com.wultra.security.userdatastore.client.model.response.AttachmentResponse;
 import com.wultra.security.userdatastore.client.model.response.DocumentCreateResponse;
 import com.wultra.security.userdatastore.client.model.response.DocumentResponse;
+import com.wultra.security.userdatastore.client.model.response.PhotoResponse;
+import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import com.wultra.security.userdatastore.model.repository.DocumentRepository;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.security.Security;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -51,6 +57,9 @@ class DocumentRestClientTest {
 
     @LocalServerPort
     private int serverPort;
+
+    @Autowired
+    private DocumentRepository documentRepository;
     
     private UserDataStoreRestClient restClient;
 
@@ -87,6 +96,101 @@ class DocumentRestClientTest {
         assertEquals(1, response.attachments().size());
     }
 
+    @Test
+    void testFetchMetadata() throws Exception {
+        final List<EmbeddedPhotoCreateRequest> photos = List.of(new EmbeddedPhotoCreateRequest("person", "aW1hZ2VfZGF0YQ==", "photo1"));
+        final List<EmbeddedAttachmentCreateRequest> attachments = List.of(new EmbeddedAttachmentCreateRequest("text", "test_data", "attachment1"));
+        final DocumentCreateRequest request = new DocumentCreateRequest("carol", "test", "test_type", "1", "document1", "test_data", Map.of("key", "value"), photos, attachments);
+        final DocumentCreateResponse response = restClient.createDocument(request);
+
+        final DocumentResponse documentResponse = restClient.fetchDocuments("carol", null, true);
+        assertEquals(1, documentResponse.documents().size());
+        final DocumentDto document = documentResponse.documents().get(0);
+        assertEquals(response.id(), document.id());
+        assertEquals("carol", document.userId());
+        assertEquals("test", document.documentType());
+        assertEquals("document1", document.externalId());
+        assertEquals(Map.of("key", "value"), document.attributes());
+        assertNotNull(document.timestampCreated());
+        assertNull(document.documentData());
+
+        final PhotoResponse photoResponse = restClient.fetchPhotos("carol", response.id(), true);
+        assertEquals(1, photoResponse.photos().size());
+        assertEquals(response.photos().get(0).id(), photoResponse.photos().get(0).id());
+        assertEquals(response.id(), photoResponse.photos().get(0).documentId());
+        assertEquals("person", photoResponse.photos().get(0).photoType());
+        assertEquals("photo1", photoResponse.photos().get(0).externalId());
+        assertNull(photoResponse.photos().get(0).photoData());
+
+        final AttachmentResponse attachmentResponse = restClient.fetchAttachments("carol", response.id(), true);
+        assertEquals(1, attachmentResponse.attachments().size());
+        assertEquals(response.attachments().get(0).id(), attachmentResponse.attachments().get(0).id());
+        assertEquals("text", attachmentResponse.attachments().get(0).attachmentType());
+        assertEquals("attachment1", attachmentResponse.attachments().get(0).externalId());
+        assertNull(attachmentResponse.attachments().get(0).attachmentData());
+
+        assertEquals("aW1hZ2VfZGF0YQ==", restClient.fetchPhotos("carol", response.id()).photos().get(0).photoData());
+    }
+
+    @Test
+    void testFetchPaginated() throws Exception {
+        final List<EmbeddedPhotoCreateRequest> photos = List.of(
+                new EmbeddedPhotoCreateRequest("person", "aW1hZ2VfZGF0YQ==", "photo1"),
+                new EmbeddedPhotoCreateRequest("person", "aW1hZ2VfZGF0YQ==", "photo2"),
+                new EmbeddedPhotoCreateRequest("person", "aW1hZ2VfZGF0YQ==", "photo3"));
+        final Set<String> documentIds = new HashSet<>();
+        String documentId = null;
+        for (int i = 0; i < 3; i++) {
+            final DocumentCreateRequest request = new DocumentCreateRequest("dave", "test", "test_type", "1", "document" + i, "test_data", Collections.emptyMap(), photos, null);
+            documentId = restClient.createDocument(request).id();
+            documentIds.add(documentId);
+        }
+
+        final DocumentResponse firstPage = restClient.fetchDocuments("dave", false, 2, null);
+        assertEquals(2, firstPage.documents().size());
+        assertNotNull(firstPage.nextCursor());
+        assertEquals("test_data", firstPage.documents().get(0).documentData());
+
+        final DocumentResponse secondPage = restClient.fetchDocuments("dave", true, 2, firstPage.nextCursor());
+        assertEquals(1, secondPage.documents().size());
+        assertNull(secondPage.nextCursor());
+        assertNull(secondPage.documents().get(0).documentData());
+
+        final Set<String> fetchedIds = new HashSet<>();
+        firstPage.documents().forEach(it -> fetchedIds.add(it.id()));
+        secondPage.documents().forEach(it -> fetchedIds.add(it.id()));
+        assertEquals(documentIds, fetchedIds);
+
+        final PhotoResponse photoPage = restClient.fetchPhotos("dave", documentId, false, 3, null);
+        assertEquals(3, photoPage.photos().size());
+        assertNull(photoPage.nextCursor());
+
+        final PhotoResponse photoFirstPage = restClient.fetchPhotos("dave", documentId, true, 1, null);
+        final PhotoResponse photoSecondPage = restClient.fetchPhotos("dave", documentId, true, 1, photoFirstPage.nextCursor());
+        assertEquals(1, photoSecondPage.photos().size());
+        assertNotEquals(photoFirstPage.photos().get(0).id(), photoSecondPage.photos().get(0).id());
+
+        final AttachmentResponse attachmentResponse = restClient.fetchAttachments("dave", documentId, false, 10, null);
+        assertTrue(attachmentResponse.attachments().isEmpty());
+        assertNull(attachmentResponse.nextCursor());
+
+        assertThrows(UserDataStoreClientException.class, () -> restClient.fetchDocuments("dave", false, 2, "invalid"));
+        assertThrows(UserDataStoreClientException.class, () -> restClient.fetchDocuments("dave", false, 0, null));
+    }
+
+    @Test
+    void testFetchFirstPageContainsEarlyTimestamp() throws Exception {
+        final DocumentCreateRequest request = new DocumentCreateRequest("erin", "test", "test_type", "1", null, "test_data", Collections.emptyMap(), Collections.emptyList(), Collections.emptyList());
+        final String documentId = restClient.createDocument(request).id();
+        final DocumentEntity documentEntity = documentRepository.findById(documentId).orElseThrow();
+        documentEntity.setTimestampCreated(LocalDateTime.of(1960, 1, 1, 0, 0));
+        documentRepository.save(documentEntity);
+
+        final DocumentResponse firstPage = restClient.fetchDocuments("erin", true, 10, null);
+        assertEquals(1, firstPage.documents().size());
+        assertEquals(documentId, firstPage.documents().get(0).id());
+    }
+
     @Test
     void testDeleteComposite() throws Exception {
         final List<EmbeddedPhotoCreateRequest> photos = List.of(new EmbeddedPhotoCreateRequest("test_type", "dGVzdF9kYXRh", null));
@@ -102,6 +206,28 @@ class DocumentRestClientTest {
         assertThrows(UserDataStoreClientException.class, () -> restClient.fetchDocuments("alice", response.id()));
     }
 
+    @Test
+    void testEraseUserData() throws Exception {
+        final List<EmbeddedPhotoCreateRequest> photos = List.of(new EmbeddedPhotoCreateRequest("test_type", "dGVzdF9kYXRh", null));
+        final List<EmbeddedAttachmentCreateRequest> attachments = List.of(new EmbeddedAttachmentCreateRequest("test_type", "test_data", null));
+        final DocumentCreateRequest request = new DocumentCreateRequest("erin", "test", "test_type", "1", null, "test_data", Collections.emptyMap(), photos, attachments);
+        final DocumentCreateResponse response = restClient.createDocument(request);
+        restClient.updateDocument(response.id(), new DocumentUpdateRequest("erin", "test", "test_type", "1", null, "test_data2", Collections.emptyMap()));
+        restClient.createClaims("erin", Map.of("claim1", "value1"));
+        final DocumentCreateResponse otherResponse = restClient.createDocument(
+                new DocumentCreateRequest("frank", "test", "test_type", "1", null, "test_data", Collections.emptyMap(), photos, attachments));
+
+        restClient.eraseUserData("erin");
+
+        assertTrue(restClient.fetchDocuments("erin", null).documents().isEmpty());
+        assertThrows(UserDataStoreClientException.class, () -> restClient.fetchPhotos("erin", response.id()));
+        assertThrows(UserDataStoreClientException.class, () -> restClient.fetchAttachments("erin", response.id()));
+        assertThrows(UserDataStoreClientException.class, () -> restClient.fetchClaims("erin", null));
+
+        assertEquals(1, restClient.fetchDocuments("frank", otherResponse.id()).documents().size());
+        assertEquals(1, restClient.fetchPhotos("frank", otherResponse.id()).photos().size());
+    }
+
     @Test
     void testLifeCycle() throws Exception {
         DocumentCreateRequest request = new DocumentCreateRequest("alice", "test_type", "test_data_type", "1", null, "test_data", Collections.emptyMap(), Collections.emptyList(), Collections.emptyList());
@@ -23,10 +23,18 @@ import com.wultra.security.userdatastore.client.model.dto.PhotoDto;
 import com.wultra.security.userdatastore.client.model.error.UserDataStoreClientException;
 import com.wultra.security.userdatastore.client.model.request.*;
 import com.wultra.security.userdatastore.client.model.response.*;
+import com.wultra.security.userdatastore.model.entity.ImportJobEntity;
+import com.wultra.security.userdatastore.model.error.PreconditionFailedException;
+import com.wultra.security.userdatastore.model.repository.ImportJobRepository;
+import com.wultra.security.userdatastore.service.ImportJobService;
+import com.wultra.security.userdatastore.service.PhotoImportService;
+import com.wultra.security.userdatastore.service.PhotoService;
+import com.sun.net.httpserver.HttpServer;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
@@ -34,12 +42,18 @@ import org.springframework.test.context.ActiveProfiles;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.security.Security;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
@@ -64,6 +78,18 @@ class PhotoRestClientTest {
     
     private UserDataStoreRestClient restClient;
 
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private PhotoImportService photoImportService;
+
     @BeforeAll
     void initTests() throws Exception {
         Security.addProvider(new BouncyCastleProvider());
@@ -127,6 +153,40 @@ class PhotoRestClientTest {
         assertEquals(0, fetchResponse3.photos().size());
     }
 
+    @Test
+    void testUpdatePhotoIfMatch() throws Exception {
+        DocumentCreateRequest request = new DocumentCreateRequest("alice", "test_type", "test_data_type", "1", null, "test_data", Collections.emptyMap(), Collections.emptyList(), Collections.emptyList());
+        DocumentCreateResponse response = restClient.createDocument(request);
+        String photoId1 = restClient.createPhoto(new PhotoCreateRequest("alice", response.id(), "test_type", "aW1hZ2VfZGF0YQ==", null)).id();
+        String photoId2 = restClient.createPhoto(new PhotoCreateRequest("alice", response.id(), "test_type", "aW1hZ2VfZGF0YQ==", null)).id();
+
+        Map<String, String> etags = restClient.fetchPhotos("alice", response.id(), true).photos().stream()
+                .collect(Collectors.toMap(PhotoDto::id, PhotoDto::etag));
+        assertNotNull(etags.get(photoId1));
+        assertNotEquals(etags.get(photoId1), etags.get(photoId2));
+
+        // A change of another photo of the document does not affect the ETag of the updated photo
+        restClient.updatePhoto(photoId2, new PhotoUpdateRequest("test_type2", "aW1hZ2VfZGF0YTI=", null));
+        photoService.updatePhoto(photoId1, new PhotoUpdateRequest("test_type2", "aW1hZ2VfZGF0YTI=", null), Optional.of(etags.get(photoId1)));
+
+        PhotoUpdateRequest staleUpdate = new PhotoUpdateRequest("test_type3", "aW1hZ2VfZGF0YTM=", null);
+        assertThrows(PreconditionFailedException.class, () -> photoService.updatePhoto(photoId2, staleUpdate, Optional.of(etags.get(photoId2))));
+    }
+
+    @Test
+    void testFetchPhotoContent() throws Exception {
+        DocumentCreateRequest request = new DocumentCreateRequest("alice", "test_type", "test_data_type", "1", null, "test_data", Collections.emptyMap(), Collections.emptyList(), Collections.emptyList());
+        DocumentCreateResponse response = restClient.createDocument(request);
+
+        PhotoCreateRequest photoRequest = new PhotoCreateRequest("alice", response.id(), "person", PHOTO2_BASE_64, null);
+        PhotoCreateResponse photoResponse = restClient.createPhoto(photoRequest);
+
+        byte[] content = restClient.fetchPhotoContent("alice", photoResponse.id());
+        assertArrayEquals(Base64.getDecoder().decode(PHOTO2_BASE_64), content);
+
+        assertThrows(UserDataStoreClientException.class, () -> restClient.fetchPhotoContent("bob", photoResponse.id()));
+    }
+
     @Test
     void testValidation_NullUser() {
         PhotoCreateRequest photoRequest = new PhotoCreateRequest(null, "123", "test", PHOTO_BASE_64, null);
@@ -210,6 +270,31 @@ class PhotoRestClientTest {
         verifyImportResponse(response, PHOTO2_BASE_64);
     }
 
+    @Test
+    void testPhotoImportMultiplePreservesOrder() throws Exception {
+        final List<EmbeddedPhotoImportRequest> photos = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String photoData = i == 5
+                    ? "/nonexistent/photo.png"
+                    : "http://localhost:" + serverPort + "/user-data-store/swagger-ui/favicon-32x32.png";
+            photos.add(EmbeddedPhotoImportRequest.builder()
+                    .userId("user_import_" + i)
+                    .photoDataType("raw")
+                    .photoType("person")
+                    .photoData(photoData)
+                    .build());
+        }
+        final PhotosImportResponse response = restClient.importPhotos(PhotosImportRequest.builder().photos(photos).build());
+
+        assertEquals(20, response.photos().size());
+        for (int i = 0; i < 20; i++) {
+            final EmbeddedPhotoImportResponse result = response.photos().get(i);
+            assertEquals("user_import_" + i, result.userId());
+            assertEquals(i != 5, result.imported());
+        }
+        assertNotNull(response.photos().get(5).error());
+    }
+
     @Test
     void testPhotoImportCsvBase64Inline() throws Exception {
         Path tempFile = Files.createTempFile("photos", ".csv");
@@ -223,6 +308,140 @@ class PhotoRestClientTest {
         verifyImportCsv(Arrays.asList("user_test_b64i_123", "user_test_b64i_456"), PHOTO_BASE_64);
     }
 
+    @Test
+    void testPhotoImportCsvFailedChunkRolledBack() throws Exception {
+        Path tempFile = Files.createTempFile("photos", ".csv");
+        Files.writeString(tempFile, "user_test_chunk_1,base64_inline,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_chunk_2,unknown,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_chunk_3,base64_inline,person," + PHOTO_BASE_64);
+        PhotosImportCsvRequest importRequest = PhotosImportCsvRequest.builder()
+                .importPaths(Collections.singletonList(tempFile.toAbsolutePath().toString()))
+                .attributes(Map.of("tag", "test"))
+                .build();
+        restClient.importPhotosCsv(importRequest);
+        verifyImportCsv(List.of("user_test_chunk_3"), PHOTO_BASE_64);
+        assertTrue(restClient.fetchDocuments("user_test_chunk_1", null).documents().isEmpty());
+    }
+
+    @Test
+    void testPhotoImportCsvJobProgress() throws Exception {
+        Path tempFile = Files.createTempFile("photos", ".csv");
+        Files.writeString(tempFile, "user_test_job_1,base64_inline,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_job_2,base64_inline,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_job_3,base64_inline,person," + PHOTO_BASE_64);
+        PhotosImportCsvRequest importRequest = PhotosImportCsvRequest.builder()
+                .importPaths(List.of(tempFile.toAbsolutePath().toString(), tempFile.resolveSibling("missing.csv").toString()))
+                .attributes(Map.of("tag", "test"))
+                .build();
+        PhotosImportCsvResponse importResponse = restClient.importPhotosCsv(importRequest);
+        assertNotNull(importResponse.jobId());
+
+        ImportJobResponse job = awaitImportJob(importResponse.jobId());
+        assertEquals("FAILED", job.state());
+        assertEquals(2, job.pathCount());
+        assertEquals(2, job.pathIndex());
+        assertEquals(3, job.processedCount());
+        assertEquals(3, job.importedCount());
+        assertEquals(0, job.failedCount());
+        assertTrue(job.error().contains("missing.csv"));
+        verifyImportCsv(List.of("user_test_job_1", "user_test_job_2", "user_test_job_3"), PHOTO_BASE_64);
+    }
+
+    @Test
+    void testPhotoImportCsvJobResumedFromCheckpoint() throws Exception {
+        Path tempFile = Files.createTempFile("photos", ".csv");
+        Files.writeString(tempFile, "user_test_resume_1,base64_inline,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_resume_2,base64_inline,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_resume_3,base64_inline,person," + PHOTO_BASE_64);
+        String jobId = importJobService.createCsvJob(List.of(tempFile.toAbsolutePath().toString()), Map.of("tag", "test"));
+        ImportJobEntity job = importJobRepository.findById(jobId).orElseThrow();
+        job.setRecordPosition(2);
+        job.setProcessedCount(2);
+        job.setImportedCount(2);
+        job.setTimestampLastUpdated(LocalDateTime.now().minusHours(1));
+        importJobRepository.save(job);
+
+        importJobService.resumeStaleJobs();
+
+        ImportJobResponse jobResponse = awaitImportJob(jobId);
+        assertEquals("SUCCEEDED", jobResponse.state());
+        assertEquals(3, jobResponse.processedCount());
+        assertEquals(3, jobResponse.importedCount());
+        verifyImportCsv(List.of("user_test_resume_3"), PHOTO_BASE_64);
+        assertTrue(restClient.fetchDocuments("user_test_resume_1", null).documents().isEmpty());
+    }
+
+    @Test
+    void testPhotoImportCsvJobResumedAfterStreamFailure() throws Exception {
+        final String csv = "user_test_stream_1,base64_inline,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_stream_2,base64_inline,person," + PHOTO_BASE_64 +
+                "\n" + "user_test_stream_3,base64_inline,person," + PHOTO_BASE_64;
+        final byte[] csvBytes = csv.getBytes(StandardCharsets.UTF_8);
+        final int firstChunkLength = csv.indexOf("user_test_stream_3");
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/photos.csv", exchange -> {
+            exchange.sendResponseHeaders(200, csvBytes.length);
+            final OutputStream body = exchange.getResponseBody();
+            body.write(csvBytes, 0, requests.incrementAndGet() == 1 ? firstChunkLength : csvBytes.length);
+            body.flush();
+            // the first response is closed before all the declared bytes are written
+            exchange.close();
+        });
+        server.start();
+        try {
+            final String csvUrl = "http://localhost:%d/photos.csv".formatted(server.getAddress().getPort());
+            final String jobId = importJobService.createCsvJob(List.of(csvUrl), Map.of("tag", "test"));
+            photoImportService.importCsvJob(jobId);
+
+            await().atMost(5, TimeUnit.SECONDS)
+                    .pollInterval(100, TimeUnit.MILLISECONDS)
+                    .until(() -> importJobRepository.findById(jobId).orElseThrow(), job -> job.getRecordPosition() == 2);
+            ImportJobEntity job = importJobRepository.findById(jobId).orElseThrow();
+            assertEquals("RUNNING", job.getState().name());
+            assertEquals(0, job.getPathIndex());
+            assertNull(job.getError());
+            job.setTimestampLastUpdated(LocalDateTime.now().minusHours(1));
+            importJobRepository.save(job);
+
+            importJobService.resumeStaleJobs();
+
+            ImportJobResponse jobResponse = awaitImportJob(jobId);
+            assertEquals("SUCCEEDED", jobResponse.state());
+            assertEquals(3, jobResponse.processedCount());
+            assertEquals(3, jobResponse.importedCount());
+            assertEquals(2, requests.get());
+            verifyImportCsv(List.of("user_test_stream_1", "user_test_stream_2", "user_test_stream_3"), PHOTO_BASE_64);
+            assertEquals(1, restClient.fetchDocuments("user_test_stream_1", null).documents().size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testPhotoImportCsvJobResumeAttemptsExceeded() throws Exception {
+        Path tempFile = Files.createTempFile("photos", ".csv");
+        Files.writeString(tempFile, "user_test_resume_exceeded_1,base64_inline,person," + PHOTO_BASE_64);
+        String jobId = importJobService.createCsvJob(List.of(tempFile.toAbsolutePath().toString()), Map.of("tag", "test"));
+        ImportJobEntity job = importJobRepository.findById(jobId).orElseThrow();
+        job.setResumeAttempts(3);
+        job.setTimestampLastUpdated(LocalDateTime.now().minusHours(1));
+        importJobRepository.save(job);
+
+        importJobService.resumeStaleJobs();
+
+        ImportJobResponse jobResponse = restClient.fetchImportJob(jobId);
+        assertEquals("FAILED", jobResponse.state());
+        assertEquals(0, jobResponse.processedCount());
+        assertTrue(jobResponse.error().contains("resume attempts exceeded"));
+        assertTrue(restClient.fetchDocuments("user_test_resume_exceeded_1", null).documents().isEmpty());
+    }
+
+    @Test
+    void testFetchImportJobNotFound() {
+        assertThrows(UserDataStoreClientException.class, () -> restClient.fetchImportJob("non-existing"));
+    }
+
     @Test
     void testPhotoImportCsvBase64() throws Exception {
         Path tempFile = Files.createTempFile("photos", ".csv");
@@ -345,6 +564,12 @@ class PhotoRestClientTest {
         assertEquals(expectedPhotoBase64, photo.photoData());
     }
 
+    private ImportJobResponse awaitImportJob(String jobId) {
+        return await().atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .until(() -> restClient.fetchImportJob(jobId), job -> !"RUNNING".equals(job.state()));
+    }
+
     private void verifyImportCsv(List<String> userIds, String expectedPhotoBase64) {
         userIds.forEach(userId -> {
             await().atMost(1, TimeUnit.SECONDS)
@@ -0,0 +1,174 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.core.audit.base.Audit;
+import com.wultra.core.audit.base.model.AuditDetail;
+import com.wultra.core.audit.base.model.AuditLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for {@link AsyncAudit}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+class AsyncAuditTest {
+
+    private final Audit delegate = mock(Audit.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AsyncAudit tested;
+
+    @AfterEach
+    void tearDown() {
+        if (tested != null) {
+            tested.close();
+        }
+    }
+
+    @Test
+    void testEventsWrittenInBatch() {
+        when(delegate.isLevelEnabled(AuditLevel.INFO)).thenReturn(true);
+        tested = createAudit(AuditOverflowPolicy.BLOCK, 100, 10, Duration.ofMillis(50));
+
+        final AuditDetail auditDetail = AuditDetail.builder().type("document").param("userId", "alice").build();
+        for (int i = 0; i < 10; i++) {
+            tested.info("action: fetchDocuments, userId: {}", auditDetail, "alice");
+        }
+
+        verify(delegate, timeout(5_000).times(10)).log(eq("action: fetchDocuments, userId: {}"), eq(AuditLevel.INFO),
+                argThat(detail -> "document".equals(detail.getType()) && "alice".equals(detail.getParam().get("userId"))), eq("alice"));
+        verify(delegate, timeout(5_000).atLeastOnce()).flush();
+        assertEquals(10, meterRegistry.get("uds.audit.written").functionCounter().count());
+        assertTrue(meterRegistry.get("uds.audit.write").timer().count() >= 1);
+        assertEquals(10, meterRegistry.get("uds.audit.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void testDisabledLevelNotEnqueued() {
+        when(delegate.isLevelEnabled(AuditLevel.DEBUG)).thenReturn(false);
+        tested = createAudit(AuditOverflowPolicy.BLOCK, 100, 10, Duration.ofMillis(50));
+
+        tested.debug("action: fetchDocuments");
+        tested.close();
+
+        verify(delegate, never()).log(any(), any(AuditLevel.class), any(Object[].class));
+        verify(delegate, never()).log(any(), any(AuditLevel.class), any(AuditDetail.class), any(Object[].class));
+        assertEquals(0, meterRegistry.get("uds.audit.queue.size").gauge().value());
+    }
+
+    @Test
+    void testDropWhenQueueFull() throws Exception {
+        final CountDownLatch writerBlocked = new CountDownLatch(1);
+        final CountDownLatch releaseWriter = new CountDownLatch(1);
+        when(delegate.isLevelEnabled(AuditLevel.INFO)).thenReturn(true);
+        doAnswer(invocation -> {
+            writerBlocked.countDown();
+            releaseWriter.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).flush();
+        tested = createAudit(AuditOverflowPolicy.DROP, 2, 1, Duration.ofMillis(10));
+
+        tested.info("event: 0");
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            tested.info("event: " + i);
+        }
+
+        assertEquals(3, meterRegistry.get("uds.audit.dropped").functionCounter().count());
+        assertEquals(2, meterRegistry.get("uds.audit.queue.size").gauge().value());
+
+        releaseWriter.countDown();
+        tested.close();
+        verify(delegate).log(eq("event: 1"), eq(AuditLevel.INFO), any(AuditDetail.class), any(Object[].class));
+        verify(delegate).log(eq("event: 2"), eq(AuditLevel.INFO), any(AuditDetail.class), any(Object[].class));
+        verify(delegate, never()).log(eq("event: 5"), eq(AuditLevel.INFO), any(AuditDetail.class), any(Object[].class));
+    }
+
+    @Test
+    void testQueuedEventsFlushedOnClose() {
+        when(delegate.isLevelEnabled(AuditLevel.INFO)).thenReturn(true);
+        tested = createAudit(AuditOverflowPolicy.BLOCK, 100, 100, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 5; i++) {
+            tested.info("event: {}", i);
+        }
+        tested.close();
+
+        verify(delegate, times(5)).log(eq("event: {}"), eq(AuditLevel.INFO), any(AuditDetail.class), any(Object[].class));
+        assertEquals(0, meterRegistry.get("uds.audit.queue.size").gauge().value());
+    }
+
+    @Test
+    void testOriginOfEventRecorded() {
+        when(delegate.isLevelEnabled(AuditLevel.INFO)).thenReturn(true);
+        tested = createAudit(AuditOverflowPolicy.BLOCK, 100, 10, Duration.ofSeconds(10));
+
+        final Instant before = Instant.now();
+        tested.info("event: origin");
+        tested.close();
+
+        final ArgumentCaptor<AuditDetail> captor = ArgumentCaptor.forClass(AuditDetail.class);
+        verify(delegate).log(eq("event: origin"), eq(AuditLevel.INFO), captor.capture(), any(Object[].class));
+        assertEquals(Thread.currentThread().getName(), captor.getValue().getParam().get(AsyncAudit.PARAM_THREAD));
+        final Instant timestamp = Instant.parse((String) captor.getValue().getParam().get(AsyncAudit.PARAM_TIMESTAMP));
+        assertFalse(timestamp.isBefore(before));
+    }
+
+    @Test
+    void testJfrEvents() throws Exception {
+        when(delegate.isLevelEnabled(AuditLevel.INFO)).thenReturn(true);
+        tested = createAudit(AuditOverflowPolicy.BLOCK, 100, 10, Duration.ofSeconds(10));
+
+        final List<RecordedEvent> events = JfrRecordings.record(() -> {
+            for (int i = 0; i < 3; i++) {
+                tested.info("event: {}", i);
+            }
+            tested.close();
+        }, "com.wultra.security.userdatastore.AuditFlush");
+
+        final List<RecordedEvent> flushEvents = JfrRecordings.ofName(events, "com.wultra.security.userdatastore.AuditFlush");
+        assertEquals(3, flushEvents.stream().mapToInt(it -> it.getInt("eventCount")).sum());
+        assertTrue(flushEvents.stream().allMatch(it -> it.getBoolean("flushed")));
+    }
+
+    private AsyncAudit createAudit(final AuditOverflowPolicy overflowPolicy, final int queueCapacity, final int batchSize, final Duration flushInterval) {
+        final AsyncAudit audit = new AsyncAudit(delegate, queueCapacity, batchSize, flushInterval, overflowPolicy, 10, new CustomizableThreadFactory("audit-test-"));
+        audit.bindTo(meterRegistry);
+        return audit;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.PhotoCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.PhotoUpdateRequest;
+import com.wultra.security.userdatastore.model.entity.EncryptionMode;
+import com.wultra.security.userdatastore.model.entity.PhotoEntity;
+import com.wultra.security.userdatastore.model.repository.DocumentRepository;
+import com.wultra.security.userdatastore.model.repository.PhotoRepository;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.security.Security;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for storing photos in binary columns, with legacy records encrypted into Base64 text still readable.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "user-data-store.db.encryption.binary-storage.enabled=true")
+class BinaryStorageTest {
+
+    private static final String PHOTO_BASE_64 = "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAIAAACQd1PeAAAADElEQVR4nGP4//8/AAX+Av4N70a4AAAAAElFTkSuQmCC";
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Value("${user-data-store.db.master.encryption.key}")
+    private String masterDbEncryptionKey;
+
+    @BeforeAll
+    static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    void testPhotoStoredInBinaryColumn() {
+        final String documentId = createDocument("binary_user");
+        final String photoId = photoService.createPhoto(PhotoCreateRequest.builder()
+                .userId("binary_user")
+                .documentId(documentId)
+                .photoType("person")
+                .photoData(PHOTO_BASE_64)
+                .build()).id();
+
+        final PhotoEntity photoEntity = photoRepository.findById(photoId).orElseThrow();
+        assertEquals(EncryptionMode.AES_HMAC_BINARY, photoEntity.getEncryptionMode());
+        assertNull(photoEntity.getPhotoData());
+        assertNotNull(photoEntity.getPhotoDataBinary());
+
+        assertEquals(PHOTO_BASE_64, fetchPhotoData("binary_user", documentId));
+    }
+
+    @Test
+    void testLegacyPhotoReadableAfterSwitch() {
+        final String documentId = createDocument("legacy_user");
+        final PhotoEntity legacyPhoto = new PhotoEntity();
+        legacyPhoto.setId(UUID.randomUUID().toString());
+        legacyPhoto.setDocument(documentRepository.findById(documentId).orElseThrow());
+        legacyPhoto.setUserId("legacy_user");
+        legacyPhoto.setPhotoType("person");
+        new EncryptionService(masterDbEncryptionKey).encryptPhoto(legacyPhoto, PHOTO_BASE_64);
+        assertEquals(EncryptionMode.AES_HMAC, legacyPhoto.getEncryptionMode());
+        photoRepository.save(legacyPhoto);
+
+        assertEquals(PHOTO_BASE_64, fetchPhotoData("legacy_user", documentId));
+
+        photoService.updatePhoto(legacyPhoto.getId(), PhotoUpdateRequest.builder()
+                .photoType("person")
+                .photoData(PHOTO_BASE_64)
+                .build(), Optional.empty());
+
+        final PhotoEntity photoEntity = photoRepository.findById(legacyPhoto.getId()).orElseThrow();
+        assertEquals(EncryptionMode.AES_HMAC_BINARY, photoEntity.getEncryptionMode());
+        assertNull(photoEntity.getPhotoData());
+        assertEquals(PHOTO_BASE_64, fetchPhotoData("legacy_user", documentId));
+    }
+
+    private String createDocument(final String userId) {
+        return documentService.createDocument(DocumentCreateRequest.builder()
+                .userId(userId)
+                .documentType("profile")
+                .dataType("binary_data")
+                .documentData("{}")
+                .build()).id();
+    }
+
+    private String fetchPhotoData(final String userId, final String documentId) {
+        return photoService.fetchPhotos(userId, Optional.of(documentId)).photos().get(0).photoData();
+    }
+
+}
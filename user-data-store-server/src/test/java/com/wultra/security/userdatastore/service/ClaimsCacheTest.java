@@ -0,0 +1,143 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.model.entity.DocumentEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.security.Security;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link ClaimsCache}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+class ClaimsCacheTest {
+
+    private static final String MASTER_KEY = "MTIzNDU2Nzg5MDEyMzQ1Ng==";
+
+    private final EncryptionService encryptionService = new EncryptionService(MASTER_KEY);
+    private final CacheInvalidationBus cacheInvalidationBus = new LocalCacheInvalidationBus();
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @BeforeAll
+    static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    void testCachedUntilInvalidated() {
+        final ClaimsCache tested = createCache(true, false);
+
+        assertEquals(Map.of("claim1", "value1"), tested.get("alice", this::load).orElseThrow());
+        assertEquals(Map.of("claim1", "value1"), tested.get("alice", this::load).orElseThrow());
+        assertEquals(1, loadCount.get());
+
+        cacheInvalidationBus.publish("alice");
+        assertEquals(Map.of("claim1", "value1"), tested.get("alice", this::load).orElseThrow());
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void testInvalidateAll() {
+        final ClaimsCache tested = createCache(true, false);
+
+        tested.get("alice", this::load);
+        tested.invalidateAll();
+        tested.get("alice", this::load);
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void testCiphertextOnly() {
+        final ClaimsCache tested = createCache(true, true);
+
+        assertEquals(Map.of("claim1", "value1"), tested.get("alice", this::load).orElseThrow());
+        final Object claims = tested.get("alice", this::load).orElseThrow();
+
+        assertEquals(Map.of("claim1", "value1"), claims);
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    void testNotCachedWhenInvalidatedDuringLoad() {
+        final ClaimsCache tested = createCache(true, false);
+
+        tested.get("alice", userId -> {
+            cacheInvalidationBus.publish(userId);
+            return load(userId);
+        });
+        tested.get("alice", this::load);
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void testMissingClaimsNotCached() {
+        final ClaimsCache tested = createCache(true, false);
+
+        assertTrue(tested.get("alice", userId -> Optional.empty()).isEmpty());
+        assertTrue(tested.get("alice", this::load).isPresent());
+    }
+
+    @Test
+    void testDisabled() {
+        final ClaimsCache tested = createCache(false, false);
+
+        tested.get("alice", this::load);
+        tested.get("alice", this::load);
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void testMetrics() {
+        final ClaimsCache tested = createCache(true, false);
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        tested.bindTo(meterRegistry);
+
+        tested.get("alice", this::load);
+        tested.get("alice", this::load);
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "claims").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "claims").tag("result", "miss").functionCounter().count());
+    }
+
+    private ClaimsCache createCache(final boolean enabled, final boolean ciphertextOnly) {
+        return new ClaimsCache(enabled, 100, Duration.ofMinutes(5), ciphertextOnly, CacheInvalidationType.LOCAL, encryptionService, cacheInvalidationBus);
+    }
+
+    private Optional<DocumentEntity> load(final String userId) {
+        loadCount.incrementAndGet();
+        final DocumentEntity entity = new DocumentEntity();
+        entity.setUserId(userId);
+        encryptionService.encryptDocumentData(entity, "{\"claim1\":\"value1\"}");
+        return Optional.of(entity);
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequest;
+import com.wultra.security.userdatastore.model.error.PreconditionFailedException;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.Security;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link ClaimsService} patching claims with optimistic locking and invalidating cached claims.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ClaimsServiceTest {
+
+    @Autowired
+    private ClaimsService claimsService;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    void testConcurrentModificationDetected() throws Exception {
+        claimsService.createClaims("optimistic_user", Map.of("claim1", "value1"));
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        final TransactionTemplate newTransactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        final JsonNode patch = objectMapper.readTree("{\"claim1\": \"patched\"}");
+
+        assertThrows(OptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            claimsService.mergePatchClaims("optimistic_user", patch, Optional.empty());
+            newTransactionTemplate.executeWithoutResult(it -> claimsService.updateClaims("optimistic_user", Map.of("claim1", "concurrent"), Optional.empty()));
+        }));
+
+        assertEquals("concurrent", claimsService.fetchClaims("optimistic_user", Optional.of("claim1")));
+    }
+
+    @Test
+    void testConditionalRequests() {
+        claimsService.createClaims("conditional_user", Map.of("claim1", "value1"));
+        final String etag = claimsService.fetchClaimsETag("conditional_user");
+        assertEquals(etag, claimsService.fetchClaimsETag("conditional_user"));
+
+        assertThrows(PreconditionFailedException.class, () ->
+                claimsService.updateClaims("conditional_user", Map.of("claim1", "value2"), Optional.of("\"stale\"")));
+        claimsService.updateClaims("conditional_user", Map.of("claim1", "value2"), Optional.of(etag));
+
+        assertEquals(Map.of("claim1", "value2"), claimsService.fetchClaims("conditional_user", Optional.empty()));
+        assertNotEquals(etag, claimsService.fetchClaimsETag("conditional_user"));
+        assertThrows(PreconditionFailedException.class, () ->
+                claimsService.mergePatchClaims("conditional_user", objectMapper.createObjectNode(), Optional.of(etag)));
+    }
+
+    @Test
+    void testClaimsDocumentCreationInvalidatesCache() {
+        final List<String> invalidated = new CopyOnWriteArrayList<>();
+        cacheInvalidationBus.subscribe(new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(final String userId) {
+                invalidated.add(userId);
+            }
+
+            @Override
+            public void invalidateAll() {
+            }
+        });
+
+        documentService.createDocument(DocumentCreateRequest.builder()
+                .userId("document_claims_user")
+                .documentType("profile")
+                .dataType("claims")
+                .documentData("{\"claim1\": \"value1\"}")
+                .build());
+
+        assertTrue(invalidated.contains("document_claims_user"));
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link Claims}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+class ClaimsTest {
+
+    private static final String JSON = """
+            {
+              "name": "Alice",
+              "skipped": {"nested": [1, {"name": "Bob"}], "empty": {}},
+              "address": {"city": "Prague", "zip": null},
+              "phones": ["111", "222"],
+              "a/b": "slash"
+            }
+            """;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "name          | Alice",
+            "address/city  | Prague",
+            "address/zip   | null",
+            "address/none  | null",
+            "phones/1      | 222",
+            "phones/2      | null",
+            "phones/x      | null",
+            "name/nested   | null",
+            "missing       | null",
+            "a~1b          | slash"
+    })
+    void testFind(final String claim, final String expected) {
+        assertEquals(expected, Claims.ofJson(JSON).find(Claims.toPointer(claim)));
+        assertEquals(expected, Claims.ofParsed(Claims.ofJson(JSON).value()).find(Claims.toPointer(claim)));
+    }
+
+    @Test
+    void testFindObject() {
+        assertEquals(Map.of("city", "Prague", "zip", "10000"),
+                Claims.ofJson("{\"address\": {\"city\": \"Prague\", \"zip\": \"10000\"}}").find(Claims.toPointer("address")));
+        assertEquals(List.of("111", "222"), Claims.ofJson(JSON).find(Claims.toPointer("phones")));
+    }
+
+    @Test
+    void testFindNotObject() {
+        assertThrows(InvalidRequestException.class, () -> Claims.ofJson("[1, 2]").find(Claims.toPointer("0")));
+        assertThrows(InvalidRequestException.class, () -> Claims.ofParsed(List.of(1, 2)).find(Claims.toPointer("0")));
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.EmbeddedAttachmentCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.EmbeddedPhotoCreateRequest;
+import com.wultra.security.userdatastore.client.model.response.DocumentCreateResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test of JDBC batching when creating documents with embedded photos and attachments.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class DocumentServiceBatchingTest {
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testCreateDocumentWithEmbeddedItems() {
+        final DocumentCreateRequest request = DocumentCreateRequest.builder()
+                .userId("batching_user")
+                .documentType("personal_id")
+                .dataType("image_base64")
+                .documentData("{}")
+                .attributes(Collections.emptyMap())
+                .photos(IntStream.range(0, 8)
+                        .mapToObj(i -> EmbeddedPhotoCreateRequest.builder().photoType("person").photoData("aW1hZ2VfZGF0YQ==").build())
+                        .toList())
+                .attachments(IntStream.range(0, 2)
+                        .mapToObj(i -> EmbeddedAttachmentCreateRequest.builder().attachmentType("text").attachmentData("data").build())
+                        .toList())
+                .build();
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            final DocumentCreateResponse response = documentService.createDocument(request);
+
+            assertEquals(8, response.photos().size());
+            assertEquals(2, response.attachments().size());
+            assertEquals(0, statistics.getEntityLoadCount(), "No select before insert expected");
+            assertEquals(12, statistics.getEntityInsertCount());
+            // document, history, photos and attachments, one statement per table
+            assertTrue(statistics.getPrepareStatementCount() <= 4, () -> "Prepared statements: " + statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    void testSaveDocuments() {
+        final List<DocumentService.NewDocument> documents = IntStream.range(0, 5)
+                .mapToObj(i -> documentService.newDocument(DocumentCreateRequest.builder()
+                        .userId("batching_user_" + i)
+                        .documentType("data")
+                        .dataType("image_base64")
+                        .documentData("{}")
+                        .attributes(Collections.emptyMap())
+                        .photos(List.of(EmbeddedPhotoCreateRequest.builder().photoType("person").photoData("aW1hZ2VfZGF0YQ==").build()))
+                        .build()))
+                .toList();
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            final List<DocumentCreateResponse> responses = documentService.saveDocuments(documents);
+
+            assertEquals(documents.stream().map(it -> it.document().getId()).toList(), responses.stream().map(DocumentCreateResponse::id).toList());
+            assertEquals(0, statistics.getEntityLoadCount(), "No select before insert expected");
+            assertEquals(15, statistics.getEntityInsertCount());
+            // documents, histories and photos, one statement per table
+            assertTrue(statistics.getPrepareStatementCount() <= 3, () -> "Prepared statements: " + statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.model.error.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link ETags}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+class ETagsTest {
+
+    @Test
+    void testOf() {
+        final String etag = ETags.of(List.of(Map.entry("1", 0L), Map.entry("2", 3L)), Map.Entry::getKey, Map.Entry::getValue);
+
+        assertTrue(etag.matches("\"[0-9a-f]{32}\""));
+        assertEquals(etag, ETags.of(List.of(Map.entry("1", 0L), Map.entry("2", 3L)), Map.Entry::getKey, Map.Entry::getValue));
+        assertNotEquals(etag, ETags.of(List.of(Map.entry("1", 0L), Map.entry("2", 4L)), Map.Entry::getKey, Map.Entry::getValue));
+        assertNotEquals(etag, ETags.of(List.of(Map.entry("1", 0L)), Map.Entry::getKey, Map.Entry::getValue));
+        assertEquals(etag, ETags.of(List.of(Map.entry("2", 3L), Map.entry("1", 0L)), Map.Entry::getKey, Map.Entry::getValue), "Order must not matter");
+    }
+
+    @Test
+    void testCheckIfMatch() {
+        ETags.checkIfMatch(Optional.empty(), () -> fail("ETag should not be computed"));
+        ETags.checkIfMatch(Optional.of("\"abc\""), () -> "\"abc\"");
+        ETags.checkIfMatch(Optional.of("\"xyz\", \"abc\""), () -> "\"abc\"");
+        ETags.checkIfMatch(Optional.of("*"), () -> "\"abc\"");
+
+        assertThrows(PreconditionFailedException.class, () -> ETags.checkIfMatch(Optional.of("\"xyz\""), () -> "\"abc\""));
+        assertThrows(PreconditionFailedException.class, () -> ETags.checkIfMatch(Optional.of("W/\"abc\""), () -> "\"abc\""));
+    }
+
+}
@@ -18,17 +18,24 @@
 package com.wultra.security.userdatastore.service;
 
 import com.wultra.security.userdatastore.model.entity.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.Security;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -165,4 +172,241 @@ class EncryptionServiceTest {
         final String result = tested.decryptAttachment(attachmentEntity);
         assertEquals(encodedData, result);
     }
+
+    @Test
+    void testDerivedKeyCache_hitForSameUser() {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==");
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        tested.bindTo(registry);
+
+        final DocumentEntity entity = new DocumentEntity();
+        entity.setUserId("alice.adams");
+        tested.encryptDocumentData(entity, "{\"name\": \"Alice Adams\"}");
+        assertEquals("{\"name\": \"Alice Adams\"}", tested.decryptDocumentData(entity));
+        assertEquals("{\"name\": \"Alice Adams\"}", tested.decryptDocumentData(entity));
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "derivedKeys").tag("result", "miss").functionCounter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "derivedKeys").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testEncryptionMetrics() {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 10, Duration.ofMinutes(1), true);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        tested.bindTo(registry);
+
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        tested.encryptDocumentData(documentEntity, "{\"name\": \"Alice Adams\"}");
+        tested.decryptDocumentData(documentEntity);
+        final PhotoEntity photoEntity = new PhotoEntity();
+        photoEntity.setDocument(documentEntity);
+        tested.encryptPhoto(photoEntity, "aW1hZ2VfZGF0YQ==");
+
+        assertEquals(1, registry.get("uds.encryption.duration").tag("operation", "encrypt").tag("entity", "document").tag("mode", "AES_HMAC").timer().count());
+        assertEquals(1, registry.get("uds.encryption.duration").tag("operation", "decrypt").tag("entity", "document").tag("mode", "AES_HMAC").timer().count());
+        assertEquals(1, registry.get("uds.encryption.duration").tag("operation", "encrypt").tag("entity", "photo").tag("mode", "AES_HMAC_BINARY").timer().count());
+        assertEquals(23, registry.get("uds.encryption.payload.size").tag("operation", "decrypt").tag("entity", "document").tag("mode", "AES_HMAC").summary().totalAmount());
+        assertEquals(1, registry.get("uds.encryption.key.derivation").timer().count());
+    }
+
+    @Test
+    void testJfrEvents() throws Exception {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", false, 0, Duration.ZERO, false);
+        final DocumentEntity entity = new DocumentEntity();
+        entity.setUserId("alice.adams");
+
+        final List<RecordedEvent> events = JfrRecordings.record(() -> tested.encryptDocumentData(entity, "{\"name\": \"Alice Adams\"}"),
+                "com.wultra.security.userdatastore.Encryption", "com.wultra.security.userdatastore.KeyDerivation");
+
+        final RecordedEvent encryptionEvent = JfrRecordings.ofName(events, "com.wultra.security.userdatastore.Encryption").get(0);
+        assertEquals("encrypt", encryptionEvent.getString("operation"));
+        assertEquals("document", encryptionEvent.getString("entity"));
+        assertEquals("AES_HMAC", encryptionEvent.getString("mode"));
+        assertEquals(23, encryptionEvent.getLong("size"));
+        assertEquals(1, JfrRecordings.ofName(events, "com.wultra.security.userdatastore.KeyDerivation").size());
+    }
+
+    @Test
+    void testDerivedKeyCache_disabled() {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", false, 0, Duration.ZERO, false);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        tested.bindTo(registry);
+
+        final DocumentEntity entity = new DocumentEntity();
+        entity.setUserId("alice.adams");
+        tested.encryptDocumentData(entity, "{\"name\": \"Alice Adams\"}");
+
+        assertEquals("{\"name\": \"Alice Adams\"}", tested.decryptDocumentData(entity));
+        assertNull(registry.find("cache.gets").meter());
+    }
+
+    @Test
+    void testDerivedKeyCache_evictedKeyStillDecrypts() {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 1, Duration.ofMinutes(1), false);
+
+        final DocumentEntity alice = new DocumentEntity();
+        alice.setUserId("alice.adams");
+        tested.encryptDocumentData(alice, "{\"name\": \"Alice Adams\"}");
+
+        final DocumentEntity bob = new DocumentEntity();
+        bob.setUserId("bob.brown");
+        tested.encryptDocumentData(bob, "{\"name\": \"Bob Brown\"}");
+
+        assertEquals("{\"name\": \"Alice Adams\"}", tested.decryptDocumentData(alice));
+        assertEquals("{\"name\": \"Bob Brown\"}", tested.decryptDocumentData(bob));
+    }
+
+    @Test
+    void testEncryption_photoBinary() throws IOException {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 10, Duration.ofMinutes(1), true);
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        final PhotoEntity photoEntity = new PhotoEntity();
+        photoEntity.setDocument(documentEntity);
+        final BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", baos);
+        final byte[] imageData = baos.toByteArray();
+        final String encodedData = Base64.getEncoder().encodeToString(imageData);
+
+        tested.encryptPhoto(photoEntity, encodedData);
+
+        assertEquals(EncryptionMode.AES_HMAC_BINARY, photoEntity.getEncryptionMode());
+        assertNull(photoEntity.getPhotoData());
+        // IV and PKCS#7 padded ciphertext of the decoded image
+        assertEquals(16 + (imageData.length / 16 + 1) * 16, photoEntity.getPhotoDataBinary().length);
+
+        final String result = tested.decryptPhoto(photoEntity);
+        assertEquals(encodedData, result);
+    }
+
+    @Test
+    void testEncryption_photoBinaryReadsLegacyRecord() {
+        final String encodedData = Base64.getEncoder().encodeToString("legacy photo".getBytes(StandardCharsets.UTF_8));
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        final PhotoEntity photoEntity = new PhotoEntity();
+        photoEntity.setDocument(documentEntity);
+        new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==").encryptPhoto(photoEntity, encodedData);
+        assertEquals(EncryptionMode.AES_HMAC, photoEntity.getEncryptionMode());
+
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 10, Duration.ofMinutes(1), true);
+        assertEquals(encodedData, tested.decryptPhoto(photoEntity));
+
+        tested.encryptPhoto(photoEntity, encodedData);
+        assertEquals(EncryptionMode.AES_HMAC_BINARY, photoEntity.getEncryptionMode());
+        assertNull(photoEntity.getPhotoData());
+        assertEquals(encodedData, tested.decryptPhoto(photoEntity));
+    }
+
+    @Test
+    void testEncryption_attachmentBinaryFallbackForText() {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 10, Duration.ofMinutes(1), true);
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        final AttachmentEntity attachmentEntity = new AttachmentEntity();
+        attachmentEntity.setDocument(documentEntity);
+
+        tested.encryptAttachment(attachmentEntity, "Sample text document");
+
+        assertEquals(EncryptionMode.AES_HMAC, attachmentEntity.getEncryptionMode());
+        assertNull(attachmentEntity.getAttachmentDataBinary());
+        assertEquals("Sample text document", tested.decryptAttachment(attachmentEntity));
+
+        final String encodedData = Base64.getEncoder().encodeToString("Sample text document".getBytes(StandardCharsets.UTF_8));
+        tested.encryptAttachment(attachmentEntity, encodedData);
+
+        assertEquals(EncryptionMode.AES_HMAC_BINARY, attachmentEntity.getEncryptionMode());
+        assertNull(attachmentEntity.getAttachmentData());
+        assertEquals(encodedData, tested.decryptAttachment(attachmentEntity));
+    }
+
+    @Test
+    void testDecryptPhotoContent_binary() throws IOException {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 10, Duration.ofMinutes(1), true);
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        final PhotoEntity photoEntity = new PhotoEntity();
+        photoEntity.setDocument(documentEntity);
+        final byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        tested.encryptPhoto(photoEntity, Base64.getEncoder().encodeToString(data));
+        assertEquals(EncryptionMode.AES_HMAC_BINARY, photoEntity.getEncryptionMode());
+
+        final Resource result = tested.decryptPhotoContent(photoEntity);
+
+        assertEquals(1000, result.contentLength());
+        assertArrayEquals(data, result.getContentAsByteArray());
+        try (InputStream is = result.getInputStream()) {
+            assertEquals(517, is.skip(517));
+            assertArrayEquals(Arrays.copyOfRange(data, 517, 600), is.readNBytes(83));
+            assertEquals(100, is.skip(100));
+            assertArrayEquals(Arrays.copyOfRange(data, 700, 1000), is.readAllBytes());
+        }
+    }
+
+    @Test
+    void testDecryptPhotoContent_binaryRecordedOnClose() throws Exception {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 10, Duration.ofMinutes(1), true);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        tested.bindTo(registry);
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        final PhotoEntity photoEntity = new PhotoEntity();
+        photoEntity.setDocument(documentEntity);
+        final String photoData = Base64.getEncoder().encodeToString(new byte[1000]);
+        tested.encryptPhoto(photoEntity, photoData);
+
+        final Resource result = tested.decryptPhotoContent(photoEntity);
+        assertEquals(0, registry.get("uds.encryption.duration").tag("operation", "decrypt").tag("entity", "photo").tag("mode", "AES_HMAC_BINARY").timer().count());
+
+        final List<RecordedEvent> events = JfrRecordings.record(result::getContentAsByteArray, "com.wultra.security.userdatastore.Encryption");
+
+        assertEquals(1, registry.get("uds.encryption.duration").tag("operation", "decrypt").tag("entity", "photo").tag("mode", "AES_HMAC_BINARY").timer().count());
+        assertEquals(photoData.length(), registry.get("uds.encryption.payload.size").tag("operation", "decrypt").tag("entity", "photo").tag("mode", "AES_HMAC_BINARY").summary().totalAmount());
+        final RecordedEvent encryptionEvent = JfrRecordings.ofName(events, "com.wultra.security.userdatastore.Encryption").get(0);
+        assertEquals("decrypt", encryptionEvent.getString("operation"));
+        assertEquals("photo", encryptionEvent.getString("entity"));
+        assertEquals(photoData.length(), encryptionEvent.getLong("size"));
+    }
+
+    @Test
+    void testDecryptPhotoContent_blockAlignedLength() throws IOException {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==", true, 10, Duration.ofMinutes(1), true);
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        final PhotoEntity photoEntity = new PhotoEntity();
+        photoEntity.setDocument(documentEntity);
+        final byte[] data = new byte[64];
+        Arrays.fill(data, (byte) 7);
+        tested.encryptPhoto(photoEntity, Base64.getEncoder().encodeToString(data));
+
+        final Resource result = tested.decryptPhotoContent(photoEntity);
+
+        assertEquals(64, result.contentLength());
+        try (InputStream is = result.getInputStream()) {
+            assertEquals(64, is.skip(100));
+            assertEquals(-1, is.read());
+        }
+    }
+
+    @Test
+    void testDecryptPhotoContent_text() throws IOException {
+        final EncryptionService tested = new EncryptionService("MTIzNDU2Nzg5MDEyMzQ1Ng==");
+        final DocumentEntity documentEntity = new DocumentEntity();
+        documentEntity.setUserId("alice.adams");
+        final PhotoEntity photoEntity = new PhotoEntity();
+        photoEntity.setDocument(documentEntity);
+        final byte[] data = "image_data".getBytes(StandardCharsets.UTF_8);
+        tested.encryptPhoto(photoEntity, Base64.getEncoder().encodeToString(data));
+        assertEquals(EncryptionMode.AES_HMAC, photoEntity.getEncryptionMode());
+
+        final Resource result = tested.decryptPhotoContent(photoEntity);
+
+        assertEquals(data.length, result.contentLength());
+        assertArrayEquals(data, result.getContentAsByteArray());
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recording of JFR events in tests.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+final class JfrRecordings {
+
+    private JfrRecordings() {
+        throw new IllegalStateException("Should not be instantiated");
+    }
+
+    /**
+     * Record the given events emitted by the action.
+     *
+     * @param action action to record
+     * @param eventNames names of the recorded events
+     * @return recorded events
+     * @throws Exception in case the action or the recording fails
+     */
+    static List<RecordedEvent> record(final Action action, final String... eventNames) throws Exception {
+        final Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            Arrays.stream(eventNames).forEach(recording::enable);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Return the recorded events of the given name.
+     *
+     * @param events recorded events
+     * @param eventName event name
+     * @return events of the given name
+     */
+    static List<RecordedEvent> ofName(final List<RecordedEvent> events, final String eventName) {
+        return events.stream()
+                .filter(it -> it.getEventType().getName().equals(eventName))
+                .toList();
+    }
+
+    /**
+     * Recorded action.
+     */
+    @FunctionalInterface
+    interface Action {
+        void run() throws Exception;
+    }
+
+}
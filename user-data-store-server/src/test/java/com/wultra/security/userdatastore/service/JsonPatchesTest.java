@@ -0,0 +1,111 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wultra.security.userdatastore.model.error.InvalidRequestException;
+import com.wultra.security.userdatastore.model.error.ResourceConflictException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link JsonPatches}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+class JsonPatchesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testMergePatch() throws Exception {
+        final JsonNode target = json("{\"a\": \"b\", \"c\": {\"d\": \"e\", \"f\": \"g\"}, \"h\": [1, 2]}");
+        final JsonNode patch = json("{\"a\": \"z\", \"c\": {\"f\": null}, \"h\": [3], \"i\": {\"j\": null, \"k\": 1}}");
+
+        final JsonNode result = JsonPatches.mergePatch(target, patch);
+
+        assertEquals(json("{\"a\": \"z\", \"c\": {\"d\": \"e\"}, \"h\": [3], \"i\": {\"k\": 1}}"), result);
+    }
+
+    @Test
+    void testJsonPatch() throws Exception {
+        final JsonNode target = json("{\"a\": \"b\", \"c\": {\"d\": \"e\"}, \"h\": [1, 2]}");
+        final JsonNode operations = json("""
+                [
+                  {"op": "test", "path": "/a", "value": "b"},
+                  {"op": "replace", "path": "/a", "value": "z"},
+                  {"op": "add", "path": "/h/1", "value": 5},
+                  {"op": "add", "path": "/h/-", "value": 9},
+                  {"op": "remove", "path": "/h/0"},
+                  {"op": "copy", "from": "/c", "path": "/x"},
+                  {"op": "move", "from": "/c/d", "path": "/m"},
+                  {"op": "add", "path": "/n~1o", "value": null}
+                ]
+                """);
+
+        final JsonNode result = JsonPatches.jsonPatch(target, operations);
+
+        assertEquals(json("{\"a\": \"z\", \"c\": {}, \"h\": [5, 2, 9], \"x\": {\"d\": \"e\"}, \"m\": \"e\", \"n/o\": null}"), result);
+    }
+
+    @Test
+    void testJsonPatchReplaceWholeDocument() throws Exception {
+        final JsonNode operations = json("[{\"op\": \"replace\", \"path\": \"\", \"value\": {\"x\": 1}}]");
+
+        assertEquals(json("{\"x\": 1}"), JsonPatches.jsonPatch(json("{\"a\": \"b\"}"), operations));
+    }
+
+    @Test
+    void testJsonPatchTestFailed() throws Exception {
+        final JsonNode operations = json("[{\"op\": \"test\", \"path\": \"/a\", \"value\": \"x\"}]");
+
+        assertThrows(ResourceConflictException.class, () -> JsonPatches.jsonPatch(json("{\"a\": \"b\"}"), operations));
+    }
+
+    @Test
+    void testJsonPatchPathNotFound() throws Exception {
+        assertThrows(ResourceConflictException.class, () ->
+                JsonPatches.jsonPatch(json("{\"a\": \"b\"}"), json("[{\"op\": \"remove\", \"path\": \"/x\"}]")));
+        assertThrows(ResourceConflictException.class, () ->
+                JsonPatches.jsonPatch(json("{\"a\": \"b\"}"), json("[{\"op\": \"add\", \"path\": \"/x/y\", \"value\": 1}]")));
+        assertThrows(ResourceConflictException.class, () ->
+                JsonPatches.jsonPatch(json("{\"h\": [1]}"), json("[{\"op\": \"replace\", \"path\": \"/h/1\", \"value\": 1}]")));
+    }
+
+    @Test
+    void testJsonPatchInvalid() throws Exception {
+        assertThrows(InvalidRequestException.class, () ->
+                JsonPatches.jsonPatch(json("{}"), json("{\"op\": \"add\"}")));
+        assertThrows(InvalidRequestException.class, () ->
+                JsonPatches.jsonPatch(json("{}"), json("[{\"op\": \"unknown\", \"path\": \"/a\"}]")));
+        assertThrows(InvalidRequestException.class, () ->
+                JsonPatches.jsonPatch(json("{}"), json("[{\"op\": \"add\", \"path\": \"/a\"}]")));
+        assertThrows(InvalidRequestException.class, () ->
+                JsonPatches.jsonPatch(json("{}"), json("[{\"op\": \"add\", \"path\": \"a\", \"value\": 1}]")));
+        assertThrows(InvalidRequestException.class, () ->
+                JsonPatches.jsonPatch(json("{\"a\": {}}"), json("[{\"op\": \"move\", \"from\": \"/a\", \"path\": \"/a/b\"}]")));
+    }
+
+    private JsonNode json(final String json) throws Exception {
+        return objectMapper.readTree(json);
+    }
+
+}
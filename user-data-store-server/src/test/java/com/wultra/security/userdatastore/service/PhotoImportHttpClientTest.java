@@ -0,0 +1,138 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link PhotoImportHttpClient}.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+class PhotoImportHttpClientTest {
+
+    private static final byte[] PHOTO = "photo-data".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private PhotoImportHttpClient tested;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/photo", exchange -> {
+            exchange.sendResponseHeaders(200, PHOTO.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(PHOTO);
+            }
+        });
+        server.createContext("/redirect", exchange -> {
+            exchange.getResponseHeaders().add("Location", baseUrl() + "/photo");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        tested = new PhotoImportHttpClient(Duration.ofSeconds(1), Duration.ofMillis(500), HttpClient.Version.HTTP_2, HttpClient.Redirect.NORMAL, meterRegistry, new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() {
+        tested.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void testFetch() throws Exception {
+        final HttpResponse<byte[]> response = tested.fetch(baseUrl() + "/photo");
+
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(PHOTO, response.body());
+        assertEquals(1, meterRegistry.get("uds.import.fetch").tag("outcome", "200").timer().count());
+        assertEquals(PHOTO.length, meterRegistry.get("uds.import.fetch.bytes").summary().totalAmount());
+    }
+
+    @Test
+    void testFetchStream() throws Exception {
+        final HttpResponse<InputStream> response = tested.fetchStream(baseUrl() + "/photo");
+
+        assertEquals(200, response.statusCode());
+        try (InputStream body = response.body()) {
+            assertArrayEquals(PHOTO, body.readAllBytes());
+        }
+        assertEquals(1, meterRegistry.get("uds.import.fetch").tag("outcome", "200").timer().count());
+    }
+
+    @Test
+    void testFetch_redirect() throws Exception {
+        final HttpResponse<byte[]> response = tested.fetch(baseUrl() + "/redirect");
+
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(PHOTO, response.body());
+    }
+
+    @Test
+    void testFetch_notFound() throws Exception {
+        final HttpResponse<byte[]> response = tested.fetch(baseUrl() + "/missing");
+
+        assertEquals(404, response.statusCode());
+        assertEquals(1, meterRegistry.get("uds.import.fetch").tag("outcome", "404").timer().count());
+    }
+
+    @Test
+    void testFetch_timeout() {
+        assertThrows(HttpTimeoutException.class, () -> tested.fetch(baseUrl() + "/slow"));
+        assertEquals(1, meterRegistry.get("uds.import.fetch").tag("outcome", "error").timer().count());
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+}
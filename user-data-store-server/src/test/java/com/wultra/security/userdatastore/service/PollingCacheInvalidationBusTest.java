@@ -0,0 +1,119 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.model.repository.CacheInvalidationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link PollingCacheInvalidationBus}, simulating two nodes sharing the database.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class PollingCacheInvalidationBusTest {
+
+    @Autowired
+    private CacheInvalidationRepository cacheInvalidationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final RecordingListener listener1 = new RecordingListener();
+    private final RecordingListener listener2 = new RecordingListener();
+    private PollingCacheInvalidationBus node1;
+    private PollingCacheInvalidationBus node2;
+
+    @BeforeEach
+    void setUp() {
+        node1 = new PollingCacheInvalidationBus(cacheInvalidationRepository, Duration.ofMinutes(1), Duration.ofHours(1));
+        node2 = new PollingCacheInvalidationBus(cacheInvalidationRepository, Duration.ofMinutes(1), Duration.ofHours(1));
+        node1.subscribe(listener1);
+        node2.subscribe(listener2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheInvalidationRepository.deleteAll();
+    }
+
+    @Test
+    void testInvalidationDeliveredToOtherNode() {
+        transactionTemplate.executeWithoutResult(status -> node1.publish("alice"));
+        node1.poll();
+        node2.poll();
+
+        assertEquals(List.of("alice", "alice"), listener1.invalidations);
+        assertEquals(List.of("alice"), listener2.invalidations);
+
+        node2.poll();
+        assertEquals(List.of("alice"), listener2.invalidations, "Invalidation must be processed only once");
+    }
+
+    @Test
+    void testRolledBackInvalidationNotDelivered() {
+        transactionTemplate.executeWithoutResult(status -> {
+            node1.publish("alice");
+            status.setRollbackOnly();
+        });
+        node2.poll();
+
+        assertEquals(List.of("alice", "alice"), listener1.invalidations);
+        assertTrue(listener2.invalidations.isEmpty());
+    }
+
+    @Test
+    void testCleanup() {
+        transactionTemplate.executeWithoutResult(status -> node1.publish("alice"));
+        final PollingCacheInvalidationBus tested = new PollingCacheInvalidationBus(cacheInvalidationRepository, Duration.ZERO, Duration.ofNanos(1));
+
+        tested.cleanup();
+
+        assertEquals(0, cacheInvalidationRepository.count());
+    }
+
+    private static class RecordingListener implements CacheInvalidationBus.Listener {
+
+        private final List<String> invalidations = new ArrayList<>();
+
+        @Override
+        public void invalidate(final String userId) {
+            invalidations.add(userId);
+        }
+
+        @Override
+        public void invalidateAll() {
+            invalidations.add("*");
+        }
+    }
+
+}
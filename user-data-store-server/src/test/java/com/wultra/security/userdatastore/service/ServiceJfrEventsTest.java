@@ -0,0 +1,118 @@
+/*
+ * User Data Store
+ * Copyright (C) 2024 Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.wultra.security.userdatastore.service;
+
+import com.wultra.security.userdatastore.client.model.dto.PhotoImportDto;
+import com.wultra.security.userdatastore.client.model.dto.PhotoImportResultDto;
+import com.wultra.security.userdatastore.client.model.request.DocumentCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.EmbeddedAttachmentCreateRequest;
+import com.wultra.security.userdatastore.client.model.request.EmbeddedPhotoCreateRequest;
+import jdk.jfr.consumer.RecordedEvent;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test of JFR events emitted when creating documents and importing photos.
+ *
+ * @author Lubos Racansky, lubos.racansky@wultra.com
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ServiceJfrEventsTest {
+
+    private static final String DOCUMENT_CREATE_EVENT = "com.wultra.security.userdatastore.DocumentCreate";
+    private static final String IMPORT_STAGE_EVENT = "com.wultra.security.userdatastore.ImportStage";
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private PhotoImportService photoImportService;
+
+    @BeforeAll
+    static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    void testDocumentCreateEvent() throws Exception {
+        final DocumentCreateRequest request = DocumentCreateRequest.builder()
+                .userId("jfr_document_user")
+                .documentType("personal_id")
+                .dataType("image_base64")
+                .documentData("{}")
+                .attributes(Collections.emptyMap())
+                .photos(List.of(
+                        EmbeddedPhotoCreateRequest.builder().photoType("person").photoData("aW1hZ2VfZGF0YQ==").build(),
+                        EmbeddedPhotoCreateRequest.builder().photoType("person").photoData("aW1hZ2VfZGF0YQ==").build()))
+                .attachments(List.of(EmbeddedAttachmentCreateRequest.builder().attachmentType("text").attachmentData("data").build()))
+                .build();
+
+        final List<RecordedEvent> events = JfrRecordings.record(() -> documentService.createDocument(request), DOCUMENT_CREATE_EVENT);
+
+        final List<RecordedEvent> documentCreateEvents = JfrRecordings.ofName(events, DOCUMENT_CREATE_EVENT);
+        assertEquals(1, documentCreateEvents.size());
+        assertEquals(2, documentCreateEvents.get(0).getInt("photoCount"));
+        assertEquals(1, documentCreateEvents.get(0).getInt("attachmentCount"));
+    }
+
+    @Test
+    void testImportStageEvents() throws Exception {
+        final byte[] photoData = "image_data".getBytes(StandardCharsets.UTF_8);
+        final Path file = Files.createTempFile("photo", ".bin");
+        Files.write(file, photoData);
+        try {
+            final PhotoImportDto photo = PhotoImportDto.builder()
+                    .userId("jfr_import_user")
+                    .photoDataType("raw")
+                    .photoType("person")
+                    .photoData(file.toString())
+                    .build();
+            final AtomicReference<List<PhotoImportResultDto>> results = new AtomicReference<>();
+
+            final List<RecordedEvent> events = JfrRecordings.record(() -> results.set(photoImportService.importPhotos(List.of(photo))), IMPORT_STAGE_EVENT);
+
+            assertTrue(results.get().get(0).imported());
+            final List<RecordedEvent> stageEvents = JfrRecordings.ofName(events, IMPORT_STAGE_EVENT).stream()
+                    .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                    .toList();
+            assertEquals(List.of("fetch", "encode", "encrypt", "persist"), stageEvents.stream().map(it -> it.getString("stage")).toList());
+            assertTrue(stageEvents.stream().allMatch(it -> it.getBoolean("success") && it.getInt("count") == 1));
+            assertTrue(stageEvents.stream().limit(3).allMatch(it -> "raw".equals(it.getString("photoDataType"))));
+            assertEquals(photoData.length, stageEvents.get(0).getLong("size"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}